@@ -0,0 +1,156 @@
+package fr.isen.java2.db.daos;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Random;
+
+import fr.isen.java2.db.entities.Movie;
+
+/**
+ * Builds synthetic SQLite catalogs for the benchmarks.
+ *
+ * A catalog of a given size is seeded once into target/benchmark-catalogs (then
+ * brought to the current schema version by {@link SchemaBootstrap}) and reused
+ * by later runs; every benchmark trial then works on its own copy, so write
+ * benchmarks never change the data read by the others. Everything is local:
+ * no network access is needed.
+ */
+final class CatalogFixture {
+
+	static final String[] GENRES = {
+		"Drama", "Comedy", "Thriller", "Action", "Horror", "Romance", "Documentary", "Animation",
+		"Western", "Science Fiction", "Fantasy", "Crime", "Musical", "War", "Mystery", "Family"
+	};
+
+	private static final Path CATALOG_DIRECTORY = Paths.get("target", "benchmark-catalogs");
+
+	private static final int SEED_BATCH_SIZE = 10_000;
+
+	private CatalogFixture() {
+		throw new IllegalStateException("This is a static class that should not be instantiated");
+	}
+
+	/**
+	 * Copies the seeded catalog of this size to a fresh file and points
+	 * DataSourceFactory to it. Must run before the first DataSourceFactory call of the JVM.
+	 *
+	 * @return the JDBC URL of the copy
+	 */
+	static String useFreshCopy(int catalogSize) {
+		try {
+			Path copy = Files.createTempFile("movies-benchmark-", ".db");
+			copy.toFile().deleteOnExit();
+			Files.copy(seededCatalog(catalogSize), copy, StandardCopyOption.REPLACE_EXISTING);
+			String jdbcUrl = "jdbc:sqlite:" + copy.toAbsolutePath() + "?date_class=TEXT";
+			System.setProperty("movies.jdbc.url", jdbcUrl);
+			return jdbcUrl;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error while copying the benchmark catalog", e);
+		}
+	}
+
+	/**
+	 * A movie that can be passed to addMovie, with realistic field sizes.
+	 */
+	static Movie newMovie(Random random, int number) {
+		int genreId = 1 + random.nextInt(GENRES.length);
+		return new Movie(
+			"New movie " + number,
+			LocalDate.ofEpochDay(random.nextInt(27_000)),
+			GenreCache.getInstance().canonical(genreId, GENRES[genreId - 1]),
+			80 + random.nextInt(120),
+			"Director " + random.nextInt(5_000),
+			summary(random)
+		);
+	}
+
+	private static Path seededCatalog(int catalogSize) throws IOException {
+		// The schema version is part of the name, so catalogs are re-seeded when it changes
+		Path catalog = CATALOG_DIRECTORY.resolve(
+				"catalog-" + catalogSize + "-v" + SchemaBootstrap.MIGRATIONS.size() + ".db");
+		if (Files.exists(catalog)) {
+			return catalog;
+		}
+		Files.createDirectories(CATALOG_DIRECTORY);
+		Path inProgress = Files.createTempFile(CATALOG_DIRECTORY, "catalog-" + catalogSize + "-", ".tmp");
+		try {
+			seed(inProgress, catalogSize);
+			// Indexes and search index are built once here rather than in every copy
+			try (ConnectionPool pool = new ConnectionPool("jdbc:sqlite:" + inProgress.toAbsolutePath(),
+					PoolConfig.fromSystemProperties(), SqliteSettings.fromSystemProperties()::apply)) {
+				SchemaBootstrap.migrate(pool);
+			}
+		} catch (SQLException e) {
+			throw new IllegalStateException("Error while seeding the benchmark catalog", e);
+		}
+		Files.move(inProgress, catalog, StandardCopyOption.ATOMIC_MOVE);
+		return catalog;
+	}
+
+	private static void seed(Path file, int catalogSize) throws SQLException {
+		Random random = new Random(42);
+		try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.toAbsolutePath());
+			 Statement statement = connection.createStatement()) {
+
+			statement.executeUpdate("PRAGMA journal_mode=OFF");
+			statement.executeUpdate("PRAGMA synchronous=OFF");
+			statement.executeUpdate(
+				"CREATE TABLE IF NOT EXISTS genre (idgenre INTEGER NOT NULL PRIMARY KEY AUTOINCREMENT, "
+				+ "name VARCHAR(50) NOT NULL)");
+			statement.executeUpdate(
+				"CREATE TABLE IF NOT EXISTS movie (idmovie INTEGER NOT NULL PRIMARY KEY AUTOINCREMENT, "
+				+ "title VARCHAR(100) NOT NULL, release_date DATETIME NULL, genre_id INT NOT NULL, "
+				+ "duration INT NULL, director VARCHAR(100) NOT NULL, summary MEDIUMTEXT NULL, "
+				+ "CONSTRAINT genre_fk FOREIGN KEY (genre_id) REFERENCES genre (idgenre))");
+
+			connection.setAutoCommit(false);
+			try (PreparedStatement insertGenre = connection.prepareStatement(
+					"INSERT INTO genre(idgenre, name) VALUES (?, ?)")) {
+				for (int i = 0; i < GENRES.length; i++) {
+					insertGenre.setInt(1, i + 1);
+					insertGenre.setString(2, GENRES[i]);
+					insertGenre.addBatch();
+				}
+				insertGenre.executeBatch();
+			}
+
+			try (PreparedStatement insertMovie = connection.prepareStatement(
+					"INSERT INTO movie(title, release_date, genre_id, duration, director, summary) "
+					+ "VALUES (?, ?, ?, ?, ?, ?)")) {
+				int directors = Math.max(10, catalogSize / 20);
+				for (int i = 1; i <= catalogSize; i++) {
+					insertMovie.setString(1, "Movie " + i);
+					insertMovie.setString(2, LocalDate.ofEpochDay(random.nextInt(27_000)) + " 00:00:00.000");
+					insertMovie.setInt(3, 1 + random.nextInt(GENRES.length));
+					insertMovie.setInt(4, 80 + random.nextInt(120));
+					insertMovie.setString(5, "Director " + random.nextInt(directors));
+					insertMovie.setString(6, summary(random));
+					insertMovie.addBatch();
+					if (i % SEED_BATCH_SIZE == 0) {
+						insertMovie.executeBatch();
+					}
+				}
+				insertMovie.executeBatch();
+			}
+			connection.commit();
+		}
+	}
+
+	private static String summary(Random random) {
+		StringBuilder summary = new StringBuilder(256);
+		while (summary.length() < 200) {
+			summary.append("lorem ipsum ").append(random.nextInt(10_000)).append(' ');
+		}
+		return summary.toString();
+	}
+}
@@ -0,0 +1,90 @@
+package fr.isen.java2.db.daos;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Heap retained per movie by a catalog loaded in memory, in each representation:
+ * Movie (listMovies), MovieHeader (listMovieHeaders, no summary) and CompactMovie
+ * (listCompactMovies, with and without shared director names).
+ *
+ * The score is the load time; the footprint is the bytesPerMovie counter: the
+ * used heap after a full GC with the list loaded, minus before. A serial GC keeps
+ * the measure stable:
+ * <pre>
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.args="CatalogFootprintBenchmark -p catalogSize=1000000"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = { "-XX:+UseSerialGC", "-Xmx4g" })
+public class CatalogFootprintBenchmark {
+
+	public enum Representation {
+		MOVIE, MOVIE_HEADER, COMPACT_MOVIE, COMPACT_MOVIE_SHARED_DIRECTORS
+	}
+
+	@Param({ "100000" })
+	public int catalogSize;
+
+	@Param
+	public Representation representation;
+
+	private final MovieDao movieDao = new MovieDao();
+
+	/**
+	 * Reported next to the score. JMH sums event counters over the iterations,
+	 * hence a single measurement iteration.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Footprint {
+		public double bytesPerMovie;
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		CatalogFixture.useFreshCopy(catalogSize);
+		// Genres are canonical instances shared by all representations
+		new GenreDao().listGenres();
+	}
+
+	@Benchmark
+	public List<?> load(Footprint footprint) {
+		long before = usedHeapAfterGc();
+		List<?> movies = switch (representation) {
+			case MOVIE -> movieDao.listMovies();
+			case MOVIE_HEADER -> movieDao.listMovieHeaders();
+			case COMPACT_MOVIE -> movieDao.listCompactMovies(false);
+			case COMPACT_MOVIE_SHARED_DIRECTORS -> movieDao.listCompactMovies(true);
+		};
+		long after = usedHeapAfterGc();
+		footprint.bytesPerMovie = (after - before) / (double) movies.size();
+		return movies;
+	}
+
+	private static long usedHeapAfterGc() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,101 @@
+package fr.isen.java2.db.daos;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.isen.java2.db.daos.MovieStatsDao.GenreStats;
+import fr.isen.java2.db.daos.MovieStatsDao.MovieDuration;
+import fr.isen.java2.db.daos.MovieStatsDao.YearCount;
+import fr.isen.java2.db.entities.CompactMovie;
+import fr.isen.java2.db.entities.Movie;
+
+/**
+ * The same queries answered by SQLite (sql*) and by a {@link CatalogSnapshot}
+ * (snapshot*): a filtered top-N with findMovies, and the MovieStatsDao aggregates.
+ *
+ * Run with: mvn -Pbenchmarks test-compile exec:exec -Djmh.args="CatalogSnapshotBenchmark -p catalogSize=1000000"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CatalogSnapshotBenchmark {
+
+	@Param({ "100000" })
+	public int catalogSize;
+
+	private final MovieDao movieDao = new MovieDao();
+	private final MovieStatsDao movieStatsDao = new MovieStatsDao();
+
+	private final MovieQuery topN = MovieQuery.builder()
+			.releasedBetween(LocalDate.of(1980, 1, 1), LocalDate.of(1999, 12, 31))
+			.durationBetween(90, 150)
+			.genres("Drama", "Comedy", "Thriller")
+			.sort(MovieQuery.Sort.RELEASE_DATE_DESC)
+			.limit(20)
+			.build();
+
+	private CatalogSnapshot snapshot;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		CatalogFixture.useFreshCopy(catalogSize);
+		snapshot = new InMemoryCatalog().snapshot();
+	}
+
+	@Benchmark
+	public List<Movie> sqlFindMovies() {
+		return movieDao.findMovies(topN);
+	}
+
+	@Benchmark
+	public List<CompactMovie> snapshotFindMovies() {
+		return snapshot.findMovies(topN);
+	}
+
+	@Benchmark
+	public List<GenreStats> sqlGenreStats() {
+		return movieStatsDao.getGenreStats();
+	}
+
+	@Benchmark
+	public List<GenreStats> snapshotGenreStats() {
+		return snapshot.getGenreStats();
+	}
+
+	@Benchmark
+	public List<YearCount> sqlReleasesPerYear() {
+		return movieStatsDao.getReleasesPerYear();
+	}
+
+	@Benchmark
+	public List<YearCount> snapshotReleasesPerYear() {
+		return snapshot.getReleasesPerYear();
+	}
+
+	@Benchmark
+	public List<MovieDuration> sqlLongestMovies() {
+		return movieStatsDao.getLongestMovies("Comedy", 10);
+	}
+
+	@Benchmark
+	public List<MovieDuration> snapshotLongestMovies() {
+		return snapshot.getLongestMovies("Comedy", 10);
+	}
+}
@@ -0,0 +1,81 @@
+package fr.isen.java2.db.daos;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.isen.java2.db.entities.Movie;
+
+/**
+ * Sustained insert throughput of 8 concurrent writers: each thread calling
+ * MovieDao.addMovie (one commit per movie, fighting for the write lock) versus
+ * queuing its insert in a GroupCommitWriter and waiting for it.
+ *
+ * Run with: mvn -Pbenchmarks test-compile exec:exec -Djmh.args="GroupCommit"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class GroupCommitBenchmark {
+
+	@Param({ "10000" })
+	public int catalogSize;
+
+	@Param({ "NORMAL", "FULL" })
+	public String synchronous;
+
+	@Param({ "0", "1000" })
+	public int lingerMicros;
+
+	private final MovieDao movieDao = new MovieDao();
+	private final AtomicInteger movieNumber = new AtomicInteger();
+
+	private GroupCommitWriter writer;
+
+	@State(Scope.Thread)
+	public static class ThreadRandom {
+		final Random random = new Random();
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		CatalogFixture.useFreshCopy(catalogSize);
+		System.setProperty("movies.sqlite.synchronous", synchronous);
+		writer = new GroupCommitWriter(GroupCommitWriter.DEFAULT_MAX_BATCH_SIZE, Duration.ofNanos(lingerMicros * 1000L));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		writer.close();
+	}
+
+	@Benchmark
+	public Movie addMovie(ThreadRandom thread) {
+		return movieDao.addMovie(CatalogFixture.newMovie(thread.random, movieNumber.incrementAndGet()));
+	}
+
+	@Benchmark
+	public Movie groupCommitAddMovie(ThreadRandom thread) {
+		return writer.addMovie(CatalogFixture.newMovie(thread.random, movieNumber.incrementAndGet())).join();
+	}
+}
@@ -0,0 +1,111 @@
+package fr.isen.java2.db.daos;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.isen.java2.db.entities.Genre;
+import fr.isen.java2.db.entities.Movie;
+
+/**
+ * Benchmarks of the MovieDao and GenreDao operations over a synthetic catalog.
+ *
+ * Run with: mvn -Pbenchmarks test-compile exec:exec
+ * The catalog size is chosen with -Djmh.args="-p catalogSize=1000000 -prof gc".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MovieDaoBenchmark {
+
+	@Param({ "10000" })
+	public int catalogSize;
+
+	@Param({ "1000" })
+	public int bulkSize;
+
+	private final MovieDao movieDao = new MovieDao();
+	private final GenreDao genreDao = new GenreDao();
+
+	private Random random;
+	private int movieNumber;
+	private List<Movie> bulk;
+	private List<Integer> lookupIds;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		CatalogFixture.useFreshCopy(catalogSize);
+		random = new Random(7);
+	}
+
+	@Setup(Level.Iteration)
+	public void prepareBulk() {
+		bulk = new ArrayList<>(bulkSize);
+		for (int i = 0; i < bulkSize; i++) {
+			bulk.add(CatalogFixture.newMovie(random, movieNumber++));
+		}
+		lookupIds = new ArrayList<>(bulkSize);
+		for (int i = 0; i < bulkSize; i++) {
+			lookupIds.add(1 + random.nextInt(catalogSize));
+		}
+	}
+
+	@Benchmark
+	public List<Movie> listMovies() {
+		return movieDao.listMovies();
+	}
+
+	@Benchmark
+	public List<Movie> listMoviesByGenre() {
+		return movieDao.listMoviesByGenre(CatalogFixture.GENRES[random.nextInt(CatalogFixture.GENRES.length)]);
+	}
+
+	@Benchmark
+	public Optional<Movie> getMovie() {
+		return movieDao.getMovie(1 + random.nextInt(catalogSize));
+	}
+
+	/**
+	 * Lookup of bulkSize random ids in one call; compare with listMovies.
+	 */
+	@Benchmark
+	public MovieLookup getMovies() {
+		return movieDao.getMovies(lookupIds);
+	}
+
+	@Benchmark
+	public Optional<Genre> getGenre() {
+		return genreDao.getGenre(CatalogFixture.GENRES[random.nextInt(CatalogFixture.GENRES.length)]);
+	}
+
+	@Benchmark
+	public Movie addMovie() {
+		return movieDao.addMovie(CatalogFixture.newMovie(random, movieNumber++));
+	}
+
+	/**
+	 * Bulk load of bulkSize movies in one call; compare with bulkSize x addMovie.
+	 */
+	@Benchmark
+	public List<Movie> addMovies() {
+		return movieDao.addMovies(bulk);
+	}
+}
@@ -0,0 +1,108 @@
+package fr.isen.java2.db.daos;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import fr.isen.java2.db.entities.Genre;
+import fr.isen.java2.db.entities.Movie;
+
+/**
+ * Per-row cost of mapping a movie JOIN genre row: label lookups (the former
+ * createMovieFromResultSet) against the index-based {@link MovieRowMapper}.
+ *
+ * Both benchmarks walk the same cursor; the scores are per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMappingBenchmark {
+
+	private static final String QUERY =
+		"SELECT movie.idmovie, movie.title, movie.release_date, movie.duration, movie.director, movie.summary, "
+		+ "genre.idgenre AS genre_id, genre.name AS genre_name "
+		+ "FROM movie JOIN genre ON movie.genre_id = genre.idgenre LIMIT ?";
+
+	private static final int ROWS = 10_000;
+
+	@Param({ "10000" })
+	public int catalogSize;
+
+	private Connection connection;
+	private PreparedStatement statement;
+
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		CatalogFixture.useFreshCopy(Math.max(catalogSize, ROWS));
+		connection = DataSourceFactory.getDataSource().getConnection();
+		statement = connection.prepareStatement(QUERY);
+		statement.setInt(1, ROWS);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws SQLException {
+		statement.close();
+		connection.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void mapByLabel(Blackhole blackhole) throws SQLException {
+		try (ResultSet resultSet = statement.executeQuery()) {
+			while (resultSet.next()) {
+				blackhole.consume(mapByLabel(resultSet));
+			}
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void mapByIndex(Blackhole blackhole) throws SQLException {
+		try (ResultSet resultSet = statement.executeQuery()) {
+			RowMapper<Movie> rowMapper = MovieRowMapper.FACTORY.create(resultSet);
+			while (resultSet.next()) {
+				blackhole.consume(rowMapper.mapRow(resultSet));
+			}
+		}
+	}
+
+	/**
+	 * The label-based mapping MovieDao used before the row mappers.
+	 */
+	private static Movie mapByLabel(ResultSet resultSet) throws SQLException {
+		Genre genre = new Genre(
+			resultSet.getInt("genre_id"),
+			resultSet.getString("genre_name")
+		);
+		return new Movie(
+			resultSet.getInt("idmovie"),
+			resultSet.getString("title"),
+			resultSet.getDate("release_date").toLocalDate(),
+			genre,
+			resultSet.getInt("duration"),
+			resultSet.getString("director"),
+			resultSet.getString("summary")
+		);
+	}
+}
@@ -0,0 +1,211 @@
+package fr.isen.java2.db.daos;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import fr.isen.java2.db.entities.Genre;
+import fr.isen.java2.db.entities.Movie;
+import fr.isen.java2.db.entities.MovieHeader;
+
+/**
+ * Asynchronous facade over {@link MovieDao} and {@link GenreDao}.
+ *
+ * Every operation runs on its own virtual thread and returns a CompletableFuture,
+ * so several lookups can be started at once and awaited together (see {@link #all(List)}).
+ *
+ * Virtual threads do not help while a statement runs: sqlite-jdbc calls into native
+ * code from synchronized methods, and waits for a busy database inside that native
+ * code, so a virtual thread running a statement pins its carrier thread. At most
+ * maxConcurrentOperations operations (by default the maxSize of the read pool) run
+ * at once; the others wait for a permit on a Semaphore, which parks their virtual
+ * thread without pinning a carrier. Operations that then wait for a connection fail
+ * after the pool's acquireTimeout.
+ *
+ * Cancelling a returned future, or letting it expire with orTimeout(), interrupts
+ * the virtual thread running the operation. An operation still waiting for a
+ * connection stops immediately; a statement already running in the driver completes
+ * but its result is discarded.
+ */
+public class AsyncCatalogDao implements AutoCloseable {
+
+	private final MovieDao movieDao;
+	private final GenreDao genreDao;
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+	private final Semaphore permits;
+
+	public AsyncCatalogDao() {
+		this(new MovieDao(), new GenreDao());
+	}
+
+	public AsyncCatalogDao(MovieDao movieDao, GenreDao genreDao) {
+		this(movieDao, genreDao, PoolConfig.fromSystemProperties().maxSize());
+	}
+
+	/**
+	 * @param maxConcurrentOperations the maximum number of operations running on the database at once
+	 */
+	public AsyncCatalogDao(MovieDao movieDao, GenreDao genreDao, int maxConcurrentOperations) {
+		if (maxConcurrentOperations < 1) {
+			throw new IllegalArgumentException(
+					"Maximum concurrent operations must be positive: " + maxConcurrentOperations);
+		}
+		this.movieDao = movieDao;
+		this.genreDao = genreDao;
+		this.permits = new Semaphore(maxConcurrentOperations);
+	}
+
+	/** @see MovieDao#listMovies() */
+	public CompletableFuture<List<Movie>> listMovies() {
+		return supplyAsync(movieDao::listMovies);
+	}
+
+	/** @see MovieDao#listMoviesByGenre(String) */
+	public CompletableFuture<List<Movie>> listMoviesByGenre(String genreName) {
+		return supplyAsync(() -> movieDao.listMoviesByGenre(genreName));
+	}
+
+	/** @see MovieDao#getMovies(Collection) */
+	public CompletableFuture<MovieLookup> getMovies(Collection<Integer> movieIds) {
+		return supplyAsync(() -> movieDao.getMovies(movieIds));
+	}
+
+	/** @see MovieDao#listMovieHeadersByGenre(String) */
+	public CompletableFuture<List<MovieHeader>> listMovieHeadersByGenre(String genreName) {
+		return supplyAsync(() -> movieDao.listMovieHeadersByGenre(genreName));
+	}
+
+	/** @see MovieDao#getSummaries(Collection) */
+	public CompletableFuture<Map<Integer, String>> getSummaries(Collection<Integer> movieIds) {
+		return supplyAsync(() -> movieDao.getSummaries(movieIds));
+	}
+
+	/** @see MovieDao#pageMovies(MoviePage.Order, String, MoviePage.Cursor, int) */
+	public CompletableFuture<MoviePage> pageMovies(MoviePage.Order order, String genreName,
+			MoviePage.Cursor after, int limit) {
+		return supplyAsync(() -> movieDao.pageMovies(order, genreName, after, limit));
+	}
+
+	/** @see MovieDao#findMovies(MovieQuery) */
+	public CompletableFuture<List<Movie>> findMovies(MovieQuery query) {
+		return supplyAsync(() -> movieDao.findMovies(query));
+	}
+
+	/** @see MovieDao#searchMovies(String, boolean, int) */
+	public CompletableFuture<List<Movie>> searchMovies(String text, boolean prefix, int limit) {
+		return supplyAsync(() -> movieDao.searchMovies(text, prefix, limit));
+	}
+
+	/** @see MovieDao#addMovie(Movie) */
+	public CompletableFuture<Movie> addMovie(Movie movie) {
+		return supplyAsync(() -> movieDao.addMovie(movie));
+	}
+
+	/** @see MovieDao#addMovies(Collection) */
+	public CompletableFuture<List<Movie>> addMovies(Collection<Movie> movies) {
+		return supplyAsync(() -> movieDao.addMovies(movies));
+	}
+
+	/** @see GenreDao#listGenres() */
+	public CompletableFuture<List<Genre>> listGenres() {
+		return supplyAsync(genreDao::listGenres);
+	}
+
+	/** @see GenreDao#getGenre(String) */
+	public CompletableFuture<Optional<Genre>> getGenre(String name) {
+		return supplyAsync(() -> genreDao.getGenre(name));
+	}
+
+	/** @see GenreDao#getGenreById(int) */
+	public CompletableFuture<Optional<Genre>> getGenreById(int id) {
+		return supplyAsync(() -> genreDao.getGenreById(id));
+	}
+
+	/** @see GenreDao#addGenre(String) */
+	public CompletableFuture<Void> addGenre(String name) {
+		return supplyAsync(() -> {
+			genreDao.addGenre(name);
+			return null;
+		});
+	}
+
+	/** @see GenreDao#addGenres(Collection) */
+	public CompletableFuture<List<Genre>> addGenres(Collection<String> names) {
+		return supplyAsync(() -> genreDao.addGenres(names));
+	}
+
+	/**
+	 * Waits for several lookups started in parallel.
+	 * If one of them fails, the others are cancelled and the returned future fails too.
+	 * 
+	 * @param futures the lookups, usually started one after the other without waiting
+	 * @return a future of their results, in the same order as futures
+	 */
+	public static <T> CompletableFuture<List<T>> all(List<? extends CompletableFuture<? extends T>> futures) {
+		CompletableFuture<List<T>> combined = CompletableFuture
+			.allOf(futures.toArray(new CompletableFuture<?>[0]))
+			.thenApply(ignored -> {
+				List<T> results = new ArrayList<>(futures.size());
+				for (CompletableFuture<? extends T> future : futures) {
+					results.add(future.join());
+				}
+				return results;
+			});
+		for (CompletableFuture<? extends T> future : futures) {
+			future.whenComplete((result, error) -> {
+				if (error != null) {
+					futures.forEach(other -> other.cancel(true));
+					combined.completeExceptionally(error);
+				}
+			});
+		}
+		return combined;
+	}
+
+	/**
+	 * Stops accepting new operations. Operations already started complete normally.
+	 */
+	@Override
+	public void close() {
+		executor.shutdown();
+	}
+
+	/**
+	 * Runs the operation on a new virtual thread once a permit is available,
+	 * interrupting it if the returned future is cancelled or times out before the
+	 * operation completes.
+	 */
+	private <T> CompletableFuture<T> supplyAsync(Supplier<T> operation) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		Future<?> task = executor.submit(() -> {
+			try {
+				permits.acquire();
+			} catch (InterruptedException e) {
+				result.completeExceptionally(e);
+				return;
+			}
+			try {
+				result.complete(operation.get());
+			} catch (Throwable e) {
+				result.completeExceptionally(e);
+			} finally {
+				permits.release();
+			}
+		});
+		result.whenComplete((value, error) -> {
+			if (result.isCancelled() || error instanceof TimeoutException) {
+				task.cancel(true);
+			}
+		});
+		return result;
+	}
+}
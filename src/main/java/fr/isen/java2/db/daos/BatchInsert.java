@@ -0,0 +1,103 @@
+package fr.isen.java2.db.daos;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Helper running a multi-row INSERT as JDBC batches inside a single transaction.
+ * Shared by the bulk insert methods of the DAOs.
+ */
+final class BatchInsert {
+
+	/**
+	 * Default number of rows sent to the database per executeBatch().
+	 */
+	static final int DEFAULT_BATCH_SIZE = 1000;
+
+	/**
+	 * Binds one item to the parameters of the INSERT statement.
+	 */
+	@FunctionalInterface
+	interface Binder<T> {
+		void bind(PreparedStatement statement, T item) throws SQLException;
+	}
+
+	private BatchInsert() {
+		throw new IllegalStateException("This is a static class that should not be instantiated");
+	}
+
+	/**
+	 * Inserts all items in one transaction, flushing a batch every batchSize rows.
+	 * Everything is rolled back if any row fails; if the rollback itself fails,
+	 * its error is added as suppressed to the original one.
+	 *
+	 * Drivers that return generated keys for batches (MySQL, PostgreSQL) are used as is.
+	 * SQLite does not, so the keys are derived from last_insert_rowid(): while the
+	 * transaction holds the write lock, the rows of a batch receive consecutive rowids.
+	 *
+	 * @return the generated ids, in the same order as items
+	 */
+	static <T> int[] execute(Connection connection, String sqlQuery, List<T> items, int batchSize,
+			Binder<T> binder) throws SQLException {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+		}
+		int[] generatedIds = new int[items.size()];
+		boolean autoCommit = connection.getAutoCommit();
+		connection.setAutoCommit(false);
+		try (PreparedStatement statement = connection.prepareStatement(sqlQuery, Statement.RETURN_GENERATED_KEYS)) {
+			int batchStart = 0;
+			while (batchStart < items.size()) {
+				int batchEnd = Math.min(batchStart + batchSize, items.size());
+				for (int i = batchStart; i < batchEnd; i++) {
+					binder.bind(statement, items.get(i));
+					statement.addBatch();
+				}
+				statement.executeBatch();
+				readGeneratedIds(connection, statement, generatedIds, batchStart, batchEnd);
+				batchStart = batchEnd;
+			}
+			connection.commit();
+			return generatedIds;
+		} catch (SQLException | RuntimeException e) {
+			try {
+				connection.rollback();
+			} catch (SQLException rollbackError) {
+				// Keeps the original error, and tells Retries that the transaction may be left open
+				e.addSuppressed(rollbackError);
+			}
+			throw e;
+		} finally {
+			connection.setAutoCommit(autoCommit);
+		}
+	}
+
+	private static void readGeneratedIds(Connection connection, PreparedStatement statement, int[] generatedIds,
+			int batchStart, int batchEnd) throws SQLException {
+		int index = batchStart;
+		try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+			while (generatedKeys != null && index < batchEnd && generatedKeys.next()) {
+				generatedIds[index++] = generatedKeys.getInt(1);
+			}
+		}
+		if (index == batchEnd) {
+			return;
+		}
+		if (index != batchStart) {
+			throw new SQLException("Driver returned " + (index - batchStart) + " generated keys for a batch of "
+					+ (batchEnd - batchStart) + " rows");
+		}
+		try (PreparedStatement lastIdStatement = connection.prepareStatement("SELECT last_insert_rowid()");
+			 ResultSet resultSet = lastIdStatement.executeQuery()) {
+			resultSet.next();
+			int lastId = resultSet.getInt(1);
+			for (int i = batchEnd - 1; i >= batchStart; i--) {
+				generatedIds[i] = lastId--;
+			}
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package fr.isen.java2.db.daos;
+
+import java.time.Duration;
+
+/**
+ * Counters of a result cache since it was created.
+ *
+ * @param hits          the lookups answered from the cache
+ * @param misses        the lookups that loaded the result or waited for a concurrent load of it
+ * @param loads         the queries run to fill the cache (single-flight: at most one per key at a time)
+ * @param loadFailures  the loads that threw
+ * @param evictions     the results dropped to respect the weight bound
+ * @param totalLoadTime the time spent in loads
+ */
+public record CacheStats(long hits, long misses, long loads, long loadFailures, long evictions,
+		Duration totalLoadTime) {
+
+	/**
+	 * @return the share of lookups answered from the cache, between 0 and 1
+	 */
+	public double hitRatio() {
+		long lookups = hits + misses;
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	/**
+	 * @return the average time of a load, or zero if there was none
+	 */
+	public Duration averageLoadTime() {
+		return loads == 0 ? Duration.ZERO : totalLoadTime.dividedBy(loads);
+	}
+}
@@ -0,0 +1,68 @@
+package fr.isen.java2.db.daos;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+import fr.isen.java2.db.entities.Genre;
+
+/**
+ * GenreDao caching the result of {@link #listGenres()}, to be used in its place.
+ *
+ * The list is served for at most ttl after it was loaded, and dropped as soon
+ * as a genre is added through any DAO or the GroupCommitWriter of this JVM
+ * (see {@link CatalogChanges}). The list returned is unmodifiable and shared
+ * with the other callers.
+ */
+public class CachingGenreDao extends GenreDao implements AutoCloseable {
+
+	public static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+
+	private static final String ALL_GENRES = "*";
+
+	private final ResultCache<String, List<Genre>> genres;
+
+	private final CatalogChangeListener listener = new CatalogChangeListener() {
+		@Override
+		public void genresAdded(Collection<String> names) {
+			genres.invalidate(ALL_GENRES);
+		}
+	};
+
+	public CachingGenreDao() {
+		this(DEFAULT_TTL);
+	}
+
+	/**
+	 * @param ttl how long the list is served after it was loaded
+	 */
+	public CachingGenreDao(Duration ttl) {
+		this.genres = new ResultCache<>(Integer.MAX_VALUE, ttl, List::size);
+		CatalogChanges.addListener(listener);
+	}
+
+	/**
+	 * Same as {@link GenreDao#listGenres()}, from the cache when possible.
+	 * Concurrent misses run a single query.
+	 */
+	@Override
+	public List<Genre> listGenres() {
+		return genres.get(ALL_GENRES, key -> List.copyOf(super.listGenres()));
+	}
+
+	/**
+	 * @return the hit ratio and loads of the cache
+	 */
+	public CacheStats getCacheStats() {
+		return genres.getStats();
+	}
+
+	/**
+	 * Stops listening to the writes; the DAO must not be used afterwards.
+	 */
+	@Override
+	public void close() {
+		CatalogChanges.removeListener(listener);
+		genres.invalidateAll();
+	}
+}
@@ -0,0 +1,108 @@
+package fr.isen.java2.db.daos;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+import fr.isen.java2.db.entities.Genre;
+import fr.isen.java2.db.entities.Movie;
+
+/**
+ * MovieDao caching the results of {@link #listMoviesByGenre(String)}, to be used
+ * in its place where the same genres are listed many times between writes.
+ *
+ * The cache holds at most maxCachedMovies movies in total, serves a result for
+ * at most ttl after it was loaded and evicts the least recently used genres
+ * first. A genre is invalidated as soon as a movie of it is added through any
+ * DAO or the GroupCommitWriter of this JVM (see {@link CatalogChanges}); writes
+ * made by other processes are only seen once the ttl expires.
+ *
+ * The lists returned are unmodifiable and shared with the other callers, as are
+ * their movies: they must not be modified.
+ */
+public class CachingMovieDao extends MovieDao implements AutoCloseable {
+
+	public static final long DEFAULT_MAX_CACHED_MOVIES = 100_000;
+
+	public static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+
+	private final ResultCache<String, List<Movie>> moviesByGenre;
+
+	private final GenreDao genreDao = new GenreDao();
+
+	private final CatalogChangeListener listener = new CatalogChangeListener() {
+		@Override
+		public void moviesAdded(Collection<Genre> genres) {
+			for (Genre genre : genres) {
+				String name = nameOf(genre);
+				if (name == null) {
+					// The genre cannot be told: any list may be affected
+					moviesByGenre.invalidateAll();
+					return;
+				}
+				moviesByGenre.invalidate(name);
+			}
+		}
+	};
+
+	public CachingMovieDao() {
+		this(DEFAULT_MAX_CACHED_MOVIES, DEFAULT_TTL);
+	}
+
+	/**
+	 * @param maxCachedMovies the maximum number of movies held by the cache, all genres included
+	 * @param ttl             how long a list is served after it was loaded
+	 */
+	public CachingMovieDao(long maxCachedMovies, Duration ttl) {
+		this.moviesByGenre = new ResultCache<>(maxCachedMovies, ttl, List::size);
+		CatalogChanges.addListener(listener);
+	}
+
+	/**
+	 * Same as {@link MovieDao#listMoviesByGenre(String)}, from the cache when possible.
+	 * Concurrent misses of the same genre run a single query.
+	 */
+	@Override
+	public List<Movie> listMoviesByGenre(String genreName) {
+		return moviesByGenre.get(genreName, name -> List.copyOf(super.listMoviesByGenre(name)));
+	}
+
+	/**
+	 * @return the name of the genre of an added movie, or null if it cannot be told
+	 */
+	private String nameOf(Genre genre) {
+		if (genre == null || genre.getId() == null) {
+			return genre == null ? null : genre.getName();
+		}
+		try {
+			// The movie was stored with the id: the name given with it may not be the
+			// stored one. From the genre cache, or else the database
+			return genreDao.getGenreById(genre.getId()).map(Genre::getName).orElse(null);
+		} catch (RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return the hit ratio, loads and evictions of the cache
+	 */
+	public CacheStats getCacheStats() {
+		return moviesByGenre.getStats();
+	}
+
+	/**
+	 * Drops every cached result.
+	 */
+	public void invalidateCache() {
+		moviesByGenre.invalidateAll();
+	}
+
+	/**
+	 * Stops listening to the writes; the DAO must not be used afterwards.
+	 */
+	@Override
+	public void close() {
+		CatalogChanges.removeListener(listener);
+		moviesByGenre.invalidateAll();
+	}
+}
@@ -0,0 +1,33 @@
+package fr.isen.java2.db.daos;
+
+import java.util.Collection;
+
+import fr.isen.java2.db.entities.Genre;
+
+/**
+ * Notified of the writes of the DAOs, to keep copies of their results up to date.
+ * Register it with {@link CatalogChanges#addListener(CatalogChangeListener)}.
+ *
+ * Listeners are called on the writing thread once the write is over, also when
+ * it failed (its outcome may be unknown), so a notification means "may have
+ * changed". They must be quick and must not throw.
+ */
+public interface CatalogChangeListener {
+
+	/**
+	 * Movies were added to these genres.
+	 *
+	 * @param genres the genres of the added movies, as given by the caller
+	 *               (possibly without name, or null)
+	 */
+	default void moviesAdded(Collection<Genre> genres) {
+	}
+
+	/**
+	 * Genres were added.
+	 *
+	 * @param names the names of the added genres
+	 */
+	default void genresAdded(Collection<String> names) {
+	}
+}
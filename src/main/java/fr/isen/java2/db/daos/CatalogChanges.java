@@ -0,0 +1,40 @@
+package fr.isen.java2.db.daos;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import fr.isen.java2.db.entities.Genre;
+
+/**
+ * Registry of the {@link CatalogChangeListener}s, notified by MovieDao, GenreDao
+ * and GroupCommitWriter after their inserts.
+ */
+public final class CatalogChanges {
+
+	private static final List<CatalogChangeListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+	private CatalogChanges() {
+		throw new IllegalStateException("This is a static class that should not be instantiated");
+	}
+
+	public static void addListener(CatalogChangeListener listener) {
+		LISTENERS.add(listener);
+	}
+
+	public static void removeListener(CatalogChangeListener listener) {
+		LISTENERS.remove(listener);
+	}
+
+	static void moviesAdded(Collection<Genre> genres) {
+		for (CatalogChangeListener listener : LISTENERS) {
+			listener.moviesAdded(genres);
+		}
+	}
+
+	static void genresAdded(Collection<String> names) {
+		for (CatalogChangeListener listener : LISTENERS) {
+			listener.genresAdded(names);
+		}
+	}
+}
@@ -0,0 +1,498 @@
+package fr.isen.java2.db.daos;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import fr.isen.java2.db.daos.MovieStatsDao.GenreStats;
+import fr.isen.java2.db.daos.MovieStatsDao.MovieDuration;
+import fr.isen.java2.db.daos.MovieStatsDao.YearCount;
+import fr.isen.java2.db.entities.CompactMovie;
+import fr.isen.java2.db.entities.Genre;
+
+/**
+ * Immutable in-memory copy of the catalog, stored by column, answering the
+ * queries of {@link MovieDao#findMovies(MovieQuery)} and {@link MovieStatsDao}
+ * without the database.
+ *
+ * Each movie is a row index into primitive arrays (ids, genre ids, durations,
+ * release dates as epoch days) plus its title and a code into the dictionary
+ * of directors; summaries are not loaded. Queries scan the columns in parallel
+ * on the common fork-join pool: filters and aggregates split the rows between
+ * the cores, and top-N queries keep a bounded heap per split that are merged.
+ *
+ * A snapshot never changes: {@link InMemoryCatalog} replaces it as a whole
+ * to pick up new movies.
+ */
+public final class CatalogSnapshot {
+
+	private static final int NO_CODE = -1;
+
+	private final int size;
+	private final int[] ids;
+	private final String[] titles;
+	private final int[] epochDays;
+	private final int[] genreIds;
+	private final int[] durations;
+	private final int[] directorCodes;
+
+	private final String[] directors;
+	private final Map<String, Integer> directorCodeByName;
+	// Genres ordered by name, and the position in that order of each genre id
+	private final Genre[] genres;
+	private final int[] genreSlotById;
+	private final Map<String, Integer> genreIdByName;
+	private final int minYear;
+	private final int maxYear;
+	private final boolean sortedById;
+
+	private CatalogSnapshot(Builder builder) {
+		this.size = builder.size;
+		this.ids = Arrays.copyOf(builder.ids, size);
+		this.titles = Arrays.copyOf(builder.titles, size);
+		this.epochDays = Arrays.copyOf(builder.epochDays, size);
+		this.genreIds = Arrays.copyOf(builder.genreIds, size);
+		this.durations = Arrays.copyOf(builder.durations, size);
+		this.directorCodes = Arrays.copyOf(builder.directorCodes, size);
+		this.directors = builder.directors.toArray(String[]::new);
+		this.directorCodeByName = Map.copyOf(builder.directorCodeByName);
+
+		this.genres = builder.genres.values().stream()
+				.sorted(Comparator.comparing(Genre::getName))
+				.toArray(Genre[]::new);
+		int maxGenreId = builder.genres.keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
+		this.genreSlotById = new int[maxGenreId + 1];
+		Map<String, Integer> idByName = new HashMap<>();
+		for (int slot = 0; slot < genres.length; slot++) {
+			genreSlotById[genres[slot].getId()] = slot;
+			idByName.put(genres[slot].getName(), genres[slot].getId());
+		}
+		this.genreIdByName = Map.copyOf(idByName);
+
+		this.sortedById = builder.sortedById;
+		this.minYear = builder.minEpochDay > builder.maxEpochDay ? 0 : yearOf(builder.minEpochDay);
+		this.maxYear = builder.minEpochDay > builder.maxEpochDay ? -1 : yearOf(builder.maxEpochDay);
+	}
+
+	/**
+	 * Reads the catalog once through the DAOs: the genres, then all the movies from
+	 * one cursor, appended to the columns as they are read.
+	 */
+	public static CatalogSnapshot load(MovieDao movieDao, GenreDao genreDao) {
+		Builder builder = new Builder();
+		for (Genre genre : genreDao.listGenres()) {
+			builder.genres.put(genre.getId(), genre);
+		}
+		try (Stream<CompactMovie> movies = movieDao.streamCompactMovies(false)) {
+			movies.forEach(builder::add);
+		}
+		return new CatalogSnapshot(builder);
+	}
+
+	/**
+	 * @return the number of movies
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Finds the movies matching a query, like {@link MovieDao#findMovies(MovieQuery)}.
+	 * Titles are ordered by UTF-16 code units, which only differs from the database
+	 * for characters outside the Basic Multilingual Plane.
+	 *
+	 * @return the matching movies, without summary, in the order of the query
+	 */
+	public List<CompactMovie> findMovies(MovieQuery query) {
+		RowFilter filter = filterOf(query);
+		if (filter == null) {
+			return List.of();
+		}
+		RowOrder order = orderOf(query.sort());
+		int[] rows;
+		if (query.limit() != null) {
+			rows = IntStream.range(0, size).parallel()
+					.filter(filter::matches)
+					.collect(() -> new TopRows(query.limit(), order), TopRows::add, TopRows::addAll)
+					.sorted();
+		} else {
+			rows = IntStream.range(0, size).parallel().filter(filter::matches).toArray();
+			// The filter keeps the row order: rows read by increasing id need no sort
+			if (query.sort() != MovieQuery.Sort.ID || !sortedById) {
+				rows = sort(rows, order);
+			}
+		}
+		List<CompactMovie> movies = new ArrayList<>(rows.length);
+		for (int row : rows) {
+			movies.add(movieAt(row));
+		}
+		return movies;
+	}
+
+	/**
+	 * Counts the movies matching a query, ignoring its sort and limit.
+	 */
+	public long countMovies(MovieQuery query) {
+		RowFilter filter = filterOf(query);
+		return filter == null ? 0 : IntStream.range(0, size).parallel().filter(filter::matches).count();
+	}
+
+	/**
+	 * Same result as {@link MovieStatsDao#getGenreStats()}.
+	 */
+	public List<GenreStats> getGenreStats() {
+		GenreTotals totals = IntStream.range(0, size).parallel()
+				.collect(() -> new GenreTotals(genres.length), this::addToGenreTotals, GenreTotals::addAll);
+
+		List<GenreStats> stats = new ArrayList<>(genres.length);
+		for (int slot = 0; slot < genres.length; slot++) {
+			long withDuration = totals.durationCounts[slot];
+			stats.add(new GenreStats(genres[slot].getId(), genres[slot].getName(), totals.counts[slot],
+					withDuration == 0 ? null : (double) totals.durationSums[slot] / withDuration,
+					withDuration == 0 ? null : totals.minDurations[slot],
+					withDuration == 0 ? null : totals.maxDurations[slot]));
+		}
+		return stats;
+	}
+
+	/**
+	 * Same result as {@link MovieStatsDao#getReleasesPerYear()}.
+	 */
+	public List<YearCount> getReleasesPerYear() {
+		int years = maxYear - minYear + 1;
+		long[] counts = IntStream.range(0, size).parallel()
+				.filter(row -> epochDays[row] != CompactMovie.NO_RELEASE_DATE)
+				.collect(() -> new long[years], (sums, row) -> sums[yearOf(epochDays[row]) - minYear]++,
+						CatalogSnapshot::addAll);
+
+		List<YearCount> releases = new ArrayList<>();
+		for (int i = 0; i < years; i++) {
+			if (counts[i] > 0) {
+				releases.add(new YearCount(minYear + i, counts[i]));
+			}
+		}
+		return releases;
+	}
+
+	/**
+	 * Same result as {@link MovieStatsDao#getLongestMovies(int)}.
+	 */
+	public List<MovieDuration> getLongestMovies(int limit) {
+		return longestMovies(row -> durations[row] != CompactMovie.NO_DURATION, limit);
+	}
+
+	/**
+	 * Same result as {@link MovieStatsDao#getLongestMovies(String, int)}.
+	 */
+	public List<MovieDuration> getLongestMovies(String genreName, int limit) {
+		Integer genreId = genreIdByName.get(genreName);
+		if (genreId == null) {
+			return List.of();
+		}
+		return longestMovies(row -> genreIds[row] == genreId && durations[row] != CompactMovie.NO_DURATION, limit);
+	}
+
+	private List<MovieDuration> longestMovies(RowFilter filter, int limit) {
+		if (limit < 1) {
+			throw new IllegalArgumentException("Limit must be positive: " + limit);
+		}
+		RowOrder longestFirst = (a, b) -> {
+			int byDuration = Integer.compare(durations[b], durations[a]);
+			return byDuration != 0 ? byDuration : Integer.compare(ids[a], ids[b]);
+		};
+		int[] rows = IntStream.range(0, size).parallel()
+				.filter(filter::matches)
+				.collect(() -> new TopRows(limit, longestFirst), TopRows::add, TopRows::addAll)
+				.sorted();
+
+		List<MovieDuration> movies = new ArrayList<>(rows.length);
+		for (int row : rows) {
+			movies.add(new MovieDuration(ids[row], titles[row], durations[row]));
+		}
+		return movies;
+	}
+
+	private CompactMovie movieAt(int row) {
+		return new CompactMovie(ids[row], titles[row], epochDays[row], genres[genreSlotById[genreIds[row]]],
+				durations[row], directors[directorCodes[row]]);
+	}
+
+	/**
+	 * @return the filter of the query's criteria, or null if no movie can match
+	 */
+	private RowFilter filterOf(MovieQuery query) {
+		List<RowFilter> filters = new ArrayList<>();
+		// As in SQL, a bound excludes the movies whose value is NULL
+		if (query.releasedFrom() != null || query.releasedTo() != null) {
+			int from = query.releasedFrom() == null ? Integer.MIN_VALUE + 1 : (int) query.releasedFrom().toEpochDay();
+			int to = query.releasedTo() == null ? Integer.MAX_VALUE : (int) query.releasedTo().toEpochDay();
+			filters.add(row -> epochDays[row] >= from && epochDays[row] <= to);
+		}
+		if (query.minDuration() != null || query.maxDuration() != null) {
+			int min = query.minDuration() == null ? 0 : query.minDuration();
+			int max = query.maxDuration() == null ? Integer.MAX_VALUE : query.maxDuration();
+			filters.add(row -> durations[row] >= min && durations[row] <= max);
+		}
+		if (query.director() != null) {
+			int code = directorCodeByName.getOrDefault(query.director(), NO_CODE);
+			if (code == NO_CODE) {
+				return null;
+			}
+			filters.add(row -> directorCodes[row] == code);
+		}
+		if (!query.genres().isEmpty()) {
+			boolean[] selected = new boolean[genreSlotById.length];
+			boolean any = false;
+			for (String name : query.genres()) {
+				Integer genreId = genreIdByName.get(name);
+				if (genreId != null) {
+					selected[genreId] = true;
+					any = true;
+				}
+			}
+			if (!any) {
+				return null;
+			}
+			filters.add(row -> selected[genreIds[row]]);
+		}
+		RowFilter[] all = filters.toArray(RowFilter[]::new);
+		return switch (all.length) {
+			case 0 -> row -> true;
+			case 1 -> all[0];
+			default -> row -> {
+				for (RowFilter filter : all) {
+					if (!filter.matches(row)) {
+						return false;
+					}
+				}
+				return true;
+			};
+		};
+	}
+
+	private RowOrder orderOf(MovieQuery.Sort sort) {
+		RowOrder byId = (a, b) -> Integer.compare(ids[a], ids[b]);
+		return switch (sort) {
+			case ID -> byId;
+			case TITLE -> (a, b) -> {
+				int byTitle = titles[a].compareTo(titles[b]);
+				return byTitle != 0 ? byTitle : byId.compare(a, b);
+			};
+			// Unknown values are the smallest ints, first in ascending order as NULLs in SQLite
+			case RELEASE_DATE -> (a, b) -> {
+				int byDate = Integer.compare(epochDays[a], epochDays[b]);
+				return byDate != 0 ? byDate : byId.compare(a, b);
+			};
+			case RELEASE_DATE_DESC -> (a, b) -> {
+				int byDate = Integer.compare(epochDays[b], epochDays[a]);
+				return byDate != 0 ? byDate : byId.compare(b, a);
+			};
+			case DURATION -> (a, b) -> {
+				int byDuration = Integer.compare(durations[a], durations[b]);
+				return byDuration != 0 ? byDuration : byId.compare(a, b);
+			};
+			case DURATION_DESC -> (a, b) -> {
+				int byDuration = Integer.compare(durations[b], durations[a]);
+				return byDuration != 0 ? byDuration : byId.compare(b, a);
+			};
+		};
+	}
+
+	private void addToGenreTotals(GenreTotals totals, int row) {
+		int slot = genreSlotById[genreIds[row]];
+		totals.counts[slot]++;
+		int duration = durations[row];
+		if (duration != CompactMovie.NO_DURATION) {
+			totals.durationCounts[slot]++;
+			totals.durationSums[slot] += duration;
+			totals.minDurations[slot] = Math.min(totals.minDurations[slot], duration);
+			totals.maxDurations[slot] = Math.max(totals.maxDurations[slot], duration);
+		}
+	}
+
+	private static int[] sort(int[] rows, RowOrder order) {
+		Integer[] boxed = new Integer[rows.length];
+		Arrays.setAll(boxed, i -> rows[i]);
+		Arrays.parallelSort(boxed, order::compare);
+		return Arrays.stream(boxed).mapToInt(Integer::intValue).toArray();
+	}
+
+	private static void addAll(long[] sums, long[] other) {
+		for (int i = 0; i < sums.length; i++) {
+			sums[i] += other[i];
+		}
+	}
+
+	private static int yearOf(int epochDay) {
+		return LocalDate.ofEpochDay(epochDay).getYear();
+	}
+
+	@FunctionalInterface
+	private interface RowFilter {
+		boolean matches(int row);
+	}
+
+	@FunctionalInterface
+	private interface RowOrder {
+		int compare(int a, int b);
+	}
+
+	/**
+	 * The first rows in an order, kept in a bounded max-heap whose root is the
+	 * last row kept: each split of a parallel scan fills its own, then they are merged.
+	 */
+	private static final class TopRows {
+		private final int limit;
+		private final RowOrder order;
+		private int[] heap;
+		private int count;
+
+		TopRows(int limit, RowOrder order) {
+			this.limit = limit;
+			this.order = order;
+			this.heap = new int[Math.min(limit, 64)];
+		}
+
+		void add(int row) {
+			if (count < limit) {
+				if (count == heap.length) {
+					heap = Arrays.copyOf(heap, Math.min(limit, count * 2));
+				}
+				heap[count] = row;
+				siftUp(count++);
+			} else if (order.compare(row, heap[0]) < 0) {
+				heap[0] = row;
+				siftDown(0);
+			}
+		}
+
+		void addAll(TopRows other) {
+			for (int i = 0; i < other.count; i++) {
+				add(other.heap[i]);
+			}
+		}
+
+		int[] sorted() {
+			return sort(Arrays.copyOf(heap, count), order);
+		}
+
+		private void siftUp(int index) {
+			int row = heap[index];
+			while (index > 0) {
+				int parent = (index - 1) / 2;
+				if (order.compare(heap[parent], row) >= 0) {
+					break;
+				}
+				heap[index] = heap[parent];
+				index = parent;
+			}
+			heap[index] = row;
+		}
+
+		private void siftDown(int index) {
+			int row = heap[index];
+			while (true) {
+				int child = 2 * index + 1;
+				if (child >= count) {
+					break;
+				}
+				if (child + 1 < count && order.compare(heap[child + 1], heap[child]) > 0) {
+					child++;
+				}
+				if (order.compare(row, heap[child]) >= 0) {
+					break;
+				}
+				heap[index] = heap[child];
+				index = child;
+			}
+			heap[index] = row;
+		}
+	}
+
+	/**
+	 * Per-genre accumulators of one split of a parallel scan, indexed by genre slot.
+	 */
+	private static final class GenreTotals {
+		final long[] counts;
+		final long[] durationCounts;
+		final long[] durationSums;
+		final int[] minDurations;
+		final int[] maxDurations;
+
+		GenreTotals(int genres) {
+			counts = new long[genres];
+			durationCounts = new long[genres];
+			durationSums = new long[genres];
+			minDurations = new int[genres];
+			maxDurations = new int[genres];
+			Arrays.fill(minDurations, Integer.MAX_VALUE);
+			Arrays.fill(maxDurations, Integer.MIN_VALUE);
+		}
+
+		void addAll(GenreTotals other) {
+			CatalogSnapshot.addAll(counts, other.counts);
+			CatalogSnapshot.addAll(durationCounts, other.durationCounts);
+			CatalogSnapshot.addAll(durationSums, other.durationSums);
+			for (int i = 0; i < counts.length; i++) {
+				minDurations[i] = Math.min(minDurations[i], other.minDurations[i]);
+				maxDurations[i] = Math.max(maxDurations[i], other.maxDurations[i]);
+			}
+		}
+	}
+
+	/**
+	 * Growable columns filled while the movies are read.
+	 */
+	private static final class Builder {
+		private int size;
+		private int[] ids = new int[1024];
+		private String[] titles = new String[1024];
+		private int[] epochDays = new int[1024];
+		private int[] genreIds = new int[1024];
+		private int[] durations = new int[1024];
+		private int[] directorCodes = new int[1024];
+		private final List<String> directors = new ArrayList<>();
+		private final Map<String, Integer> directorCodeByName = new HashMap<>();
+		private final Map<Integer, Genre> genres = new HashMap<>();
+		private int minEpochDay = Integer.MAX_VALUE;
+		private int maxEpochDay = Integer.MIN_VALUE;
+		private boolean sortedById = true;
+
+		void add(CompactMovie movie) {
+			if (size == ids.length) {
+				int capacity = size * 2;
+				ids = Arrays.copyOf(ids, capacity);
+				titles = Arrays.copyOf(titles, capacity);
+				epochDays = Arrays.copyOf(epochDays, capacity);
+				genreIds = Arrays.copyOf(genreIds, capacity);
+				durations = Arrays.copyOf(durations, capacity);
+				directorCodes = Arrays.copyOf(directorCodes, capacity);
+			}
+			if (size > 0 && movie.getId() < ids[size - 1]) {
+				sortedById = false;
+			}
+			ids[size] = movie.getId();
+			titles[size] = movie.getTitle();
+			epochDays[size] = movie.getReleaseEpochDay();
+			genreIds[size] = movie.getGenre().getId();
+			durations[size] = movie.getDuration();
+			directorCodes[size] = directorCodeByName.computeIfAbsent(movie.getDirector(), name -> {
+				directors.add(name);
+				return directors.size() - 1;
+			});
+			// A genre added after listGenres() still comes with its movies
+			genres.putIfAbsent(movie.getGenre().getId(), movie.getGenre());
+			if (movie.hasReleaseDate()) {
+				minEpochDay = Math.min(minEpochDay, movie.getReleaseEpochDay());
+				maxEpochDay = Math.max(maxEpochDay, movie.getReleaseEpochDay());
+			}
+			size++;
+		}
+	}
+}
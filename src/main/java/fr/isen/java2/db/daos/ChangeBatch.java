@@ -0,0 +1,33 @@
+package fr.isen.java2.db.daos;
+
+import java.util.List;
+
+import fr.isen.java2.db.entities.Genre;
+import fr.isen.java2.db.entities.Movie;
+
+/**
+ * One batch of the change feed of {@link MovieDao#pollChanges(long, int)}: the
+ * movies and genres changed after a watermark, in their current state.
+ *
+ * @param genres          the genres added or updated, in the order of their change
+ * @param movies          the movies added or updated, in the order of their change
+ * @param deletedGenreIds the ids of the genres deleted
+ * @param deletedMovieIds the ids of the movies deleted
+ * @param watermark       the watermark to pass to get the next batch
+ * @param hasMore         true if more changes were already there, false if the feed is caught up
+ */
+public record ChangeBatch(List<Genre> genres, List<Movie> movies, List<Integer> deletedGenreIds,
+		List<Integer> deletedMovieIds, long watermark, boolean hasMore) {
+
+	/**
+	 * Watermark of a consumer that has seen nothing yet: the first batches hold the whole catalog.
+	 */
+	public static final long FROM_START = 0;
+
+	/**
+	 * @return true if the batch holds no change
+	 */
+	public boolean isEmpty() {
+		return genres.isEmpty() && movies.isEmpty() && deletedGenreIds.isEmpty() && deletedMovieIds.isEmpty();
+	}
+}
@@ -0,0 +1,42 @@
+package fr.isen.java2.db.daos;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Column label to position lookup built once from a ResultSetMetaData.
+ * Labels are matched case-insensitively, like ResultSet.findColumn() does.
+ */
+final class ColumnIndex {
+
+	private final Map<String, Integer> positions;
+
+	private ColumnIndex(Map<String, Integer> positions) {
+		this.positions = positions;
+	}
+
+	static ColumnIndex of(ResultSetMetaData metaData) throws SQLException {
+		int columnCount = metaData.getColumnCount();
+		Map<String, Integer> positions = new HashMap<>(columnCount * 2);
+		for (int column = columnCount; column >= 1; column--) {
+			// Iterating backwards keeps the first column when labels are duplicated
+			positions.put(metaData.getColumnLabel(column).toLowerCase(Locale.ROOT), column);
+		}
+		return new ColumnIndex(positions);
+	}
+
+	/**
+	 * @return the 1-based position of the column with this label
+	 * @throws SQLException if the result has no such column
+	 */
+	int positionOf(String label) throws SQLException {
+		Integer position = positions.get(label.toLowerCase(Locale.ROOT));
+		if (position == null) {
+			throw new SQLException("Column not found in result: " + label);
+		}
+		return position;
+	}
+}
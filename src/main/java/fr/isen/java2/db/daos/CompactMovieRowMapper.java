@@ -0,0 +1,73 @@
+package fr.isen.java2.db.daos;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import fr.isen.java2.db.entities.CompactMovie;
+
+/**
+ * Maps the rows of a movie JOIN genre query (the summary is not read) to
+ * CompactMovie objects, reading columns by index.
+ *
+ * A mapper optionally deduplicates director names: it keeps the first String
+ * read for each name and returns it for the following rows. The map lives as
+ * long as the mapper, i.e. one query, so nothing is interned globally.
+ */
+final class CompactMovieRowMapper implements RowMapper<CompactMovie> {
+
+	private final GenreCache genreCache = GenreCache.getInstance();
+	private final Map<String, String> directors;
+
+	private final int idColumn;
+	private final int titleColumn;
+	private final int releaseDateColumn;
+	private final int durationColumn;
+	private final int directorColumn;
+	private final int genreIdColumn;
+	private final int genreNameColumn;
+
+	private CompactMovieRowMapper(ResultSetMetaData metaData, boolean deduplicateDirectors) throws SQLException {
+		this.directors = deduplicateDirectors ? new HashMap<>() : null;
+		ColumnIndex columns = ColumnIndex.of(metaData);
+		idColumn = columns.positionOf("idmovie");
+		titleColumn = columns.positionOf("title");
+		releaseDateColumn = columns.positionOf("release_date");
+		durationColumn = columns.positionOf("duration");
+		directorColumn = columns.positionOf("director");
+		genreIdColumn = columns.positionOf("genre_id");
+		genreNameColumn = columns.positionOf("genre_name");
+	}
+
+	/**
+	 * @param deduplicateDirectors true to share one String per director name
+	 */
+	static RowMapperFactory<CompactMovie> factory(boolean deduplicateDirectors) {
+		return metaData -> new CompactMovieRowMapper(metaData, deduplicateDirectors);
+	}
+
+	@Override
+	public CompactMovie mapRow(ResultSet resultSet) throws SQLException {
+		Date releaseDate = resultSet.getDate(releaseDateColumn);
+		int duration = resultSet.getInt(durationColumn);
+		if (resultSet.wasNull()) {
+			duration = CompactMovie.NO_DURATION;
+		}
+		String director = resultSet.getString(directorColumn);
+		if (directors != null && director != null) {
+			director = directors.computeIfAbsent(director, name -> name);
+		}
+
+		return new CompactMovie(
+			resultSet.getInt(idColumn),
+			resultSet.getString(titleColumn),
+			releaseDate == null ? CompactMovie.NO_RELEASE_DATE : (int) releaseDate.toLocalDate().toEpochDay(),
+			genreCache.canonical(resultSet.getInt(genreIdColumn), resultSet.getString(genreNameColumn)),
+			duration,
+			director
+		);
+	}
+}
@@ -0,0 +1,573 @@
+package fr.isen.java2.db.daos;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.sql.DataSource;
+
+/**
+ * A small bounded connection pool behind {@link DataSourceFactory}.
+ *
+ * Physical connections are opened through DriverManager (so the pool stays
+ * database-agnostic) and handed out wrapped in a proxy: calling close() on the
+ * proxy gives the connection back to the pool instead of closing it. The DAOs
+ * therefore keep their try-with-resources blocks unchanged.
+ *
+ * Idle connections are reused in LIFO order (the most recently used one is the
+ * most likely to still be valid), validated before reuse when they have been
+ * idle for a while, and closed by a background task once they have been idle
+ * longer than {@link PoolConfig#idleTimeout()} - never going below minSize.
+ *
+ * Each physical connection keeps its prepared statements in a {@link StatementCache},
+ * so the constant SQL of the DAOs is parsed once per connection and then reused.
+ *
+ * A ReentrantLock is used instead of synchronized so that virtual threads
+ * waiting for a connection do not pin their carrier thread.
+ */
+public class ConnectionPool implements DataSource, AutoCloseable {
+
+	// Connections used more recently than this are reused without isValid()
+	private static final long VALIDATION_IDLE_THRESHOLD_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	/**
+	 * Prepares each new physical connection before it is first handed out
+	 * (e.g. session settings such as SQLite pragmas).
+	 */
+	@FunctionalInterface
+	public interface ConnectionInitializer {
+		void initialize(Connection connection) throws SQLException;
+	}
+
+	private final String jdbcUrl;
+	private final PoolConfig config;
+	private final ConnectionInitializer initializer;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition available = lock.newCondition();
+	private final Deque<PooledEntry> idle = new ArrayDeque<>();
+	private int total;
+	private int waiters;
+	private boolean closed;
+
+	private final AtomicInteger active = new AtomicInteger();
+	private final LongAdder acquired = new LongAdder();
+	private final LongAdder created = new LongAdder();
+	private final LongAdder timeouts = new LongAdder();
+	private final LongAdder totalAcquireWaitNanos = new LongAdder();
+	private final AtomicLong maxAcquireWaitNanos = new AtomicLong();
+	private final StatementCache.Counters statementCacheCounters = new StatementCache.Counters();
+
+	private final ScheduledExecutorService housekeeper;
+
+	/**
+	 * Creates a pool and eagerly opens minSize connections.
+	 *
+	 * @param jdbcUrl the JDBC URL given to DriverManager
+	 * @param config  the pool sizing and timeouts
+	 */
+	public ConnectionPool(String jdbcUrl, PoolConfig config) {
+		this(jdbcUrl, config, connection -> { });
+	}
+
+	/**
+	 * Creates a pool and eagerly opens minSize connections.
+	 *
+	 * @param jdbcUrl     the JDBC URL given to DriverManager
+	 * @param config      the pool sizing and timeouts
+	 * @param initializer called once on each new physical connection
+	 */
+	public ConnectionPool(String jdbcUrl, PoolConfig config, ConnectionInitializer initializer) {
+		this.jdbcUrl = jdbcUrl;
+		this.config = config;
+		this.initializer = initializer;
+
+		this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "movies-pool-housekeeper");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long periodMillis = config.idleTimeout().isZero()
+				? 30_000
+				: Math.max(100, config.idleTimeout().toMillis() / 2);
+		housekeeper.scheduleAtFixedRate(this::housekeep, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+
+		fillToMinSize();
+	}
+
+	/**
+	 * Borrows a connection, waiting at most acquireTimeout when the pool is exhausted.
+	 * Closing the returned connection gives it back to the pool.
+	 */
+	@Override
+	public Connection getConnection() throws SQLException {
+		long start = System.nanoTime();
+		long deadline = start + config.acquireTimeout().toNanos();
+
+		while (true) {
+			PooledEntry entry = null;
+			boolean create = false;
+
+			lock.lock();
+			try {
+				while (entry == null && !create) {
+					if (closed) {
+						throw new SQLException("Connection pool is closed");
+					}
+					entry = idle.pollFirst();
+					if (entry == null) {
+						if (total < config.maxSize()) {
+							total++;
+							create = true;
+						} else {
+							awaitAvailable(deadline);
+						}
+					}
+				}
+			} finally {
+				lock.unlock();
+			}
+
+			if (create) {
+				entry = newEntry(openPhysical());
+			} else if (!isUsable(entry)) {
+				discard(entry);
+				continue;
+			}
+
+			recordAcquisition(System.nanoTime() - start);
+			active.incrementAndGet();
+			return entry.lend(this);
+		}
+	}
+
+	/**
+	 * Credentials are part of the pool configuration, so this variant is not supported.
+	 */
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		throw new SQLFeatureNotSupportedException("The connection pool does not support per-call credentials");
+	}
+
+	/**
+	 * @return the current pool occupancy and acquisition statistics
+	 */
+	public PoolStats getStats() {
+		int idleCount;
+		int waiterCount;
+		lock.lock();
+		try {
+			idleCount = idle.size();
+			waiterCount = waiters;
+		} finally {
+			lock.unlock();
+		}
+		return new PoolStats(
+			active.get(),
+			idleCount,
+			waiterCount,
+			acquired.sum(),
+			created.sum(),
+			timeouts.sum(),
+			Duration.ofNanos(totalAcquireWaitNanos.sum()),
+			Duration.ofNanos(maxAcquireWaitNanos.get())
+		);
+	}
+
+	/**
+	 * @return the hit and miss counters of the prepared statement caches
+	 */
+	public StatementCacheStats getStatementCacheStats() {
+		return statementCacheCounters.snapshot();
+	}
+
+	/**
+	 * @return the configuration this pool was created with
+	 */
+	public PoolConfig getConfig() {
+		return config;
+	}
+
+	/**
+	 * Closes all idle connections and stops the housekeeping task.
+	 * Borrowed connections are closed when they are given back.
+	 */
+	@Override
+	public void close() {
+		List<PooledEntry> toClose;
+		lock.lock();
+		try {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			toClose = new ArrayList<>(idle);
+			total -= idle.size();
+			idle.clear();
+			available.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		housekeeper.shutdownNow();
+		toClose.forEach(PooledEntry::closeQuietly);
+	}
+
+	/**
+	 * Must be called with the lock held.
+	 */
+	private void awaitAvailable(long deadline) throws SQLException {
+		long remaining = deadline - System.nanoTime();
+		if (remaining <= 0) {
+			timeouts.increment();
+			throw new SQLTimeoutException("Timed out after " + config.acquireTimeout().toMillis()
+					+ " ms waiting for a database connection (max pool size: " + config.maxSize() + ")");
+		}
+		waiters++;
+		try {
+			available.awaitNanos(remaining);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a database connection", e);
+		} finally {
+			waiters--;
+		}
+	}
+
+	private Connection openPhysical() throws SQLException {
+		Connection connection = null;
+		try {
+			connection = DriverManager.getConnection(jdbcUrl);
+			initializer.initialize(connection);
+			created.increment();
+			return connection;
+		} catch (SQLException | RuntimeException e) {
+			if (connection != null) {
+				try {
+					connection.close();
+				} catch (SQLException suppressed) {
+					e.addSuppressed(suppressed);
+				}
+			}
+			lock.lock();
+			try {
+				total--;
+				available.signal();
+			} finally {
+				lock.unlock();
+			}
+			throw e;
+		}
+	}
+
+	private PooledEntry newEntry(Connection physical) {
+		return new PooledEntry(physical, new StatementCache(config.statementCacheSize(), statementCacheCounters));
+	}
+
+	private boolean isUsable(PooledEntry entry) {
+		if (System.nanoTime() - entry.lastUsedNanos < VALIDATION_IDLE_THRESHOLD_NANOS) {
+			return true;
+		}
+		try {
+			int seconds = (int) Math.max(1, config.validationTimeout().toSeconds());
+			return entry.physical.isValid(seconds);
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private void recordAcquisition(long waitNanos) {
+		acquired.increment();
+		totalAcquireWaitNanos.add(waitNanos);
+		maxAcquireWaitNanos.accumulateAndGet(waitNanos, Math::max);
+	}
+
+	/**
+	 * Called by the proxy when the borrower closes its connection.
+	 */
+	void release(PooledEntry entry) {
+		active.decrementAndGet();
+		if (!reset(entry)) {
+			discard(entry);
+			return;
+		}
+		lock.lock();
+		try {
+			if (!closed) {
+				entry.lastUsedNanos = System.nanoTime();
+				idle.addFirst(entry);
+				available.signal();
+				return;
+			}
+			total--;
+		} finally {
+			lock.unlock();
+		}
+		entry.closeQuietly();
+	}
+
+	/**
+	 * Brings a returned connection back to a clean state: no pending transaction,
+	 * auto-commit on. Returns false when the connection is no longer usable.
+	 */
+	private boolean reset(PooledEntry entry) {
+		try {
+			Connection physical = entry.physical;
+			if (physical.isClosed()) {
+				return false;
+			}
+			entry.statementCache.releaseAll();
+			if (!physical.getAutoCommit()) {
+				physical.rollback();
+				physical.setAutoCommit(true);
+			}
+			physical.clearWarnings();
+			return true;
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private void discard(PooledEntry entry) {
+		entry.closeQuietly();
+		lock.lock();
+		try {
+			total--;
+			available.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void housekeep() {
+		evictIdle();
+		fillToMinSize();
+	}
+
+	private void evictIdle() {
+		if (config.idleTimeout().isZero()) {
+			return;
+		}
+		long threshold = System.nanoTime() - config.idleTimeout().toNanos();
+		List<PooledEntry> evicted = new ArrayList<>();
+		lock.lock();
+		try {
+			// The oldest idle connections are at the tail of the deque
+			Iterator<PooledEntry> oldestFirst = idle.descendingIterator();
+			while (oldestFirst.hasNext() && total > config.minSize()) {
+				PooledEntry entry = oldestFirst.next();
+				if (entry.lastUsedNanos - threshold > 0) {
+					break;
+				}
+				oldestFirst.remove();
+				total--;
+				evicted.add(entry);
+			}
+		} finally {
+			lock.unlock();
+		}
+		evicted.forEach(PooledEntry::closeQuietly);
+	}
+
+	private void fillToMinSize() {
+		while (true) {
+			lock.lock();
+			try {
+				if (closed || total >= config.minSize()) {
+					return;
+				}
+				total++;
+			} finally {
+				lock.unlock();
+			}
+			try {
+				PooledEntry entry = newEntry(openPhysical());
+				lock.lock();
+				try {
+					if (closed) {
+						total--;
+					} else {
+						idle.addLast(entry);
+						available.signal();
+						entry = null;
+					}
+				} finally {
+					lock.unlock();
+				}
+				if (entry != null) {
+					entry.closeQuietly();
+				}
+			} catch (SQLException e) {
+				// The database may not be reachable yet; the next run will retry
+				return;
+			}
+		}
+	}
+
+	// The following methods are not used in this project
+	// They are required by the DataSource interface
+
+	@Override
+	public PrintWriter getLogWriter() throws SQLException {
+		throw new UnsupportedOperationException("Not implemented");
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) throws SQLException {
+		throw new UnsupportedOperationException("Not implemented");
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) throws SQLException {
+		DriverManager.setLoginTimeout(seconds);
+	}
+
+	@Override
+	public int getLoginTimeout() throws SQLException {
+		return DriverManager.getLoginTimeout();
+	}
+
+	@Override
+	public java.util.logging.Logger getParentLogger() {
+		throw new UnsupportedOperationException("Not implemented");
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return iface.cast(this);
+		}
+		throw new SQLException("Not a wrapper for " + iface.getName());
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return iface.isInstance(this);
+	}
+
+	/**
+	 * A physical connection owned by the pool, with its prepared statement cache.
+	 */
+	static final class PooledEntry {
+		final Connection physical;
+		final StatementCache statementCache;
+		volatile long lastUsedNanos = System.nanoTime();
+
+		PooledEntry(Connection physical, StatementCache statementCache) {
+			this.physical = physical;
+			this.statementCache = statementCache;
+		}
+
+		/**
+		 * Wraps the physical connection in a fresh proxy for one borrower,
+		 * so that a stale handle cannot give the connection back twice.
+		 */
+		Connection lend(ConnectionPool pool) {
+			return (Connection) Proxy.newProxyInstance(
+				ConnectionPool.class.getClassLoader(),
+				new Class<?>[] { Connection.class },
+				new BorrowedConnection(pool, this)
+			);
+		}
+
+		void closeQuietly() {
+			statementCache.closeAll();
+			try {
+				physical.close();
+			} catch (SQLException e) {
+				// Nothing more we can do with a connection we are throwing away
+			}
+		}
+	}
+
+	/**
+	 * Proxy handler turning close() into a release to the pool,
+	 * and serving prepareStatement() from the statement cache.
+	 */
+	private static final class BorrowedConnection implements InvocationHandler {
+		private final ConnectionPool pool;
+		private final PooledEntry entry;
+		private boolean closed;
+
+		BorrowedConnection(ConnectionPool pool, PooledEntry entry) {
+			this.pool = pool;
+			this.entry = entry;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "close":
+					if (!closed) {
+						closed = true;
+						pool.release(entry);
+					}
+					return null;
+				case "isClosed":
+					return closed || entry.physical.isClosed();
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "PooledConnection[" + entry.physical + "]";
+				default:
+					if (closed) {
+						throw new SQLException("Connection is closed");
+					}
+					StatementCache.Key key = cacheKey(method, args);
+					if (key != null) {
+						return entry.statementCache.prepare(entry.physical, (Connection) proxy, key);
+					}
+					try {
+						return method.invoke(entry.physical, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+			}
+		}
+
+		/**
+		 * Returns the cache key of the prepareStatement() overloads the cache supports,
+		 * null for any other method.
+		 */
+		private static StatementCache.Key cacheKey(Method method, Object[] args) {
+			if (!method.getName().equals("prepareStatement")) {
+				return null;
+			}
+			Class<?>[] types = method.getParameterTypes();
+			String sql = (String) args[0];
+			if (types.length == 1) {
+				return new StatementCache.Key(sql, Statement.NO_GENERATED_KEYS, 0, 0);
+			}
+			if (types.length == 2 && types[1] == int.class) {
+				return new StatementCache.Key(sql, (Integer) args[1], 0, 0);
+			}
+			if (types.length == 3) {
+				return new StatementCache.Key(sql, Statement.NO_GENERATED_KEYS, (Integer) args[1], (Integer) args[2]);
+			}
+			return null;
+		}
+	}
+}
@@ -0,0 +1,17 @@
+package fr.isen.java2.db.daos;
+
+import java.time.Duration;
+
+/**
+ * Counters of the busy and locked database errors met by the DAOs, see {@link RetryPolicy}.
+ *
+ * A high lockWaitTime with few slow operations points to contention on the
+ * database lock rather than to slow queries.
+ *
+ * @param busyErrors   attempts that failed with SQLITE_BUSY or SQLITE_LOCKED
+ * @param retries      attempts started again after such a failure
+ * @param exhausted    operations that still failed after their last allowed attempt
+ * @param lockWaitTime time spent in attempts that ended busy, and in backoff waits
+ */
+public record ContentionStats(long busyErrors, long retries, long exhausted, Duration lockWaitTime) {
+}
@@ -0,0 +1,85 @@
+package fr.isen.java2.db.daos;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Built-in instrumentation of the DAO operations.
+ *
+ * For each operation (e.g. "MovieDao.listMovies", all overloads together) it
+ * records the latency histogram, the number of rows, the time spent getting a
+ * connection from the pool and the number of errors. For the streaming methods,
+ * the latency covers the whole life of the Stream, until it is closed.
+ *
+ * Recording is disabled by default; enable it with -Dmovies.metrics.enabled=true
+ * or {@link #setEnabled(boolean)}. When disabled, and unless the
+ * {@link DaoOperationEvent} JFR event is enabled in a running recording, a DAO
+ * call only pays for one volatile read and one JFR flag check.
+ */
+public final class DaoMetrics {
+
+	private static final ConcurrentMap<String, DaoOperation> OPERATIONS = new ConcurrentHashMap<>();
+
+	private static volatile boolean enabled = Boolean.getBoolean("movies.metrics.enabled");
+
+	private DaoMetrics() {
+		throw new IllegalStateException("This is a static class that should not be instantiated");
+	}
+
+	/**
+	 * @return true if the DAO operations are being recorded
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Starts or stops recording the DAO operations. Stopping keeps the figures
+	 * recorded so far.
+	 */
+	public static void setEnabled(boolean enabled) {
+		DaoMetrics.enabled = enabled;
+	}
+
+	/**
+	 * @return the statistics of every operation called at least once since the
+	 *         last reset, by operation name
+	 */
+	public static Map<String, OperationStats> snapshot() {
+		Map<String, OperationStats> snapshot = new TreeMap<>();
+		for (DaoOperation operation : OPERATIONS.values()) {
+			OperationStats stats = operation.snapshot();
+			if (stats.count() > 0) {
+				snapshot.put(stats.operation(), stats);
+			}
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Returns the busy and locked errors met by the DAOs and the time they spent
+	 * waiting on database locks. Unlike the operation statistics, they are always
+	 * counted, as they only cost anything when an operation fails.
+	 */
+	public static ContentionStats getContentionStats() {
+		return Retries.getStats();
+	}
+
+	/**
+	 * Clears the statistics of all operations and the contention counters,
+	 * e.g. between two load tests.
+	 */
+	public static void reset() {
+		OPERATIONS.values().forEach(DaoOperation::reset);
+		Retries.resetStats();
+	}
+
+	/**
+	 * @return the operation with this name, registered on first use
+	 */
+	static DaoOperation operation(String name) {
+		return OPERATIONS.computeIfAbsent(name, DaoOperation::new);
+	}
+}
@@ -0,0 +1,74 @@
+package fr.isen.java2.db.daos;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.EventType;
+
+/**
+ * Metrics of one DAO operation.
+ *
+ * DAOs keep their operations in static fields, so timing a call does not
+ * look anything up: {@link #start()} returns a shared no-op timer when
+ * neither the metrics nor the JFR event are enabled.
+ */
+final class DaoOperation {
+
+	private static final EventType EVENT_TYPE = EventType.getEventType(DaoOperationEvent.class);
+
+	private final String name;
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder rows = new LongAdder();
+	private final LongAdder totalAcquireNanos = new LongAdder();
+	private final AtomicLong maxAcquireNanos = new AtomicLong();
+
+	DaoOperation(String name) {
+		this.name = name;
+	}
+
+	String getName() {
+		return name;
+	}
+
+	/**
+	 * Starts timing one call. The timer must be closed when the call ends,
+	 * after its connection has been released.
+	 */
+	OperationTimer start() {
+		boolean recorded = DaoMetrics.isEnabled();
+		if (!recorded && !EVENT_TYPE.isEnabled()) {
+			return OperationTimer.DISABLED;
+		}
+		return new OperationTimer(this, recorded);
+	}
+
+	void record(long elapsedNanos, long acquireNanos, long rowCount, boolean succeeded) {
+		latency.record(elapsedNanos);
+		if (succeeded) {
+			rows.add(rowCount);
+		} else {
+			errors.increment();
+		}
+		totalAcquireNanos.add(acquireNanos);
+		if (acquireNanos > maxAcquireNanos.get()) {
+			maxAcquireNanos.accumulateAndGet(acquireNanos, Math::max);
+		}
+	}
+
+	OperationStats snapshot() {
+		return new OperationStats(name, latency.count(), errors.sum(), rows.sum(),
+				Duration.ofNanos(latency.percentile(0.5)), Duration.ofNanos(latency.percentile(0.99)),
+				Duration.ofNanos(latency.max()), Duration.ofNanos(totalAcquireNanos.sum()),
+				Duration.ofNanos(maxAcquireNanos.get()));
+	}
+
+	void reset() {
+		latency.reset();
+		errors.reset();
+		rows.reset();
+		totalAcquireNanos.reset();
+		maxAcquireNanos.set(0);
+	}
+}
@@ -0,0 +1,43 @@
+package fr.isen.java2.db.daos;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event emitted for each DAO operation, so that slow database
+ * calls can be lined up with GC pauses and allocations in the same recording.
+ *
+ * Like every JFR event it is disabled by default; enable it in a recording
+ * settings file or with:
+ * <pre>
+ * -XX:StartFlightRecording:fr.isen.java2.db.DaoOperation#enabled=true,fr.isen.java2.db.DaoOperation#threshold=1ms
+ * </pre>
+ */
+@Name(DaoOperationEvent.NAME)
+@Label("DAO Operation")
+@Category({ "Movies Collection", "Database" })
+@Description("A call to a DAO method, from its start to the release of its connection")
+@StackTrace(false)
+final class DaoOperationEvent extends Event {
+
+	static final String NAME = "fr.isen.java2.db.DaoOperation";
+
+	@Label("Operation")
+	String operation;
+
+	@Label("Rows")
+	@Description("Rows read or written by the operation")
+	long rows;
+
+	@Label("Connection Acquire Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long acquireTime;
+
+	@Label("Succeeded")
+	boolean succeeded;
+}
@@ -1,8 +1,7 @@
 package fr.isen.java2.db.daos;
 
-import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Objects;
 
 import javax.sql.DataSource;
 
@@ -21,7 +20,12 @@ public class DataSourceFactory {
 	// SQLite: "jdbc:sqlite:sqlite.db"
 	// MySQL: "jdbc:mysql://localhost:3306/database_name"
 	// PostgreSQL: "jdbc:postgresql://localhost:5432/database_name"
-	private static final String JDBC_URL = "jdbc:sqlite:sqlite.db";
+	// date_class=TEXT stores dates as 'yyyy-MM-dd HH:mm:ss.SSS' (like the test data)
+	// instead of epoch millis, so release_date sorts and compares consistently; the
+	// dates stored as millis before are converted by the V5 migration of SchemaBootstrap
+	// It can be overridden with -Dmovies.jdbc.url=... (e.g. to benchmark another database file)
+	private static final String JDBC_URL =
+			System.getProperty("movies.jdbc.url", "jdbc:sqlite:sqlite.db?date_class=TEXT");
 	
 	private DataSourceFactory() {
 		// This is a static class that should not be instantiated.
@@ -31,64 +35,143 @@ public class DataSourceFactory {
 	}
 
 	/**
-	 * Returns a DataSource that provides database connections.
+	 * Returns the DataSource that provides database connections.
 	 * 
-	 * BONUS STAGE 1: This implementation wraps DriverManager in a DataSource
-	 * to maintain compatibility with existing code while being driver-agnostic.
+	 * BONUS STAGE 1: Connections are still opened through DriverManager, so the
+	 * code stays driver-agnostic.
+	 * 
+	 * This is the {@link #getWriteDataSource() write DataSource}: its connections can
+	 * read and write. The DAOs themselves send their reads to {@link #getReadDataSource()}.
 	 * 
 	 * @return a DataSource for obtaining database connections
 	 */
 	public static DataSource getDataSource() {
-		return new DataSource() {
-			@Override
-			public Connection getConnection() throws SQLException {
-				// DriverManager automatically selects the right driver based on the URL
-				// No explicit dependency on SQLiteDataSource!
-				return DriverManager.getConnection(JDBC_URL);
-			}
+		return getWriteDataSource();
+	}
 
-			@Override
-			public Connection getConnection(String username, String password) throws SQLException {
-				return DriverManager.getConnection(JDBC_URL, username, password);
-			}
+	/**
+	 * Returns the DataSource used for writes.
+	 * 
+	 * It is a singleton {@link ConnectionPool}: physical connections are reused
+	 * between DAO calls instead of being opened and torn down every time.
+	 * Closing a connection obtained here gives it back to the pool.
+	 * Sizing is read from the movies.pool.* system properties (see {@link PoolConfig}).
+	 * 
+	 * With SQLite, which allows one writer at a time, the pool holds a single
+	 * connection: writers queue in the pool instead of failing on the database lock.
+	 * Every new connection gets the pragmas of {@link SqliteSettings}, and the schema
+	 * (tables, indexes, search index) is created or upgraded by {@link SchemaBootstrap}
+	 * when the pool is created.
+	 * 
+	 * @return a DataSource for connections that read and write
+	 */
+	public static DataSource getWriteDataSource() {
+		return WriterHolder.POOL;
+	}
 
-			// The following methods are not used in this project
-			// They are required by the DataSource interface
-			
-			@Override
-			public java.io.PrintWriter getLogWriter() throws SQLException {
-				throw new UnsupportedOperationException("Not implemented");
-			}
+	/**
+	 * Returns the DataSource used for reads.
+	 * 
+	 * With SQLite, it is a separate pool of read-only connections (PRAGMA query_only),
+	 * sized by the movies.pool.* system properties. In WAL mode readers do not block
+	 * the writer nor each other, so reads scale with the number of connections while
+	 * a bulk import is running, and always see the last committed data.
+	 * With other databases, it is the same pool as {@link #getWriteDataSource()}.
+	 * 
+	 * @return a DataSource for connections that only read
+	 */
+	public static DataSource getReadDataSource() {
+		return ReaderHolder.POOL;
+	}
 
-			@Override
-			public void setLogWriter(java.io.PrintWriter out) throws SQLException {
-				throw new UnsupportedOperationException("Not implemented");
-			}
+	/**
+	 * @return the current statistics of the write pool, used to size it
+	 */
+	public static PoolStats getPoolStats() {
+		return WriterHolder.POOL.getStats();
+	}
 
-			@Override
-			public void setLoginTimeout(int seconds) throws SQLException {
-				DriverManager.setLoginTimeout(seconds);
-			}
+	/**
+	 * @return the current statistics of the read pool, used to size it
+	 */
+	public static PoolStats getReadPoolStats() {
+		return ReaderHolder.POOL.getStats();
+	}
 
-			@Override
-			public int getLoginTimeout() throws SQLException {
-				return DriverManager.getLoginTimeout();
-			}
+	/**
+	 * @return the hit and miss counters of the pooled connections' statement caches,
+	 *         summed over the read and write pools
+	 */
+	public static StatementCacheStats getStatementCacheStats() {
+		StatementCacheStats writer = WriterHolder.POOL.getStatementCacheStats();
+		if (ReaderHolder.POOL == WriterHolder.POOL) {
+			return writer;
+		}
+		StatementCacheStats reader = ReaderHolder.POOL.getStatementCacheStats();
+		return new StatementCacheStats(writer.hits() + reader.hits(), writer.misses() + reader.misses(),
+				writer.evictions() + reader.evictions());
+	}
 
-			@Override
-			public java.util.logging.Logger getParentLogger() {
-				throw new UnsupportedOperationException("Not implemented");
-			}
+	/**
+	 * @return the policy used by the DAOs to retry operations failing on a busy database
+	 */
+	public static RetryPolicy getRetryPolicy() {
+		return Retries.getPolicy();
+	}
 
-			@Override
-			public <T> T unwrap(Class<T> iface) throws SQLException {
-				throw new UnsupportedOperationException("Not implemented");
+	/**
+	 * Replaces the retry policy of the DAOs, read from the movies.retry.* system
+	 * properties by default. Operations already running keep their policy.
+	 */
+	public static void setRetryPolicy(RetryPolicy retryPolicy) {
+		Retries.setPolicy(Objects.requireNonNull(retryPolicy));
+	}
+
+	private static boolean isSqlite() {
+		return JDBC_URL.startsWith("jdbc:sqlite:");
+	}
+
+	/**
+	 * Lazily creates the write pool the first time a connection is requested
+	 * (initialization-on-demand holder idiom, thread-safe without locking).
+	 */
+	private static final class WriterHolder {
+		private static final ConnectionPool POOL = createPool();
+
+		private static ConnectionPool createPool() {
+			PoolConfig config = PoolConfig.fromSystemProperties();
+			ConnectionPool pool = isSqlite()
+					? new ConnectionPool(JDBC_URL, config.withSize(1, 1), SqliteSettings.fromSystemProperties()::apply)
+					: new ConnectionPool(JDBC_URL, config);
+			Runtime.getRuntime().addShutdownHook(new Thread(pool::close, "movies-pool-shutdown"));
+
+			if (isSqlite()) {
+				try {
+					SchemaBootstrap.migrate(pool);
+				} catch (SQLException e) {
+					pool.close();
+					throw new IllegalStateException("Error while bootstrapping the database schema", e);
+				}
 			}
+			return pool;
+		}
+	}
+
+	/**
+	 * Lazily creates the read pool, once the write pool has brought the schema up to date.
+	 */
+	private static final class ReaderHolder {
+		private static final ConnectionPool POOL = createPool();
 
-			@Override
-			public boolean isWrapperFor(Class<?> iface) throws SQLException {
-				return false;
+		private static ConnectionPool createPool() {
+			ConnectionPool writer = WriterHolder.POOL;
+			if (!isSqlite()) {
+				return writer;
 			}
-		};
+			ConnectionPool pool = new ConnectionPool(JDBC_URL, PoolConfig.fromSystemProperties(),
+					SqliteSettings.fromSystemProperties()::applyReadOnly);
+			Runtime.getRuntime().addShutdownHook(new Thread(pool::close, "movies-read-pool-shutdown"));
+			return pool;
+		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,115 @@
+package fr.isen.java2.db.daos;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import fr.isen.java2.db.entities.Genre;
+
+/**
+ * In-memory identity map of genres, keyed by id and by name.
+ *
+ * There are only a handful of genres, so every DAO shares one canonical Genre
+ * instance per genre instead of allocating a new one per row, and
+ * {@link GenreDao#getGenre(String)} does not go to the database once a genre is known.
+ *
+ * Only genres read from the database are cached (not "unknown genre" misses), and
+ * {@link GenreDao} invalidates the entries it writes. Code that modifies the genre
+ * table without going through GenreDao must call {@link #invalidateAll()}.
+ *
+ * The cached instances are shared between all callers, so they are read-only:
+ * their setters throw UnsupportedOperationException. Copy a genre (new Genre(id, name))
+ * to modify it.
+ */
+public final class GenreCache {
+
+	private static final GenreCache INSTANCE = new GenreCache();
+
+	private final ConcurrentMap<Integer, Genre> byId = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, Genre> byName = new ConcurrentHashMap<>();
+
+	private GenreCache() {
+	}
+
+	/**
+	 * @return the cache shared by all DAOs
+	 */
+	public static GenreCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * @return the cached genre with this name, if any
+	 */
+	public Optional<Genre> getByName(String name) {
+		return Optional.ofNullable(byName.get(name));
+	}
+
+	/**
+	 * @return the cached genre with this id, if any
+	 */
+	public Optional<Genre> getById(int id) {
+		return Optional.ofNullable(byId.get(id));
+	}
+
+	/**
+	 * Returns the canonical instance for a genre read from the database,
+	 * registering it if it is not cached yet (or if the cached one is stale).
+	 * 
+	 * @param id   the genre id read from the row
+	 * @param name the genre name read from the row
+	 * @return the shared Genre instance with this id and name
+	 */
+	public Genre canonical(int id, String name) {
+		Genre cached = byId.get(id);
+		if (cached != null && Objects.equals(cached.getName(), name)) {
+			return cached;
+		}
+		Genre genre = new SharedGenre(id, name);
+		if (cached != null) {
+			byName.remove(cached.getName(), cached);
+		}
+		byId.put(id, genre);
+		byName.put(name, genre);
+		return genre;
+	}
+
+	/**
+	 * Forgets the genre with this name, e.g. after it has been written.
+	 */
+	public void invalidate(String name) {
+		Genre removed = byName.remove(name);
+		if (removed != null) {
+			byId.remove(removed.getId(), removed);
+		}
+	}
+
+	/**
+	 * Forgets every cached genre.
+	 */
+	public void invalidateAll() {
+		byId.clear();
+		byName.clear();
+	}
+
+	/**
+	 * A cached genre: one caller changing it would change it for every other one.
+	 */
+	private static final class SharedGenre extends Genre {
+
+		SharedGenre(int id, String name) {
+			super(id, name);
+		}
+
+		@Override
+		public void setId(Integer id) {
+			throw new UnsupportedOperationException("Genres shared by the GenreCache cannot be modified");
+		}
+
+		@Override
+		public void setName(String name) {
+			throw new UnsupportedOperationException("Genres shared by the GenreCache cannot be modified");
+		}
+	}
+}
@@ -4,8 +4,9 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,29 +16,52 @@ import fr.isen.java2.db.entities.Genre;
  * DAO (Data Access Object) for Genre entity.
  * Handles all database operations related to genres.
  * 
+ * Queries run on the read DataSource of {@link DataSourceFactory} and inserts on
+ * its write DataSource.
+ * 
  * BONUS STAGE 2: Uses Optional&lt;Genre&gt; instead of null to avoid NullPointerException.
+ * 
+ * Lookups go through the shared {@link GenreCache} before hitting the database.
  */
 public class GenreDao {
 
+	private static final String LIST_GENRES_QUERY = "SELECT * FROM genre";
+
+	private static final String GET_GENRE_BY_NAME_QUERY = "SELECT * FROM genre WHERE name = ?";
+
+	private static final String GET_GENRE_BY_ID_QUERY = "SELECT * FROM genre WHERE idgenre = ?";
+
+	static final String INSERT_GENRE_QUERY = "INSERT INTO genre(name) VALUES(?)";
+
+	private static final DaoOperation LIST_GENRES = DaoMetrics.operation("GenreDao.listGenres");
+	private static final DaoOperation GET_GENRE = DaoMetrics.operation("GenreDao.getGenre");
+	private static final DaoOperation GET_GENRE_BY_ID = DaoMetrics.operation("GenreDao.getGenreById");
+	private static final DaoOperation ADD_GENRE = DaoMetrics.operation("GenreDao.addGenre");
+	private static final DaoOperation ADD_GENRES = DaoMetrics.operation("GenreDao.addGenres");
+
+	private final GenreCache genreCache = GenreCache.getInstance();
+
 	/**
 	 * Retrieves all genres from the database.
 	 * 
 	 * @return a list of all genres, or an empty list if none exist
 	 */
 	public List<Genre> listGenres() {
-		List<Genre> genres = new ArrayList<>();
-		
-		try (Connection connection = DataSourceFactory.getDataSource().getConnection();
-			 Statement statement = connection.createStatement();
-			 ResultSet resultSet = statement.executeQuery("SELECT * FROM genre")) {
-			
-			while (resultSet.next()) {
-				Genre genre = new Genre(
-					resultSet.getInt("idgenre"),
-					resultSet.getString("name")
-				);
-				genres.add(genre);
-			}
+		try (OperationTimer timer = LIST_GENRES.start()) {
+			List<Genre> genres = Retries.read(() -> {
+				try (Connection connection = timer.connectReader();
+					 PreparedStatement statement = connection.prepareStatement(LIST_GENRES_QUERY);
+					 ResultSet resultSet = statement.executeQuery()) {
+
+					List<Genre> result = new ArrayList<>();
+					RowMapper<Genre> rowMapper = GenreRowMapper.FACTORY.create(resultSet);
+					while (resultSet.next()) {
+						result.add(rowMapper.mapRow(resultSet));
+					}
+					return result;
+				}
+			});
+			timer.succeeded(genres.size());
 			return genres;
 			
 		} catch (SQLException e) {
@@ -55,45 +79,120 @@ public class GenreDao {
 	 * @return Optional containing the Genre if found, Optional.empty() otherwise
 	 */
 	public Optional<Genre> getGenre(String name) {
-		String sqlQuery = "SELECT * FROM genre WHERE name = ?";
-		
-		try (Connection connection = DataSourceFactory.getDataSource().getConnection();
-			 PreparedStatement statement = connection.prepareStatement(sqlQuery)) {
-			
-			statement.setString(1, name);
-			
-			try (ResultSet resultSet = statement.executeQuery()) {
-				if (resultSet.next()) {
-					Genre genre = new Genre(
-						resultSet.getInt("idgenre"),
-						resultSet.getString("name")
-					);
-					return Optional.of(genre);
-				}
+		try (OperationTimer timer = GET_GENRE.start()) {
+			Optional<Genre> genre = genreCache.getByName(name);
+			if (genre.isEmpty()) {
+				genre = fetchGenre(timer, GET_GENRE_BY_NAME_QUERY, statement -> statement.setString(1, name));
 			}
-			return Optional.empty();
-			
+			timer.succeeded(genre.isPresent() ? 1 : 0);
+			return genre;
+
 		} catch (SQLException e) {
 			throw new RuntimeException("Error while fetching genre by name: " + name, e);
 		}
 	}
 
+	/**
+	 * Retrieves a specific genre by its id.
+	 * Like {@link #getGenre(String)}, the genre cache is checked before the database.
+	 * 
+	 * @param id the id of the genre to retrieve
+	 * @return Optional containing the Genre if found, Optional.empty() otherwise
+	 */
+	public Optional<Genre> getGenreById(int id) {
+		try (OperationTimer timer = GET_GENRE_BY_ID.start()) {
+			Optional<Genre> genre = genreCache.getById(id);
+			if (genre.isEmpty()) {
+				genre = fetchGenre(timer, GET_GENRE_BY_ID_QUERY, statement -> statement.setInt(1, id));
+			}
+			timer.succeeded(genre.isPresent() ? 1 : 0);
+			return genre;
+
+		} catch (SQLException e) {
+			throw new RuntimeException("Error while fetching genre by id: " + id, e);
+		}
+	}
+
+	/**
+	 * Helper method reading at most one genre from the database, on a connection
+	 * borrowed through the timer of the calling operation (retried if the database is busy).
+	 */
+	private Optional<Genre> fetchGenre(OperationTimer timer, String sqlQuery,
+			ResultSetStream.ParameterSetter parameters) throws SQLException {
+		return Retries.read(() -> {
+			try (Connection connection = timer.connectReader();
+				 PreparedStatement statement = connection.prepareStatement(sqlQuery)) {
+
+				parameters.setParameters(statement);
+
+				try (ResultSet resultSet = statement.executeQuery()) {
+					if (resultSet.next()) {
+						return Optional.of(GenreRowMapper.FACTORY.create(resultSet).mapRow(resultSet));
+					}
+				}
+				return Optional.<Genre>empty();
+			}
+		});
+	}
+
 	/**
 	 * Adds a new genre to the database.
 	 * 
 	 * @param name the name of the genre to add
 	 */
 	public void addGenre(String name) {
-		String sqlQuery = "INSERT INTO genre(name) VALUES(?)";
-		
-		try (Connection connection = DataSourceFactory.getDataSource().getConnection();
-			 PreparedStatement statement = connection.prepareStatement(sqlQuery)) {
-			
-			statement.setString(1, name);
-			statement.executeUpdate();
+		try (OperationTimer timer = ADD_GENRE.start()) {
+			int rows = Retries.write(() -> {
+				try (Connection connection = timer.connectWriter();
+					 PreparedStatement statement = connection.prepareStatement(INSERT_GENRE_QUERY)) {
+
+					statement.setString(1, name);
+					return statement.executeUpdate();
+				}
+			});
+			timer.succeeded(rows);
 			
 		} catch (SQLException e) {
 			throw new RuntimeException("Error while adding genre: " + name, e);
+		} finally {
+			genreCache.invalidate(name);
+			CatalogChanges.genresAdded(Collections.singletonList(name));
+		}
+	}
+
+	/**
+	 * Adds several genres at once, in a single transaction using JDBC batching.
+	 * If any genre cannot be inserted, none of them is.
+	 * 
+	 * @param names the names of the genres to add
+	 * @return the added genres with their generated ids, in the same order as names
+	 */
+	public List<Genre> addGenres(Collection<String> names) {
+		if (names.isEmpty()) {
+			return new ArrayList<>();
+		}
+		List<String> toInsert = new ArrayList<>(names);
+
+		try (OperationTimer timer = ADD_GENRES.start()) {
+			int[] generatedIds = Retries.write(() -> {
+				try (Connection connection = timer.connectWriter()) {
+					return BatchInsert.execute(connection, INSERT_GENRE_QUERY, toInsert,
+							BatchInsert.DEFAULT_BATCH_SIZE, (statement, name) -> statement.setString(1, name));
+				}
+			});
+
+			List<Genre> addedGenres = new ArrayList<>(toInsert.size());
+			for (int i = 0; i < toInsert.size(); i++) {
+				addedGenres.add(new Genre(generatedIds[i], toInsert.get(i)));
+			}
+			timer.succeeded(addedGenres.size());
+			return addedGenres;
+
+		} catch (SQLException e) {
+			throw new RuntimeException("Error while adding genres: " + toInsert, e);
+		} finally {
+			toInsert.forEach(genreCache::invalidate);
+			CatalogChanges.genresAdded(toInsert);
 		}
 	}
-}
\ No newline at end of file
+}
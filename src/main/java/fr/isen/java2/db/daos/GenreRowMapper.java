@@ -0,0 +1,35 @@
+package fr.isen.java2.db.daos;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+import fr.isen.java2.db.entities.Genre;
+
+/**
+ * Maps the rows of the genre table to the canonical Genre instances of the
+ * {@link GenreCache}, reading columns by index.
+ */
+final class GenreRowMapper implements RowMapper<Genre> {
+
+	/**
+	 * Binds a mapper to the columns of a SELECT on the genre table.
+	 */
+	static final RowMapperFactory<Genre> FACTORY = GenreRowMapper::new;
+
+	private final GenreCache genreCache = GenreCache.getInstance();
+
+	private final int idColumn;
+	private final int nameColumn;
+
+	private GenreRowMapper(ResultSetMetaData metaData) throws SQLException {
+		ColumnIndex columns = ColumnIndex.of(metaData);
+		idColumn = columns.positionOf("idgenre");
+		nameColumn = columns.positionOf("name");
+	}
+
+	@Override
+	public Genre mapRow(ResultSet resultSet) throws SQLException {
+		return genreCache.canonical(resultSet.getInt(idColumn), resultSet.getString(nameColumn));
+	}
+}
@@ -0,0 +1,18 @@
+package fr.isen.java2.db.daos;
+
+/**
+ * Counters of a {@link GroupCommitWriter}, used to tune its batch size and linger time.
+ *
+ * @param writes    inserts processed, failed ones included
+ * @param commits   transactions committed
+ * @param fallbacks groups rolled back and inserted again row by row after a failure
+ */
+public record GroupCommitStats(long writes, long commits, long fallbacks) {
+
+	/**
+	 * @return the mean number of inserts sharing one commit
+	 */
+	public double averageGroupSize() {
+		return commits == 0 ? 0 : (double) writes / commits;
+	}
+}
@@ -0,0 +1,381 @@
+package fr.isen.java2.db.daos;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import fr.isen.java2.db.entities.Genre;
+import fr.isen.java2.db.entities.Movie;
+
+/**
+ * Opt-in write path funnelling the inserts of many threads through a single
+ * writer thread.
+ *
+ * With SQLite, concurrent {@link MovieDao#addMovie(Movie)} calls fight over the
+ * database write lock and each pays for its own commit. Here, callers only queue
+ * their insert and get a future; the writer takes everything queued (up to
+ * maxBatchSize, waiting at most maxLinger for more) and inserts it in one
+ * transaction, so one commit is shared by the whole group.
+ *
+ * If an insert of the group fails, the transaction is rolled back and the
+ * group is inserted again row by row: only the faulty rows fail, the others
+ * still complete with their generated id. If the rollback itself fails, the whole
+ * group fails and its connection is discarded. A group failing because the database
+ * is busy is first retried as a whole, following the DAOs' {@link RetryPolicy}.
+ *
+ * Futures are completed on the writer thread, after the commit and once the
+ * connection is given back to the pool: use the async variants (thenApplyAsync...)
+ * for dependent work that is not trivial, so the writer is not held up.
+ * <pre>
+ * try (GroupCommitWriter writer = new GroupCommitWriter()) {
+ *     CompletableFuture&lt;Movie&gt; added = writer.addMovie(movie);
+ *     ...
+ *     int id = added.join().getId();
+ * }
+ * </pre>
+ */
+public class GroupCommitWriter implements AutoCloseable {
+
+	/**
+	 * Default maximum number of inserts per transaction.
+	 */
+	public static final int DEFAULT_MAX_BATCH_SIZE = 512;
+
+	/**
+	 * Default time the writer waits for more inserts before committing a group.
+	 * Groups already form from the inserts queued while the previous commit runs;
+	 * lingering only pays off when callers do not wait for their future.
+	 */
+	public static final Duration DEFAULT_MAX_LINGER = Duration.ZERO;
+
+	private static final DaoOperation COMMIT = DaoMetrics.operation("GroupCommitWriter.commit");
+
+	private final int maxBatchSize;
+	private final long maxLingerNanos;
+	private final BlockingQueue<PendingWrite<?>> queue = new LinkedBlockingQueue<>();
+	private final PendingWrite<Void> shutdown = new PendingWrite<>(null) {
+		@Override
+		Void insert(Connection connection) {
+			throw new IllegalStateException("The shutdown marker is not an insert");
+		}
+	};
+	private final ConnectionSource connections;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Thread writer;
+	private boolean closed;
+
+	private final LongAdder writes = new LongAdder();
+	private final LongAdder commits = new LongAdder();
+	private final LongAdder fallbacks = new LongAdder();
+
+	public GroupCommitWriter() {
+		this(DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_LINGER);
+	}
+
+	/**
+	 * @param maxBatchSize the maximum number of inserts committed together
+	 * @param maxLinger    how long the writer waits for more inserts once it has one;
+	 *                     0 commits what is already queued without waiting
+	 */
+	public GroupCommitWriter(int maxBatchSize, Duration maxLinger) {
+		this(maxBatchSize, maxLinger, OperationTimer::connectWriter);
+	}
+
+	GroupCommitWriter(int maxBatchSize, Duration maxLinger, ConnectionSource connections) {
+		if (maxBatchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be positive: " + maxBatchSize);
+		}
+		if (maxLinger.isNegative()) {
+			throw new IllegalArgumentException("Linger time must not be negative: " + maxLinger);
+		}
+		this.maxBatchSize = maxBatchSize;
+		this.maxLingerNanos = maxLinger.toNanos();
+		this.connections = connections;
+		this.writer = new Thread(this::run, "movies-group-commit-writer");
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	/**
+	 * Queues the insert of a movie.
+	 *
+	 * @param movie the movie to add (without id)
+	 * @return a future of a new Movie object with the generated id, completed once committed
+	 * @see MovieDao#addMovie(Movie)
+	 */
+	public CompletableFuture<Movie> addMovie(Movie movie) {
+		return submit(new PendingWrite<>("movie: " + movie.getTitle()) {
+			@Override
+			Movie insert(Connection connection) throws SQLException {
+				return MovieDao.withId(movie, executeInsert(connection, MovieDao.INSERT_MOVIE_QUERY,
+						statement -> MovieDao.bindMovie(statement, movie)));
+			}
+
+			@Override
+			void afterCompletion() {
+				CatalogChanges.moviesAdded(Collections.singletonList(movie.getGenre()));
+			}
+		});
+	}
+
+	/**
+	 * Queues the insert of a genre.
+	 *
+	 * @param name the name of the genre to add
+	 * @return a future of the added genre with its generated id, completed once committed
+	 * @see GenreDao#addGenre(String)
+	 */
+	public CompletableFuture<Genre> addGenre(String name) {
+		return submit(new PendingWrite<>("genre: " + name) {
+			@Override
+			Genre insert(Connection connection) throws SQLException {
+				return new Genre(executeInsert(connection, GenreDao.INSERT_GENRE_QUERY,
+						statement -> statement.setString(1, name)), name);
+			}
+
+			@Override
+			void afterCompletion() {
+				GenreCache.getInstance().invalidate(name);
+				CatalogChanges.genresAdded(Collections.singletonList(name));
+			}
+		});
+	}
+
+	/**
+	 * @return the counters of the writer since it was created
+	 */
+	public GroupCommitStats getStats() {
+		return new GroupCommitStats(writes.sum(), commits.sum(), fallbacks.sum());
+	}
+
+	/**
+	 * Stops accepting inserts, then waits for the queued ones to be committed.
+	 */
+	@Override
+	public void close() {
+		lock.lock();
+		try {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			queue.add(shutdown);
+		} finally {
+			lock.unlock();
+		}
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private <T> CompletableFuture<T> submit(PendingWrite<T> write) {
+		lock.lock();
+		try {
+			if (closed) {
+				write.future.completeExceptionally(new IllegalStateException("The group commit writer is closed"));
+			} else {
+				queue.add(write);
+			}
+		} finally {
+			lock.unlock();
+		}
+		return write.future;
+	}
+
+	/**
+	 * Loop of the writer thread: one transaction per group of queued inserts,
+	 * until the shutdown marker is reached.
+	 */
+	private void run() {
+		List<PendingWrite<?>> batch = new ArrayList<>(maxBatchSize);
+		boolean running = true;
+		while (running) {
+			try {
+				PendingWrite<?> write = queue.take();
+				long deadline = System.nanoTime() + maxLingerNanos;
+				while (write != null) {
+					if (write == shutdown) {
+						running = false;
+						break;
+					}
+					batch.add(write);
+					if (batch.size() == maxBatchSize) {
+						break;
+					}
+					long remaining = deadline - System.nanoTime();
+					write = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+				}
+			} catch (InterruptedException e) {
+				// Only close() stops the writer, so that no queued insert is left behind
+			}
+			if (!batch.isEmpty()) {
+				commit(batch);
+				batch.clear();
+			}
+		}
+	}
+
+	/**
+	 * Inserts a group in one transaction, or row by row if any of its inserts fails.
+	 * The futures are completed once the connection is given back, so that the
+	 * callers' continuations and the change listeners do not hold up the writer.
+	 */
+	private void commit(List<PendingWrite<?>> batch) {
+		writes.add(batch.size());
+		try (OperationTimer timer = COMMIT.start();
+			 Connection connection = connections.connect(timer)) {
+
+			connection.setAutoCommit(false);
+			try {
+				Retries.write(() -> insertGroup(connection, batch));
+				commits.increment();
+			} catch (SQLException | RuntimeException e) {
+				if (Retries.rollbackFailed(e)) {
+					// Part of the group may still be pending in the transaction: inserting
+					// it again row by row would duplicate it
+					discard(connection);
+					throw e;
+				}
+				connection.setAutoCommit(true);
+				fallbacks.increment();
+				insertOneByOne(connection, batch);
+			}
+			timer.succeeded(batch.size());
+
+		} catch (SQLException | RuntimeException e) {
+			for (PendingWrite<?> write : batch) {
+				write.fail(e);
+			}
+		}
+		batch.forEach(PendingWrite::complete);
+	}
+
+	/**
+	 * Closes the physical connection of a pooled connection whose transaction could
+	 * not be rolled back, so that the pool drops it instead of lending it again.
+	 * SQLite rolls back the pending transaction when the connection is closed.
+	 */
+	private static void discard(Connection connection) {
+		try {
+			connection.unwrap(Connection.class).close();
+		} catch (SQLException e) {
+			// The pool still drops the connection if it cannot be reset
+		}
+	}
+
+	/**
+	 * Inserts and commits a whole group, rolling it back if any insert fails.
+	 */
+	private static Void insertGroup(Connection connection, List<PendingWrite<?>> batch) throws SQLException {
+		try {
+			for (PendingWrite<?> write : batch) {
+				write.execute(connection);
+			}
+			connection.commit();
+			return null;
+		} catch (SQLException | RuntimeException e) {
+			try {
+				connection.rollback();
+			} catch (SQLException rollbackError) {
+				e.addSuppressed(rollbackError);
+			}
+			throw e;
+		}
+	}
+
+	private void insertOneByOne(Connection connection, List<PendingWrite<?>> batch) {
+		for (PendingWrite<?> write : batch) {
+			try {
+				Retries.write(() -> {
+					write.execute(connection);
+					return null;
+				});
+				commits.increment();
+			} catch (SQLException | RuntimeException e) {
+				write.fail(e);
+			}
+		}
+	}
+
+	/**
+	 * Binds the parameters of a single-row INSERT.
+	 */
+	@FunctionalInterface
+	private interface Binder {
+		void bind(PreparedStatement statement) throws SQLException;
+	}
+
+	private static int executeInsert(Connection connection, String sqlQuery, Binder binder) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement(sqlQuery, Statement.RETURN_GENERATED_KEYS)) {
+			binder.bind(statement);
+			statement.executeUpdate();
+			try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+				if (generatedKeys.next()) {
+					return generatedKeys.getInt(1);
+				}
+			}
+			throw new SQLException("Failed to retrieve generated id");
+		}
+	}
+
+	/**
+	 * Obtains the connection of a group; the writer pool by default.
+	 */
+	@FunctionalInterface
+	interface ConnectionSource {
+		Connection connect(OperationTimer timer) throws SQLException;
+	}
+
+	/**
+	 * One queued insert, with the future of its caller.
+	 * The result, or the failure, is kept until the connection is given back.
+	 */
+	private abstract static class PendingWrite<T> {
+		final CompletableFuture<T> future = new CompletableFuture<>();
+		private final String description;
+		private T result;
+		private Exception failure;
+
+		PendingWrite(String description) {
+			this.description = description;
+		}
+
+		abstract T insert(Connection connection) throws SQLException;
+
+		void afterCompletion() {
+		}
+
+		void execute(Connection connection) throws SQLException {
+			result = insert(connection);
+		}
+
+		void fail(Exception cause) {
+			if (failure == null) {
+				failure = cause;
+			}
+		}
+
+		void complete() {
+			afterCompletion();
+			if (failure != null) {
+				future.completeExceptionally(new RuntimeException("Error while adding " + description, failure));
+			} else {
+				future.complete(result);
+			}
+		}
+	}
+}
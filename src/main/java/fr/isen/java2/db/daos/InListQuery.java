@@ -0,0 +1,85 @@
+package fr.isen.java2.db.daos;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A query selecting rows by a list of ids: ... WHERE column IN (?, ?, ...).
+ *
+ * Ids are sent in chunks of at most {@value #MAX_CHUNK_SIZE}, and each chunk is
+ * padded to a power of two by repeating its last id: only 10 different SQL texts
+ * exist per query (1, 2, 4 ... 512 parameters), so their prepared statements stay
+ * in the statement caches instead of one statement per list length.
+ */
+final class InListQuery {
+
+	/**
+	 * Maximum number of ids per statement, well below the SQLite limit of bound parameters.
+	 */
+	static final int MAX_CHUNK_SIZE = 512;
+
+	// SQL texts by log2 of the number of parameters
+	private final String[] sqlQueries = new String[Integer.numberOfTrailingZeros(MAX_CHUNK_SIZE) + 1];
+
+	/**
+	 * @param beforeList the SQL up to "IN (" included
+	 * @param afterList  the SQL from the closing parenthesis of the list included
+	 */
+	InListQuery(String beforeList, String afterList) {
+		for (int i = 0; i < sqlQueries.length; i++) {
+			sqlQueries[i] = beforeList + String.join(", ", Collections.nCopies(1 << i, "?")) + afterList;
+		}
+	}
+
+	/**
+	 * Splits ids into chunks of at most {@value #MAX_CHUNK_SIZE} distinct ids, in their first-seen order.
+	 *
+	 * @throws NullPointerException if an id is null
+	 */
+	static List<List<Integer>> chunks(Collection<Integer> ids) {
+		Set<Integer> unique = new LinkedHashSet<>();
+		for (Integer id : ids) {
+			unique.add(Objects.requireNonNull(id, "Ids must not be null"));
+		}
+		List<Integer> distinct = new ArrayList<>(unique);
+		List<List<Integer>> chunks = new ArrayList<>((distinct.size() + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+		for (int start = 0; start < distinct.size(); start += MAX_CHUNK_SIZE) {
+			chunks.add(distinct.subList(start, Math.min(start + MAX_CHUNK_SIZE, distinct.size())));
+		}
+		return chunks;
+	}
+
+	/**
+	 * @return the SQL of the statement for this chunk
+	 */
+	String sql(List<Integer> chunk) {
+		return sqlQueries[Integer.numberOfTrailingZeros(slotsFor(chunk.size()))];
+	}
+
+	/**
+	 * Binds a chunk to the statement prepared from {@link #sql(List)}, from the first parameter.
+	 */
+	static void bind(PreparedStatement statement, List<Integer> chunk) throws SQLException {
+		int slots = slotsFor(chunk.size());
+		for (int i = 0; i < slots; i++) {
+			statement.setInt(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+		}
+	}
+
+	/**
+	 * @return the smallest power of two holding size ids
+	 */
+	static int slotsFor(int size) {
+		if (size < 1 || size > MAX_CHUNK_SIZE) {
+			throw new IllegalArgumentException("Chunk size must be between 1 and " + MAX_CHUNK_SIZE + ": " + size);
+		}
+		return Integer.highestOneBit(size * 2 - 1);
+	}
+}
@@ -0,0 +1,67 @@
+package fr.isen.java2.db.daos;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds the current {@link CatalogSnapshot} and replaces it on refresh.
+ *
+ * Readers take the current snapshot and query it without any lock: a refresh
+ * loads a complete new snapshot, then swaps it in atomically, so a query always
+ * sees one consistent catalog, never a partially loaded one. Movies added after
+ * a snapshot was loaded are only visible after the next refresh.
+ * <pre>
+ * InMemoryCatalog catalog = new InMemoryCatalog();
+ * List&lt;GenreStats&gt; stats = catalog.snapshot().getGenreStats();
+ * ...
+ * catalog.refresh();
+ * </pre>
+ */
+public class InMemoryCatalog {
+
+	private final MovieDao movieDao;
+	private final GenreDao genreDao;
+	private final AtomicReference<CatalogSnapshot> current;
+	// Concurrent refreshes would load the same data twice
+	private final ReentrantLock refreshLock = new ReentrantLock();
+
+	/**
+	 * Loads the first snapshot.
+	 */
+	public InMemoryCatalog() {
+		this(new MovieDao(), new GenreDao());
+	}
+
+	/**
+	 * Loads the first snapshot through the given DAOs.
+	 */
+	public InMemoryCatalog(MovieDao movieDao, GenreDao genreDao) {
+		this.movieDao = movieDao;
+		this.genreDao = genreDao;
+		this.current = new AtomicReference<>(CatalogSnapshot.load(movieDao, genreDao));
+	}
+
+	/**
+	 * @return the snapshot loaded by the last refresh
+	 */
+	public CatalogSnapshot snapshot() {
+		return current.get();
+	}
+
+	/**
+	 * Loads a new snapshot from the database and makes it the current one.
+	 * Queries running on the previous snapshot are not affected.
+	 *
+	 * @return the new snapshot
+	 */
+	public CatalogSnapshot refresh() {
+		refreshLock.lock();
+		try {
+			CatalogSnapshot snapshot = CatalogSnapshot.load(movieDao, genreDao);
+			current.set(snapshot);
+			return snapshot;
+		} finally {
+			refreshLock.unlock();
+		}
+	}
+}
@@ -1,23 +1,159 @@
 package fr.isen.java2.db.daos;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.sql.Connection;
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
 
+import fr.isen.java2.db.entities.CompactMovie;
 import fr.isen.java2.db.entities.Genre;
 import fr.isen.java2.db.entities.Movie;
+import fr.isen.java2.db.entities.MovieHeader;
 
 /**
  * DAO (Data Access Object) for Movie entity.
  * Handles all database operations related to movies.
+ * 
+ * Queries run on the read DataSource of {@link DataSourceFactory} and inserts on
+ * its write DataSource.
  */
 public class MovieDao {
 
+	/**
+	 * Default number of rows fetched per round trip by the streaming queries.
+	 */
+	public static final int DEFAULT_FETCH_SIZE = 500;
+
+	private static final String SELECT_MOVIES_WITH_GENRE =
+		"SELECT " +
+		"movie.idmovie, movie.title, movie.release_date, movie.duration, " +
+		"movie.director, movie.summary, " +
+		"genre.idgenre AS genre_id, genre.name AS genre_name " +
+		"FROM movie " +
+		"JOIN genre ON movie.genre_id = genre.idgenre";
+
+	// Same as SELECT_MOVIES_WITH_GENRE with the release day as a yyyy-MM-dd text, for
+	// the exports: epoch millis written before date_class=TEXT are read like the driver does
+	private static final String SELECT_MOVIE_ROWS_WITH_GENRE =
+		"SELECT " +
+		"movie.idmovie, movie.title, " +
+		"CASE typeof(movie.release_date) " +
+		"WHEN 'integer' THEN date(movie.release_date / 1000.0, 'unixepoch') " +
+		"ELSE date(movie.release_date) END AS release_date, " +
+		"movie.duration, movie.director, movie.summary, " +
+		"genre.idgenre AS genre_id, genre.name AS genre_name " +
+		"FROM movie " +
+		"JOIN genre ON movie.genre_id = genre.idgenre";
+
+	// Same as SELECT_MOVIES_WITH_GENRE without movie.summary, by far the largest column
+	private static final String SELECT_MOVIE_HEADERS_WITH_GENRE =
+		"SELECT " +
+		"movie.idmovie, movie.title, movie.release_date, movie.duration, movie.director, " +
+		"genre.idgenre AS genre_id, genre.name AS genre_name " +
+		"FROM movie " +
+		"JOIN genre ON movie.genre_id = genre.idgenre";
+
+	// Same as SELECT_MOVIES_WITH_GENRE with the day pageMovies orders by, as SQLite reads it
+	private static final String SELECT_PAGE_OF_MOVIES =
+		"SELECT " +
+		"movie.idmovie, movie.title, movie.release_date, movie.duration, " +
+		"movie.director, movie.summary, " +
+		"genre.idgenre AS genre_id, genre.name AS genre_name, " +
+		"date(movie.release_date) AS release_day " +
+		"FROM movie " +
+		"JOIN genre ON movie.genre_id = genre.idgenre";
+
+	private static final String LIST_MOVIES_QUERY = SELECT_MOVIES_WITH_GENRE;
+
+	private static final String LIST_MOVIES_BY_GENRE_QUERY = SELECT_MOVIES_WITH_GENRE + " WHERE genre.name = ?";
+
+	private static final String LIST_MOVIE_HEADERS_QUERY = SELECT_MOVIE_HEADERS_WITH_GENRE;
+
+	private static final String LIST_MOVIE_HEADERS_BY_GENRE_QUERY =
+		SELECT_MOVIE_HEADERS_WITH_GENRE + " WHERE genre.name = ?";
+
+	private static final String GET_MOVIE_QUERY = SELECT_MOVIES_WITH_GENRE + " WHERE movie.idmovie = ?";
+
+	private static final InListQuery GET_MOVIES_QUERY =
+		new InListQuery(SELECT_MOVIES_WITH_GENRE + " WHERE movie.idmovie IN (", ")");
+
+	private static final String GET_SUMMARY_QUERY = "SELECT summary FROM movie WHERE idmovie = ?";
+
+	private static final InListQuery GET_SUMMARIES_QUERY =
+		new InListQuery("SELECT idmovie, summary FROM movie WHERE idmovie IN (", ")");
+
+	// bm25() weights: a match in the title counts more than in the director, then the summary
+	private static final String SEARCH_MOVIES_QUERY =
+		SELECT_MOVIES_WITH_GENRE + " " +
+		"JOIN movie_fts ON movie_fts.rowid = movie.idmovie " +
+		"WHERE movie_fts MATCH ? " +
+		"ORDER BY bm25(movie_fts, 10.0, 5.0, 1.0) " +
+		"LIMIT ?";
+
+	// The latest change of each movie and genre after a seq, with the current row
+	// (NULL columns once deleted); a change of a genre selects that genre
+	private static final String POLL_CHANGES_QUERY =
+		"SELECT " +
+		"change_log.seq, change_log.entity, change_log.entity_id, " +
+		"movie.idmovie, movie.title, movie.release_date, movie.duration, " +
+		"movie.director, movie.summary, " +
+		"genre.idgenre AS genre_id, genre.name AS genre_name " +
+		"FROM change_log " +
+		"LEFT JOIN movie ON change_log.entity = 'movie' AND movie.idmovie = change_log.entity_id " +
+		"LEFT JOIN genre ON genre.idgenre = " +
+		"CASE change_log.entity WHEN 'genre' THEN change_log.entity_id ELSE movie.genre_id END " +
+		"WHERE change_log.seq > ? " +
+		"ORDER BY change_log.seq " +
+		"LIMIT ?";
+
+	static final String INSERT_MOVIE_QUERY =
+		"INSERT INTO movie(title, release_date, genre_id, duration, director, summary) " +
+		"VALUES(?, ?, ?, ?, ?, ?)";
+
+	// SQL of findMovies, generated once per combination of criteria
+	private static final ConcurrentMap<MovieQuery.Shape, String> FIND_MOVIES_QUERIES = new ConcurrentHashMap<>();
+
+	private static final DaoOperation LIST_MOVIES = DaoMetrics.operation("MovieDao.listMovies");
+	private static final DaoOperation LIST_MOVIES_BY_GENRE = DaoMetrics.operation("MovieDao.listMoviesByGenre");
+	private static final DaoOperation LIST_MOVIE_HEADERS = DaoMetrics.operation("MovieDao.listMovieHeaders");
+	private static final DaoOperation LIST_MOVIE_HEADERS_BY_GENRE =
+			DaoMetrics.operation("MovieDao.listMovieHeadersByGenre");
+	private static final DaoOperation LIST_COMPACT_MOVIES = DaoMetrics.operation("MovieDao.listCompactMovies");
+	private static final DaoOperation STREAM_COMPACT_MOVIES = DaoMetrics.operation("MovieDao.streamCompactMovies");
+	private static final DaoOperation GET_MOVIE = DaoMetrics.operation("MovieDao.getMovie");
+	private static final DaoOperation GET_MOVIES = DaoMetrics.operation("MovieDao.getMovies");
+	private static final DaoOperation GET_SUMMARY = DaoMetrics.operation("MovieDao.getSummary");
+	private static final DaoOperation GET_SUMMARIES = DaoMetrics.operation("MovieDao.getSummaries");
+	private static final DaoOperation STREAM_MOVIES = DaoMetrics.operation("MovieDao.streamMovies");
+	private static final DaoOperation STREAM_MOVIES_BY_GENRE = DaoMetrics.operation("MovieDao.streamMoviesByGenre");
+	private static final DaoOperation FOR_EACH_MOVIE_ROW = DaoMetrics.operation("MovieDao.forEachMovieRow");
+	private static final DaoOperation PAGE_MOVIES = DaoMetrics.operation("MovieDao.pageMovies");
+	private static final DaoOperation FIND_MOVIES = DaoMetrics.operation("MovieDao.findMovies");
+	private static final DaoOperation SEARCH_MOVIES = DaoMetrics.operation("MovieDao.searchMovies");
+	private static final DaoOperation POLL_CHANGES = DaoMetrics.operation("MovieDao.pollChanges");
+	private static final DaoOperation ADD_MOVIE = DaoMetrics.operation("MovieDao.addMovie");
+	private static final DaoOperation ADD_MOVIES = DaoMetrics.operation("MovieDao.addMovies");
+
 	/**
 	 * Retrieves all movies from the database with their associated genre information.
 	 * Uses a JOIN to combine movie and genre tables.
@@ -25,24 +161,9 @@ public class MovieDao {
 	 * @return a list of all movies with their genres, or an empty list if none exist
 	 */
 	public List<Movie> listMovies() {
-		List<Movie> movies = new ArrayList<>();
-
-		String sqlQuery =
-			"SELECT " +
-			"movie.idmovie, movie.title, movie.release_date, movie.duration, " +
-			"movie.director, movie.summary, " +
-			"genre.idgenre AS genre_id, genre.name AS genre_name " +
-			"FROM movie " +
-			"JOIN genre ON movie.genre_id = genre.idgenre";
-
-		try (Connection connection = DataSourceFactory.getDataSource().getConnection();
-			 Statement statement = connection.createStatement();
-			 ResultSet resultSet = statement.executeQuery(sqlQuery)) {
-
-			while (resultSet.next()) {
-				Movie movie = createMovieFromResultSet(resultSet);
-				movies.add(movie);
-			}
+		try (OperationTimer timer = LIST_MOVIES.start()) {
+			List<Movie> movies = queryMovies(timer, LIST_MOVIES_QUERY, statement -> { });
+			timer.succeeded(movies.size());
 			return movies;
 
 		} catch (SQLException e) {
@@ -58,35 +179,575 @@ public class MovieDao {
 	 * @return a list of movies matching the genre, or an empty list if none exist
 	 */
 	public List<Movie> listMoviesByGenre(String genreName) {
-		List<Movie> movies = new ArrayList<>();
+		try (OperationTimer timer = LIST_MOVIES_BY_GENRE.start()) {
+			List<Movie> movies = queryMovies(timer, LIST_MOVIES_BY_GENRE_QUERY,
+					statement -> statement.setString(1, genreName));
+			timer.succeeded(movies.size());
+			return movies;
 
-		String sqlQuery =
-			"SELECT " +
-			"movie.idmovie, movie.title, movie.release_date, movie.duration, " +
-			"movie.director, movie.summary, " +
-			"genre.idgenre AS genre_id, genre.name AS genre_name " +
-			"FROM movie " +
-			"JOIN genre ON movie.genre_id = genre.idgenre " +
-			"WHERE genre.name = ?";
+		} catch (SQLException e) {
+			throw new RuntimeException("Error while fetching movies by genre: " + genreName, e);
+		}
+	}
+
+	/**
+	 * Retrieves all movies without their summary.
+	 * Lists that do not display the summary should prefer this to {@link #listMovies()}:
+	 * the largest column is neither read nor held in memory. Summaries can then be
+	 * loaded on demand with {@link #getSummary(int)} or {@link #getSummaries(Collection)}.
+	 * 
+	 * @return the headers of all movies, or an empty list if none exist
+	 */
+	public List<MovieHeader> listMovieHeaders() {
+		try (OperationTimer timer = LIST_MOVIE_HEADERS.start()) {
+			List<MovieHeader> headers = queryRows(timer, LIST_MOVIE_HEADERS_QUERY, statement -> { },
+					MovieHeaderRowMapper.FACTORY);
+			timer.succeeded(headers.size());
+			return headers;
 
-		try (Connection connection = DataSourceFactory.getDataSource().getConnection();
-			 PreparedStatement statement = connection.prepareStatement(sqlQuery)) {
+		} catch (SQLException e) {
+			throw new RuntimeException("Error while fetching movie headers from database", e);
+		}
+	}
+
+	/**
+	 * Retrieves the movies of a specific genre without their summary.
+	 * 
+	 * @param genreName the name of the genre to filter by
+	 * @return the headers of the matching movies, or an empty list if none exist
+	 * @see #listMovieHeaders()
+	 */
+	public List<MovieHeader> listMovieHeadersByGenre(String genreName) {
+		try (OperationTimer timer = LIST_MOVIE_HEADERS_BY_GENRE.start()) {
+			List<MovieHeader> headers = queryRows(timer, LIST_MOVIE_HEADERS_BY_GENRE_QUERY,
+					statement -> statement.setString(1, genreName), MovieHeaderRowMapper.FACTORY);
+			timer.succeeded(headers.size());
+			return headers;
+
+		} catch (SQLException e) {
+			throw new RuntimeException("Error while fetching movie headers by genre: " + genreName, e);
+		}
+	}
+
+	/**
+	 * Retrieves all movies, without their summary, as immutable CompactMovie objects.
+	 * This is the representation to keep a large catalog in memory: a fraction of the
+	 * heap of a Movie per row (see CompactMovie).
+	 * 
+	 * @param deduplicateDirectors true to share one String per director name,
+	 *                             which saves memory when directors have several movies
+	 * @return all movies, or an empty list if none exist
+	 */
+	public List<CompactMovie> listCompactMovies(boolean deduplicateDirectors) {
+		try (OperationTimer timer = LIST_COMPACT_MOVIES.start()) {
+			List<CompactMovie> movies = queryRows(timer, LIST_MOVIE_HEADERS_QUERY, statement -> { },
+					CompactMovieRowMapper.factory(deduplicateDirectors));
+			timer.succeeded(movies.size());
+			return movies;
+
+		} catch (SQLException e) {
+			throw new RuntimeException("Error while fetching compact movies from database", e);
+		}
+	}
+
+	/**
+	 * Streams all movies, without their summary, as CompactMovie objects read lazily
+	 * from an open cursor. The Stream must be closed to release its connection.
+	 * 
+	 * @param deduplicateDirectors true to share one String per director name
+	 * @return a Stream of all movies; it must be closed to release its connection
+	 * @see #listCompactMovies(boolean)
+	 */
+	public Stream<CompactMovie> streamCompactMovies(boolean deduplicateDirectors) {
+		try {
+			return Retries.read(() -> ResultSetStream.open(STREAM_COMPACT_MOVIES, LIST_MOVIE_HEADERS_QUERY,
+					DEFAULT_FETCH_SIZE, statement -> { }, CompactMovieRowMapper.factory(deduplicateDirectors)));
+		} catch (SQLException e) {
+			throw new RuntimeException("Error while streaming compact movies from database", e);
+		}
+	}
+
+	/**
+	 * Retrieves one movie with its genre by its id.
+	 * 
+	 * @param movieId the id of the movie
+	 * @return the movie, or Optional.empty() if there is no movie with this id
+	 */
+	public Optional<Movie> getMovie(int movieId) {
+		try (OperationTimer timer = GET_MOVIE.start()) {
+			List<Movie> movies = queryMovies(timer, GET_MOVIE_QUERY, statement -> statement.setInt(1, movieId));
+			timer.succeeded(movies.size());
+			return movies.isEmpty() ? Optional.empty() : Optional.of(movies.get(0));
+
+		} catch (SQLException e) {
+			throw new RuntimeException("Error while fetching movie " + movieId, e);
+		}
+	}
 
-			statement.setString(1, genreName);
+	/**
+	 * Retrieves several movies with their genre by their ids, with one query per
+	 * {@value InListQuery#MAX_CHUNK_SIZE} ids instead of a scan of the catalog.
+	 * 
+	 * @param movieIds the ids of the movies; duplicates are looked up once
+	 * @return the movies found, in the order of movieIds, and the ids that were not found
+	 * @throws NullPointerException if movieIds contains null
+	 */
+	public MovieLookup getMovies(Collection<Integer> movieIds) {
+		List<List<Integer>> chunks = InListQuery.chunks(movieIds);
+		try (OperationTimer timer = GET_MOVIES.start()) {
+			Map<Integer, Movie> found = Retries.read(() -> {
+				Map<Integer, Movie> movies = new HashMap<>();
+				try (Connection connection = timer.connectReader()) {
+					for (List<Integer> chunk : chunks) {
+						try (PreparedStatement statement = connection.prepareStatement(GET_MOVIES_QUERY.sql(chunk))) {
+							InListQuery.bind(statement, chunk);
+							try (ResultSet resultSet = statement.executeQuery()) {
+								RowMapper<Movie> rowMapper = MovieRowMapper.FACTORY.create(resultSet);
+								while (resultSet.next()) {
+									Movie movie = rowMapper.mapRow(resultSet);
+									movies.put(movie.getId(), movie);
+								}
+							}
+						}
+					}
+				}
+				return movies;
+			});
 
-			try (ResultSet resultSet = statement.executeQuery()) {
-				while (resultSet.next()) {
-					Movie movie = createMovieFromResultSet(resultSet);
+			List<Movie> movies = new ArrayList<>(found.size());
+			List<Integer> missingIds = new ArrayList<>();
+			for (Integer movieId : new LinkedHashSet<>(movieIds)) {
+				Movie movie = found.get(movieId);
+				if (movie != null) {
 					movies.add(movie);
+				} else {
+					missingIds.add(movieId);
+				}
+			}
+			timer.succeeded(movies.size());
+			return new MovieLookup(movies, missingIds);
+
+		} catch (SQLException e) {
+			throw new RuntimeException("Error while fetching " + movieIds.size() + " movies", e);
+		}
+	}
+
+	/**
+	 * Loads the summary of one movie.
+	 * 
+	 * @param movieId the id of the movie
+	 * @return the summary, or Optional.empty() if the movie does not exist or has no summary
+	 */
+	public Optional<String> getSummary(int movieId) {
+		try (OperationTimer timer = GET_SUMMARY.start()) {
+			List<String> summaries = queryRows(timer, GET_SUMMARY_QUERY, statement -> statement.setInt(1, movieId),
+					metaData -> resultSet -> resultSet.getString(1));
+			timer.succeeded(summaries.size());
+			return summaries.isEmpty() ? Optional.empty() : Optional.ofNullable(summaries.get(0));
+
+		} catch (SQLException e) {
+			throw new RuntimeException("Error while fetching the summary of movie " + movieId, e);
+		}
+	}
+
+	/**
+	 * Loads the summaries of several movies, with one query per
+	 * {@value InListQuery#MAX_CHUNK_SIZE} ids.
+	 * 
+	 * @param movieIds the ids of the movies; duplicates are looked up once
+	 * @return the summaries by movie id, in the order of movieIds: unknown ids are
+	 *         absent, movies without summary are mapped to null
+	 * @throws NullPointerException if movieIds contains null
+	 */
+	public Map<Integer, String> getSummaries(Collection<Integer> movieIds) {
+		List<List<Integer>> chunks = InListQuery.chunks(movieIds);
+		try (OperationTimer timer = GET_SUMMARIES.start()) {
+			Map<Integer, String> found = Retries.read(() -> {
+				Map<Integer, String> summaries = new HashMap<>();
+				try (Connection connection = timer.connectReader()) {
+					for (List<Integer> chunk : chunks) {
+						try (PreparedStatement statement = connection.prepareStatement(GET_SUMMARIES_QUERY.sql(chunk))) {
+							InListQuery.bind(statement, chunk);
+							try (ResultSet resultSet = statement.executeQuery()) {
+								while (resultSet.next()) {
+									summaries.put(resultSet.getInt(1), resultSet.getString(2));
+								}
+							}
+						}
+					}
+				}
+				return summaries;
+			});
+
+			Map<Integer, String> summaries = new LinkedHashMap<>();
+			for (Integer movieId : movieIds) {
+				if (found.containsKey(movieId)) {
+					summaries.put(movieId, found.get(movieId));
 				}
 			}
+			timer.succeeded(summaries.size());
+			return summaries;
+
+		} catch (SQLException e) {
+			throw new RuntimeException("Error while fetching the summaries of " + movieIds.size() + " movies", e);
+		}
+	}
+
+	/**
+	 * Streams all movies with their genre, reading them lazily from an open cursor.
+	 * 
+	 * @return a Stream of all movies; it must be closed to release its connection
+	 * @see #streamMovies(int)
+	 */
+	public Stream<Movie> streamMovies() {
+		return streamMovies(DEFAULT_FETCH_SIZE);
+	}
+
+	/**
+	 * Streams all movies with their genre, reading them lazily from an open cursor.
+	 * Unlike {@link #listMovies()}, only the rows being processed are held in memory,
+	 * which keeps memory flat for exports over the whole catalog.
+	 * 
+	 * The Stream holds a pooled connection until it is closed, so use it in a
+	 * try-with-resources block:
+	 * <pre>
+	 * try (Stream&lt;Movie&gt; movies = movieDao.streamMovies(1000)) {
+	 *     movies.forEach(exporter::write);
+	 * }
+	 * </pre>
+	 * 
+	 * @param fetchSize the number of rows fetched per round trip
+	 * @return a Stream of all movies; it must be closed to release its connection
+	 */
+	public Stream<Movie> streamMovies(int fetchSize) {
+		try {
+			return Retries.read(() -> ResultSetStream.open(STREAM_MOVIES, LIST_MOVIES_QUERY, fetchSize,
+					statement -> { }, MovieRowMapper.FACTORY));
+		} catch (SQLException e) {
+			throw new RuntimeException("Error while streaming movies from database", e);
+		}
+	}
+
+	/**
+	 * Streams the movies of a specific genre, reading them lazily from an open cursor.
+	 * 
+	 * @param genreName the name of the genre to filter by
+	 * @return a Stream of the matching movies; it must be closed to release its connection
+	 * @see #streamMoviesByGenre(String, int)
+	 */
+	public Stream<Movie> streamMoviesByGenre(String genreName) {
+		return streamMoviesByGenre(genreName, DEFAULT_FETCH_SIZE);
+	}
+
+	/**
+	 * Streams the movies of a specific genre, reading them lazily from an open cursor.
+	 * The Stream must be closed to release its connection.
+	 * 
+	 * @param genreName the name of the genre to filter by
+	 * @param fetchSize the number of rows fetched per round trip
+	 * @return a Stream of the matching movies; it must be closed to release its connection
+	 */
+	public Stream<Movie> streamMoviesByGenre(String genreName, int fetchSize) {
+		try {
+			return Retries.read(() -> ResultSetStream.open(STREAM_MOVIES_BY_GENRE, LIST_MOVIES_BY_GENRE_QUERY,
+					fetchSize, statement -> statement.setString(1, genreName), MovieRowMapper.FACTORY));
+		} catch (SQLException e) {
+			throw new RuntimeException("Error while streaming movies by genre: " + genreName, e);
+		}
+	}
+
+	/**
+	 * Reads all movies with their genre from an open cursor and hands each row to
+	 * the handler, without building Movie objects. This is the path of bulk
+	 * exports: memory use does not depend on the number of movies.
+	 * 
+	 * A busy database is retried only until the first row reaches the handler.
+	 * 
+	 * @param handler receives each row; the row must not be kept after it returns
+	 * @return the number of rows handled
+	 * @throws IOException if the handler fails to write a row
+	 */
+	public long forEachMovieRow(MovieRowHandler handler) throws IOException {
+		try (OperationTimer timer = FOR_EACH_MOVIE_ROW.start()) {
+			long rows = Retries.read(() -> {
+				try (Connection connection = timer.connectReader();
+					 PreparedStatement statement = connection.prepareStatement(SELECT_MOVIE_ROWS_WITH_GENRE)) {
+
+					statement.setFetchSize(DEFAULT_FETCH_SIZE);
+					long count = 0;
+					try (ResultSet resultSet = statement.executeQuery()) {
+						MovieRow row = new MovieRow(resultSet);
+						while (resultSet.next()) {
+							count++;
+							handler.handle(row);
+						}
+						return count;
+					} catch (SQLException e) {
+						if (count > 0) {
+							// Rows were already handed over: running the query again would repeat them
+							throw new RuntimeException("Error while reading movie row " + count, e);
+						}
+						throw e;
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+			});
+			timer.succeeded(rows);
+			return rows;
+
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} catch (SQLException e) {
+			throw new RuntimeException("Error while reading movies from database", e);
+		}
+	}
+
+	/**
+	 * Retrieves one page of movies ordered by id, starting after the given cursor.
+	 * 
+	 * @param after the cursor of the previous page, or null for the first page
+	 * @param limit the maximum number of movies in the page
+	 * @return the page, with the cursor of the next page if there is one
+	 * @see #pageMovies(MoviePage.Order, String, MoviePage.Cursor, int)
+	 */
+	public MoviePage pageMovies(MoviePage.Cursor after, int limit) {
+		return pageMovies(MoviePage.Order.ID, null, after, limit);
+	}
+
+	/**
+	 * Retrieves one page of movies using keyset pagination.
+	 * 
+	 * Instead of an OFFSET, which makes the database read and skip every previous
+	 * row, the query restarts right after the sort key of the last movie seen
+	 * (WHERE idmovie &gt; ? or WHERE (release_date, idmovie) &gt; (?, ?)), so the cost
+	 * of a page does not depend on how deep it is in the catalog.
+	 * 
+	 * Release dates are compared on their day only (date(release_date)), because
+	 * the cursor holds a LocalDate while stored values may carry a time of day.
+	 * 
+	 * Movies without a release date come first when ordering by release date,
+	 * like NULLs do in SQLite.
+	 * 
+	 * @param order     the sort order of the pages
+	 * @param genreName the genre to filter by, or null for all movies
+	 * @param after     the cursor of the previous page, or null for the first page
+	 * @param limit     the maximum number of movies in the page
+	 * @return the page, with the cursor of the next page if there is one
+	 */
+	public MoviePage pageMovies(MoviePage.Order order, String genreName, MoviePage.Cursor after, int limit) {
+		if (limit < 1) {
+			throw new IllegalArgumentException("Page limit must be positive: " + limit);
+		}
+		List<Object> parameters = new ArrayList<>();
+		String sqlQuery = buildPageQuery(order, genreName, after, parameters);
+		// One extra row tells whether there is a next page
+		parameters.add(limit + 1);
+
+		List<PagedMovie> rows;
+		try (OperationTimer timer = PAGE_MOVIES.start()) {
+			rows = queryRows(timer, sqlQuery, statement -> {
+				for (int i = 0; i < parameters.size(); i++) {
+					statement.setObject(i + 1, parameters.get(i));
+				}
+			}, PagedMovie.FACTORY);
+			timer.succeeded(rows.size());
+
+		} catch (SQLException e) {
+			throw new RuntimeException("Error while fetching a page of movies after " + after, e);
+		}
+
+		List<Movie> movies = new ArrayList<>(Math.min(rows.size(), limit));
+		for (int i = 0; i < rows.size() && i < limit; i++) {
+			movies.add(rows.get(i).movie());
+		}
+		if (rows.size() <= limit) {
+			return new MoviePage(movies, null);
+		}
+		// The cursor holds the day the query ordered by, not the one read by the driver:
+		// the two differ for a value date() cannot read, which must stay with the NULLs
+		PagedMovie last = rows.get(limit - 1);
+		return new MoviePage(movies, new MoviePage.Cursor(last.releaseDay(), last.movie().getId()));
+	}
+
+	/**
+	 * Helper method building the keyset query of pageMovies and collecting its parameters.
+	 */
+	private String buildPageQuery(MoviePage.Order order, String genreName, MoviePage.Cursor after,
+			List<Object> parameters) {
+		List<String> conditions = new ArrayList<>();
+		if (genreName != null) {
+			conditions.add("genre.name = ?");
+			parameters.add(genreName);
+		}
+		if (after != null) {
+			if (order == MoviePage.Order.ID) {
+				conditions.add("movie.idmovie > ?");
+				parameters.add(after.id());
+			} else if (after.releaseDate() == null) {
+				conditions.add("((date(movie.release_date) IS NULL AND movie.idmovie > ?) "
+						+ "OR date(movie.release_date) IS NOT NULL)");
+				parameters.add(after.id());
+			} else {
+				conditions.add("(date(movie.release_date), movie.idmovie) > (?, ?)");
+				parameters.add(after.releaseDate().toString());
+				parameters.add(after.id());
+			}
+		}
+
+		StringBuilder sqlQuery = new StringBuilder(SELECT_PAGE_OF_MOVIES);
+		if (!conditions.isEmpty()) {
+			sqlQuery.append(" WHERE ").append(String.join(" AND ", conditions));
+		}
+		sqlQuery.append(order == MoviePage.Order.ID
+				? " ORDER BY movie.idmovie"
+				: " ORDER BY date(movie.release_date), movie.idmovie");
+		sqlQuery.append(" LIMIT ?");
+		return sqlQuery.toString();
+	}
+
+	/**
+	 * Retrieves the movies matching typed criteria (release date range, duration
+	 * range, director, genres), in the requested order.
+	 * 
+	 * The criteria are compiled into one parameterized query filtering on indexed
+	 * columns, instead of filtering the result of {@link #listMovies()} in Java.
+	 * The SQL text is generated once per combination of criteria and reused.
+	 * 
+	 * @param query the criteria, sort order and limit
+	 * @return the matching movies, or an empty list if none match
+	 */
+	public List<Movie> findMovies(MovieQuery query) {
+		String sqlQuery = FIND_MOVIES_QUERIES.computeIfAbsent(query.shape(),
+				shape -> shape.toSql(SELECT_MOVIES_WITH_GENRE));
+
+		try (OperationTimer timer = FIND_MOVIES.start()) {
+			List<Movie> movies = queryMovies(timer, sqlQuery, query::bind);
+			timer.succeeded(movies.size());
 			return movies;
 
 		} catch (SQLException e) {
-			throw new RuntimeException("Error while fetching movies by genre: " + genreName, e);
+			throw new RuntimeException("Error while finding movies: " + query, e);
 		}
 	}
 
+	/**
+	 * Searches movies whose title, director or summary contain all the given words.
+	 * 
+	 * @param text  the words to look for
+	 * @param limit the maximum number of movies returned
+	 * @return the matching movies, best match first
+	 * @see #searchMovies(String, boolean, int)
+	 */
+	public List<Movie> searchMovies(String text, int limit) {
+		return searchMovies(text, false, limit);
+	}
+
+	/**
+	 * Searches movies whose title, director or summary contain all the given words,
+	 * using the SQLite FTS5 full-text index instead of a scan of the summaries.
+	 * 
+	 * Results are ranked with bm25, matches in the title weighing more than matches
+	 * in the director, then in the summary. Punctuation is ignored: the text is
+	 * searched as plain words, not as an FTS5 query.
+	 * 
+	 * @param text   the words to look for
+	 * @param prefix true to also match words starting with each term ("incep" finds "Inception")
+	 * @param limit  the maximum number of movies returned
+	 * @return the matching movies, best match first, or an empty list if text has no word
+	 */
+	public List<Movie> searchMovies(String text, boolean prefix, int limit) {
+		if (limit < 1) {
+			throw new IllegalArgumentException("Search limit must be positive: " + limit);
+		}
+		String matchExpression = MovieSearchIndex.toMatchExpression(text, prefix);
+		if (matchExpression.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		try (OperationTimer timer = SEARCH_MOVIES.start()) {
+			List<Movie> movies = queryMovies(timer, SEARCH_MOVIES_QUERY,
+					statement -> MovieSearchIndex.bind(statement, matchExpression, limit));
+			timer.succeeded(movies.size());
+			return movies;
+
+		} catch (SQLException e) {
+			throw new RuntimeException("Error while searching movies: " + text, e);
+		}
+	}
+
+	/**
+	 * Reads the next batch of the change feed: the movies and genres added, updated
+	 * or deleted after a watermark, so that a copy of the catalog can be kept in sync
+	 * at a cost proportional to the changes instead of calling {@link #listMovies()}.
+	 * <pre>
+	 * long watermark = ChangeBatch.FROM_START;
+	 * ChangeBatch batch;
+	 * do {
+	 *     batch = movieDao.pollChanges(watermark, 1000);
+	 *     apply(batch);
+	 *     watermark = batch.watermark();
+	 * } while (batch.hasMore());
+	 * </pre>
+	 * 
+	 * Triggers give each written row a new value of an ever-increasing sequence (the
+	 * change_log table keeps only the latest one per row), and a batch is one indexed
+	 * range query on that sequence. Rows are returned as they are at the time of the
+	 * poll: a row changed several times is returned once, and a row changed again
+	 * after a poll is returned again by a later one. SQLite commits one write at a
+	 * time, so no change can appear later with a sequence below a watermark already
+	 * returned.
+	 * 
+	 * @param watermark the watermark of the previous batch, or {@link ChangeBatch#FROM_START}
+	 * @param limit     the maximum number of changes in the batch
+	 * @return the changes, with the watermark to pass next
+	 */
+	public ChangeBatch pollChanges(long watermark, int limit) {
+		if (watermark < 0) {
+			throw new IllegalArgumentException("Watermark must not be negative: " + watermark);
+		}
+		if (limit < 1) {
+			throw new IllegalArgumentException("Batch limit must be positive: " + limit);
+		}
+
+		List<ChangeRow> changes;
+		try (OperationTimer timer = POLL_CHANGES.start()) {
+			changes = queryRows(timer, POLL_CHANGES_QUERY, statement -> {
+				statement.setLong(1, watermark);
+				// One extra row tells whether there are more changes
+				statement.setInt(2, limit + 1);
+			}, ChangeRow.FACTORY);
+			timer.succeeded(Math.min(changes.size(), limit));
+
+		} catch (SQLException e) {
+			throw new RuntimeException("Error while polling the changes after " + watermark, e);
+		}
+
+		boolean hasMore = changes.size() > limit;
+		if (hasMore) {
+			changes.remove(limit);
+		}
+		List<Genre> genres = new ArrayList<>();
+		List<Movie> movies = new ArrayList<>();
+		List<Integer> deletedGenreIds = new ArrayList<>();
+		List<Integer> deletedMovieIds = new ArrayList<>();
+		for (ChangeRow change : changes) {
+			if (change.movie()) {
+				if (change.value() == null) {
+					deletedMovieIds.add(change.entityId());
+				} else {
+					movies.add((Movie) change.value());
+				}
+			} else if (change.value() == null) {
+				deletedGenreIds.add(change.entityId());
+			} else {
+				genres.add((Genre) change.value());
+			}
+		}
+		long next = changes.isEmpty() ? watermark : changes.get(changes.size() - 1).seq();
+		return new ChangeBatch(genres, movies, deletedGenreIds, deletedMovieIds, next, hasMore);
+	}
+
 	/**
 	 * Adds a new movie to the database.
 	 * The movie parameter should have all information except the id.
@@ -96,68 +757,209 @@ public class MovieDao {
 	 * @return a new Movie object with the same information plus the generated id
 	 */
 	public Movie addMovie(Movie movie) {
-		String sqlQuery =
-			"INSERT INTO movie(title, release_date, genre_id, duration, director, summary) " +
-			"VALUES(?, ?, ?, ?, ?, ?)";
+		try (OperationTimer timer = ADD_MOVIE.start()) {
+			int generatedId = Retries.write(() -> {
+				try (Connection connection = timer.connectWriter();
+					 PreparedStatement statement = connection.prepareStatement(
+							 INSERT_MOVIE_QUERY, Statement.RETURN_GENERATED_KEYS)) {
 
-		try (Connection connection = DataSourceFactory.getDataSource().getConnection();
-			 PreparedStatement statement = connection.prepareStatement(
-					 sqlQuery, Statement.RETURN_GENERATED_KEYS)) {
+					bindMovie(statement, movie);
 
-			statement.setString(1, movie.getTitle());
-			statement.setDate(2, Date.valueOf(movie.getReleaseDate()));
-			statement.setInt(3, movie.getGenre().getId());
-			statement.setInt(4, movie.getDuration());
-			statement.setString(5, movie.getDirector());
-			statement.setString(6, movie.getSummary());
-
-			statement.executeUpdate();
-
-			// Retrieve the generated id
-			try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
-				if (generatedKeys.next()) {
-					int generatedId = generatedKeys.getInt(1);
-					
-					// Return a new Movie object with the generated id
-					return new Movie(
-						generatedId,
-						movie.getTitle(),
-						movie.getReleaseDate(),
-						movie.getGenre(),
-						movie.getDuration(),
-						movie.getDirector(),
-						movie.getSummary()
-					);
+					statement.executeUpdate();
+
+					// Retrieve the generated id
+					try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+						if (generatedKeys.next()) {
+							return generatedKeys.getInt(1);
+						}
+					}
+					throw new RuntimeException("Failed to retrieve generated id for movie");
 				}
-			}
+			});
+			timer.succeeded(1);
 
-			throw new RuntimeException("Failed to retrieve generated id for movie");
+			// Return a new Movie object with the generated id
+			return withId(movie, generatedId);
 
 		} catch (SQLException e) {
 			throw new RuntimeException("Error while adding movie: " + movie.getTitle(), e);
+		} finally {
+			CatalogChanges.moviesAdded(Collections.singletonList(movie.getGenre()));
 		}
 	}
 
 	/**
-	 * Helper method to create a Movie object from a ResultSet.
-	 * Uses aliased column names to avoid ambiguity.
+	 * Adds several movies at once, using JDBC batches of
+	 * {@value BatchInsert#DEFAULT_BATCH_SIZE} rows inside a single transaction.
+	 * 
+	 * @param movies the movies to add (without id)
+	 * @return new Movie objects with the generated ids, in the same order as the input
+	 * @see #addMovies(Collection, int)
 	 */
-	private Movie createMovieFromResultSet(ResultSet resultSet) throws SQLException {
+	public List<Movie> addMovies(Collection<Movie> movies) {
+		return addMovies(movies, BatchInsert.DEFAULT_BATCH_SIZE);
+	}
 
-		Genre genre = new Genre(
-			resultSet.getInt("genre_id"),
-			resultSet.getString("genre_name")
-		);
+	/**
+	 * Adds several movies at once.
+	 * All rows are inserted in one transaction (one commit instead of one per movie),
+	 * and sent to the database in JDBC batches of batchSize rows.
+	 * If any movie cannot be inserted, none of them is.
+	 * 
+	 * @param movies    the movies to add (without id)
+	 * @param batchSize the number of rows per JDBC batch
+	 * @return new Movie objects with the generated ids, in the same order as the input
+	 */
+	public List<Movie> addMovies(Collection<Movie> movies, int batchSize) {
+		if (movies.isEmpty()) {
+			return new ArrayList<>();
+		}
+		List<Movie> toInsert = new ArrayList<>(movies);
+
+		try (OperationTimer timer = ADD_MOVIES.start()) {
+			int[] generatedIds = Retries.write(() -> {
+				try (Connection connection = timer.connectWriter()) {
+					return BatchInsert.execute(connection, INSERT_MOVIE_QUERY, toInsert, batchSize,
+							MovieDao::bindMovie);
+				}
+			});
+
+			List<Movie> addedMovies = new ArrayList<>(toInsert.size());
+			for (int i = 0; i < toInsert.size(); i++) {
+				addedMovies.add(withId(toInsert.get(i), generatedIds[i]));
+			}
+			timer.succeeded(addedMovies.size());
+			return addedMovies;
+
+		} catch (SQLException e) {
+			throw new RuntimeException("Error while adding " + toInsert.size() + " movies", e);
+		} finally {
+			CatalogChanges.moviesAdded(genresOf(toInsert));
+		}
+	}
+
+	/**
+	 * Helper method listing the distinct genres of movies, for the change listeners.
+	 */
+	private static Collection<Genre> genresOf(List<Movie> movies) {
+		Set<Genre> genres = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (Movie movie : movies) {
+			genres.add(movie.getGenre());
+		}
+		return genres;
+	}
+
+	/**
+	 * Helper method running a query of movies on a read connection, retried if the
+	 * database is busy.
+	 */
+	private static List<Movie> queryMovies(OperationTimer timer, String sqlQuery,
+			ResultSetStream.ParameterSetter parameters) throws SQLException {
+		return queryRows(timer, sqlQuery, parameters, MovieRowMapper.FACTORY);
+	}
 
-		//  return the Movie object
+	/**
+	 * Helper method running a query on a read connection, retried if the database is busy.
+	 */
+	private static <T> List<T> queryRows(OperationTimer timer, String sqlQuery,
+			ResultSetStream.ParameterSetter parameters, RowMapperFactory<T> rowMappers) throws SQLException {
+		return Retries.read(() -> {
+			try (Connection connection = timer.connectReader();
+				 PreparedStatement statement = connection.prepareStatement(sqlQuery)) {
+
+				parameters.setParameters(statement);
+
+				List<T> rows = new ArrayList<>();
+				try (ResultSet resultSet = statement.executeQuery()) {
+					RowMapper<T> rowMapper = rowMappers.create(resultSet);
+					while (resultSet.next()) {
+						rows.add(rowMapper.mapRow(resultSet));
+					}
+				}
+				return rows;
+			}
+		});
+	}
+
+	/**
+	 * Helper method binding a movie to the parameters of INSERT_MOVIE_QUERY.
+	 * A missing release date or duration is stored as NULL.
+	 */
+	static void bindMovie(PreparedStatement statement, Movie movie) throws SQLException {
+		statement.setString(1, movie.getTitle());
+		if (movie.getReleaseDate() != null) {
+			statement.setDate(2, Date.valueOf(movie.getReleaseDate()));
+		} else {
+			statement.setNull(2, Types.DATE);
+		}
+		statement.setInt(3, movie.getGenre().getId());
+		if (movie.getDuration() != null) {
+			statement.setInt(4, movie.getDuration());
+		} else {
+			statement.setNull(4, Types.INTEGER);
+		}
+		statement.setString(5, movie.getDirector());
+		statement.setString(6, movie.getSummary());
+	}
+
+	/**
+	 * Helper method returning a copy of an inserted movie with its generated id.
+	 */
+	static Movie withId(Movie movie, int id) {
 		return new Movie(
-			resultSet.getInt("idmovie"),
-			resultSet.getString("title"),
-			resultSet.getDate("release_date").toLocalDate(),
-			genre,
-			resultSet.getInt("duration"),
-			resultSet.getString("director"),
-			resultSet.getString("summary")
+			id,
+			movie.getTitle(),
+			movie.getReleaseDate(),
+			movie.getGenre(),
+			movie.getDuration(),
+			movie.getDirector(),
+			movie.getSummary()
 		);
 	}
+
+	/**
+	 * One row of POLL_CHANGES_QUERY: the changed movie or genre, or null if it was deleted.
+	 */
+	private record ChangeRow(long seq, boolean movie, int entityId, Object value) {
+
+		static final RowMapperFactory<ChangeRow> FACTORY = metaData -> {
+			ColumnIndex columns = ColumnIndex.of(metaData);
+			int seqColumn = columns.positionOf("seq");
+			int entityColumn = columns.positionOf("entity");
+			int entityIdColumn = columns.positionOf("entity_id");
+			int movieIdColumn = columns.positionOf("idmovie");
+			int genreIdColumn = columns.positionOf("genre_id");
+			int genreNameColumn = columns.positionOf("genre_name");
+			RowMapper<Movie> movieMapper = MovieRowMapper.FACTORY.create(metaData);
+			GenreCache genreCache = GenreCache.getInstance();
+
+			return resultSet -> {
+				long seq = resultSet.getLong(seqColumn);
+				int entityId = resultSet.getInt(entityIdColumn);
+				if ("movie".equals(resultSet.getString(entityColumn))) {
+					resultSet.getInt(movieIdColumn);
+					return new ChangeRow(seq, true, entityId, resultSet.wasNull() ? null : movieMapper.mapRow(resultSet));
+				}
+				int genreId = resultSet.getInt(genreIdColumn);
+				return new ChangeRow(seq, false, entityId,
+						resultSet.wasNull() ? null : genreCache.canonical(genreId, resultSet.getString(genreNameColumn)));
+			};
+		};
+	}
+
+	/**
+	 * One row of a pageMovies query: the movie and its release day as date() reads it.
+	 */
+	private record PagedMovie(Movie movie, LocalDate releaseDay) {
+
+		static final RowMapperFactory<PagedMovie> FACTORY = metaData -> {
+			RowMapper<Movie> movieMapper = MovieRowMapper.FACTORY.create(metaData);
+			int releaseDayColumn = ColumnIndex.of(metaData).positionOf("release_day");
+			return resultSet -> {
+				Movie movie = movieMapper.mapRow(resultSet);
+				String releaseDay = resultSet.getString(releaseDayColumn);
+				return new PagedMovie(movie, releaseDay == null ? null : LocalDate.parse(releaseDay));
+			};
+		};
+	}
 }
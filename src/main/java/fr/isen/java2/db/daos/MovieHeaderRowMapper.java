@@ -0,0 +1,64 @@
+package fr.isen.java2.db.daos;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+import fr.isen.java2.db.entities.Genre;
+import fr.isen.java2.db.entities.MovieHeader;
+
+/**
+ * Maps the rows of a movie JOIN genre query without summary to MovieHeader objects,
+ * reading columns by index. Like {@link MovieRowMapper}, the genre columns must be
+ * aliased genre_id and genre_name.
+ */
+final class MovieHeaderRowMapper implements RowMapper<MovieHeader> {
+
+	/**
+	 * Binds a mapper to the columns of a movie header result.
+	 */
+	static final RowMapperFactory<MovieHeader> FACTORY = MovieHeaderRowMapper::new;
+
+	private final GenreCache genreCache = GenreCache.getInstance();
+
+	private final int idColumn;
+	private final int titleColumn;
+	private final int releaseDateColumn;
+	private final int durationColumn;
+	private final int directorColumn;
+	private final int genreIdColumn;
+	private final int genreNameColumn;
+
+	private MovieHeaderRowMapper(ResultSetMetaData metaData) throws SQLException {
+		ColumnIndex columns = ColumnIndex.of(metaData);
+		idColumn = columns.positionOf("idmovie");
+		titleColumn = columns.positionOf("title");
+		releaseDateColumn = columns.positionOf("release_date");
+		durationColumn = columns.positionOf("duration");
+		directorColumn = columns.positionOf("director");
+		genreIdColumn = columns.positionOf("genre_id");
+		genreNameColumn = columns.positionOf("genre_name");
+	}
+
+	@Override
+	public MovieHeader mapRow(ResultSet resultSet) throws SQLException {
+		Genre genre = genreCache.canonical(
+			resultSet.getInt(genreIdColumn),
+			resultSet.getString(genreNameColumn)
+		);
+
+		Date releaseDate = resultSet.getDate(releaseDateColumn);
+		int duration = resultSet.getInt(durationColumn);
+		Integer nullableDuration = resultSet.wasNull() ? null : duration;
+
+		return new MovieHeader(
+			resultSet.getInt(idColumn),
+			resultSet.getString(titleColumn),
+			releaseDate == null ? null : releaseDate.toLocalDate(),
+			genre,
+			nullableDuration,
+			resultSet.getString(directorColumn)
+		);
+	}
+}
@@ -0,0 +1,22 @@
+package fr.isen.java2.db.daos;
+
+import java.util.List;
+
+import fr.isen.java2.db.entities.Movie;
+
+/**
+ * Result of {@link MovieDao#getMovies(java.util.Collection)}: the movies found
+ * and the ids that matched none.
+ *
+ * @param movies     the movies found, in the order of the requested ids
+ * @param missingIds the requested ids with no movie, in the order they were requested
+ */
+public record MovieLookup(List<Movie> movies, List<Integer> missingIds) {
+
+	/**
+	 * @return true if every requested id was found
+	 */
+	public boolean isComplete() {
+		return missingIds.isEmpty();
+	}
+}
@@ -0,0 +1,51 @@
+package fr.isen.java2.db.daos;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import fr.isen.java2.db.entities.Movie;
+
+/**
+ * One page of movies returned by the keyset pagination of {@link MovieDao}.
+ *
+ * @param movies     the movies of this page, in the requested order
+ * @param nextCursor the cursor to pass to get the next page, or null on the last page
+ */
+public record MoviePage(List<Movie> movies, Cursor nextCursor) {
+
+	/**
+	 * Sort orders supported by the pagination. Both end with idmovie so that
+	 * the order is total and a cursor designates a single position.
+	 */
+	public enum Order {
+		/** ORDER BY idmovie */
+		ID,
+		/** ORDER BY date(release_date), idmovie */
+		RELEASE_DATE
+	}
+
+	/**
+	 * Position after which the next page starts: the sort key of the last movie
+	 * of the previous page. Only the id is used when paging by {@link Order#ID}.
+	 *
+	 * @param releaseDate release day of the last movie seen, as date(release_date)
+	 *                    reads it in SQLite (null if it has none)
+	 * @param id          id of the last movie seen
+	 */
+	public record Cursor(LocalDate releaseDate, int id) {
+
+		/**
+		 * @return a cursor positioned after the movie with the given id, for {@link Order#ID}
+		 */
+		public static Cursor afterId(int id) {
+			return new Cursor(null, id);
+		}
+	}
+
+	/**
+	 * @return true if another page can be requested with {@link #nextCursor()}
+	 */
+	public boolean hasNext() {
+		return nextCursor != null;
+	}
+}
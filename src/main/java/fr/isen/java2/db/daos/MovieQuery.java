@@ -0,0 +1,289 @@
+package fr.isen.java2.db.daos;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Typed search criteria of {@link MovieDao#findMovies(MovieQuery)}.
+ *
+ * All criteria are optional and combined with AND:
+ * <pre>
+ * MovieQuery query = MovieQuery.builder()
+ *     .releasedBetween(LocalDate.of(1990, 1, 1), LocalDate.of(1999, 12, 31))
+ *     .durationBetween(90, 120)
+ *     .genres("Drama", "Comedy")
+ *     .sort(MovieQuery.Sort.RELEASE_DATE_DESC)
+ *     .limit(20)
+ *     .build();
+ * </pre>
+ *
+ * A query is compiled into one parameterized SELECT whose text only depends on
+ * which criteria are set (its {@link Shape}), not on their values: MovieDao
+ * generates the SQL once per shape, and the statement caches of the pool reuse the
+ * prepared statement. Each criterion is a sargable comparison on an indexed
+ * column or expression (date(release_date), duration, director, genre name).
+ */
+public final class MovieQuery {
+
+	/**
+	 * Sort orders of the results. All end with idmovie, so the order is total.
+	 * Release dates are ordered by day, ignoring the time of day, like
+	 * {@link MovieDao#pageMovies} and {@link CatalogSnapshot} do (and using the
+	 * movie_release_day_idx index).
+	 */
+	public enum Sort {
+		ID("movie.idmovie"),
+		TITLE("movie.title, movie.idmovie"),
+		RELEASE_DATE("date(movie.release_date), movie.idmovie"),
+		RELEASE_DATE_DESC("date(movie.release_date) DESC, movie.idmovie DESC"),
+		DURATION("movie.duration, movie.idmovie"),
+		DURATION_DESC("movie.duration DESC, movie.idmovie DESC");
+
+		private final String orderBy;
+
+		Sort(String orderBy) {
+			this.orderBy = orderBy;
+		}
+	}
+
+	/**
+	 * Which criteria a query sets, i.e. everything the SQL text depends on.
+	 * The number of genres is rounded up to a power of two, so that lists of 5 to 8
+	 * genres share one statement (the last name is repeated to fill the IN list).
+	 */
+	record Shape(boolean releasedFrom, boolean releasedTo, boolean minDuration, boolean maxDuration,
+			boolean director, int genreSlots, Sort sort, boolean limited) {
+
+		/**
+		 * @param select the SELECT ... FROM ... JOIN part of the query
+		 * @return the full query, with one ? per criterion in the order bound by {@link MovieQuery#bind}
+		 */
+		String toSql(String select) {
+			List<String> conditions = new ArrayList<>();
+			if (releasedFrom) {
+				conditions.add("date(movie.release_date) >= ?");
+			}
+			if (releasedTo) {
+				conditions.add("date(movie.release_date) <= ?");
+			}
+			if (minDuration) {
+				conditions.add("movie.duration >= ?");
+			}
+			if (maxDuration) {
+				conditions.add("movie.duration <= ?");
+			}
+			if (director) {
+				conditions.add("movie.director = ?");
+			}
+			if (genreSlots > 0) {
+				conditions.add("genre.name IN (" + String.join(", ", Collections.nCopies(genreSlots, "?")) + ")");
+			}
+
+			StringBuilder sqlQuery = new StringBuilder(select);
+			if (!conditions.isEmpty()) {
+				sqlQuery.append(" WHERE ").append(String.join(" AND ", conditions));
+			}
+			sqlQuery.append(" ORDER BY ").append(sort.orderBy);
+			if (limited) {
+				sqlQuery.append(" LIMIT ?");
+			}
+			return sqlQuery.toString();
+		}
+	}
+
+	private final LocalDate releasedFrom;
+	private final LocalDate releasedTo;
+	private final Integer minDuration;
+	private final Integer maxDuration;
+	private final String director;
+	private final List<String> genres;
+	private final Sort sort;
+	private final Integer limit;
+
+	private MovieQuery(Builder builder) {
+		this.releasedFrom = builder.releasedFrom;
+		this.releasedTo = builder.releasedTo;
+		this.minDuration = builder.minDuration;
+		this.maxDuration = builder.maxDuration;
+		this.director = builder.director;
+		this.genres = List.copyOf(builder.genres);
+		this.sort = builder.sort;
+		this.limit = builder.limit;
+	}
+
+	/**
+	 * @return a builder of a query matching every movie, ordered by id
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	Shape shape() {
+		return new Shape(releasedFrom != null, releasedTo != null, minDuration != null, maxDuration != null,
+				director != null, genres.isEmpty() ? 0 : Integer.highestOneBit(genres.size() * 2 - 1), sort,
+				limit != null);
+	}
+
+	LocalDate releasedFrom() {
+		return releasedFrom;
+	}
+
+	LocalDate releasedTo() {
+		return releasedTo;
+	}
+
+	Integer minDuration() {
+		return minDuration;
+	}
+
+	Integer maxDuration() {
+		return maxDuration;
+	}
+
+	String director() {
+		return director;
+	}
+
+	List<String> genres() {
+		return genres;
+	}
+
+	Sort sort() {
+		return sort;
+	}
+
+	Integer limit() {
+		return limit;
+	}
+
+	/**
+	 * Binds the criteria to the statement prepared from {@link Shape#toSql(String)}.
+	 */
+	void bind(PreparedStatement statement) throws SQLException {
+		int parameter = 1;
+		// Compared to date(release_date), the day SQLite reads from the stored value,
+		// so that the range agrees with the RELEASE_DATE sorts whatever its format
+		if (releasedFrom != null) {
+			statement.setString(parameter++, releasedFrom.toString());
+		}
+		if (releasedTo != null) {
+			statement.setString(parameter++, releasedTo.toString());
+		}
+		if (minDuration != null) {
+			statement.setInt(parameter++, minDuration);
+		}
+		if (maxDuration != null) {
+			statement.setInt(parameter++, maxDuration);
+		}
+		if (director != null) {
+			statement.setString(parameter++, director);
+		}
+		if (!genres.isEmpty()) {
+			int slots = shape().genreSlots();
+			for (int i = 0; i < slots; i++) {
+				statement.setString(parameter++, genres.get(Math.min(i, genres.size() - 1)));
+			}
+		}
+		if (limit != null) {
+			statement.setInt(parameter, limit);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "MovieQuery[releasedFrom=" + releasedFrom + ", releasedTo=" + releasedTo
+				+ ", minDuration=" + minDuration + ", maxDuration=" + maxDuration + ", director=" + director
+				+ ", genres=" + genres + ", sort=" + sort + ", limit=" + limit + "]";
+	}
+
+	/**
+	 * Builder of {@link MovieQuery}. Bounds are inclusive and may be null for no bound.
+	 */
+	public static final class Builder {
+		private LocalDate releasedFrom;
+		private LocalDate releasedTo;
+		private Integer minDuration;
+		private Integer maxDuration;
+		private String director;
+		private final Set<String> genres = new LinkedHashSet<>();
+		private Sort sort = Sort.ID;
+		private Integer limit;
+
+		private Builder() {
+		}
+
+		/**
+		 * Keeps the movies released between from and to, both days included.
+		 * Movies without a release date are excluded.
+		 */
+		public Builder releasedBetween(LocalDate from, LocalDate to) {
+			if (from != null && to != null && from.isAfter(to)) {
+				throw new IllegalArgumentException("Empty release date range: " + from + " > " + to);
+			}
+			this.releasedFrom = from;
+			this.releasedTo = to;
+			return this;
+		}
+
+		/**
+		 * Keeps the movies lasting between min and max minutes, both included.
+		 * Movies without a duration are excluded.
+		 */
+		public Builder durationBetween(Integer min, Integer max) {
+			if ((min != null && min < 0) || (max != null && max < 0)) {
+				throw new IllegalArgumentException("Durations must not be negative: " + min + ", " + max);
+			}
+			if (min != null && max != null && min > max) {
+				throw new IllegalArgumentException("Empty duration range: " + min + " > " + max);
+			}
+			this.minDuration = min;
+			this.maxDuration = max;
+			return this;
+		}
+
+		/**
+		 * Keeps the movies of this director (exact name), or all of them if null.
+		 */
+		public Builder director(String director) {
+			this.director = director;
+			return this;
+		}
+
+		/**
+		 * Keeps the movies of any of these genres (by name). Calling it again adds genres.
+		 */
+		public Builder genres(String... names) {
+			for (String name : names) {
+				genres.add(Objects.requireNonNull(name, "genre name"));
+			}
+			return this;
+		}
+
+		public Builder sort(Sort sort) {
+			this.sort = Objects.requireNonNull(sort, "sort");
+			return this;
+		}
+
+		/**
+		 * Returns at most limit movies, or all of them if null.
+		 */
+		public Builder limit(Integer limit) {
+			if (limit != null && limit < 1) {
+				throw new IllegalArgumentException("Limit must be positive: " + limit);
+			}
+			this.limit = limit;
+			return this;
+		}
+
+		public MovieQuery build() {
+			return new MovieQuery(this);
+		}
+	}
+}
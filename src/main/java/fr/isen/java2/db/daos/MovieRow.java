@@ -0,0 +1,87 @@
+package fr.isen.java2.db.daos;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * View of the current row of a movie JOIN genre cursor, given to a
+ * {@link MovieRowHandler} by {@link MovieDao#forEachMovieRow(MovieRowHandler)}.
+ *
+ * The same instance is moved along the cursor, and no Movie is built: text
+ * columns are returned as their UTF-8 bytes, as stored (the release date as the
+ * day SQLite reads from it), so they can be copied to an output without being decoded. Values must not be read once the handler returns.
+ */
+public final class MovieRow {
+
+	private final ResultSet resultSet;
+	private final int idColumn;
+	private final int titleColumn;
+	private final int releaseDateColumn;
+	private final int durationColumn;
+	private final int directorColumn;
+	private final int summaryColumn;
+	private final int genreIdColumn;
+	private final int genreNameColumn;
+
+	MovieRow(ResultSet resultSet) throws SQLException {
+		this.resultSet = resultSet;
+		ColumnIndex columns = ColumnIndex.of(resultSet.getMetaData());
+		idColumn = columns.positionOf("idmovie");
+		titleColumn = columns.positionOf("title");
+		releaseDateColumn = columns.positionOf("release_date");
+		durationColumn = columns.positionOf("duration");
+		directorColumn = columns.positionOf("director");
+		summaryColumn = columns.positionOf("summary");
+		genreIdColumn = columns.positionOf("genre_id");
+		genreNameColumn = columns.positionOf("genre_name");
+	}
+
+	public int id() throws SQLException {
+		return resultSet.getInt(idColumn);
+	}
+
+	public byte[] title() throws SQLException {
+		return resultSet.getBytes(titleColumn);
+	}
+
+	/**
+	 * @return the release day as a yyyy-MM-dd text, or null if there is none or it cannot be read
+	 */
+	public byte[] releaseDate() throws SQLException {
+		return resultSet.getBytes(releaseDateColumn);
+	}
+
+	/**
+	 * @return false if the duration is NULL
+	 */
+	public boolean hasDuration() throws SQLException {
+		resultSet.getInt(durationColumn);
+		return !resultSet.wasNull();
+	}
+
+	/**
+	 * @return the duration in minutes, or 0 if it is NULL
+	 */
+	public int duration() throws SQLException {
+		return resultSet.getInt(durationColumn);
+	}
+
+	public byte[] director() throws SQLException {
+		return resultSet.getBytes(directorColumn);
+	}
+
+	/**
+	 * @return the summary, or null
+	 */
+	public byte[] summary() throws SQLException {
+		return resultSet.getBytes(summaryColumn);
+	}
+
+	public int genreId() throws SQLException {
+		return resultSet.getInt(genreIdColumn);
+	}
+
+	public byte[] genreName() throws SQLException {
+		return resultSet.getBytes(genreNameColumn);
+	}
+}
@@ -0,0 +1,13 @@
+package fr.isen.java2.db.daos;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+/**
+ * Receives the rows of {@link MovieDao#forEachMovieRow(MovieRowHandler)}, one at a time.
+ */
+@FunctionalInterface
+public interface MovieRowHandler {
+
+	void handle(MovieRow row) throws SQLException, IOException;
+}
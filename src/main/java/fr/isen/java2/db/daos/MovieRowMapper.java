@@ -0,0 +1,67 @@
+package fr.isen.java2.db.daos;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+import fr.isen.java2.db.entities.Genre;
+import fr.isen.java2.db.entities.Movie;
+
+/**
+ * Maps the rows of a movie JOIN genre query to Movie objects, reading columns by index.
+ * The genre columns must be aliased genre_id and genre_name; the genre is the
+ * canonical instance of the {@link GenreCache}.
+ */
+final class MovieRowMapper implements RowMapper<Movie> {
+
+	/**
+	 * Binds a mapper to the columns of a movie JOIN genre result.
+	 */
+	static final RowMapperFactory<Movie> FACTORY = MovieRowMapper::new;
+
+	private final GenreCache genreCache = GenreCache.getInstance();
+
+	private final int idColumn;
+	private final int titleColumn;
+	private final int releaseDateColumn;
+	private final int durationColumn;
+	private final int directorColumn;
+	private final int summaryColumn;
+	private final int genreIdColumn;
+	private final int genreNameColumn;
+
+	private MovieRowMapper(ResultSetMetaData metaData) throws SQLException {
+		ColumnIndex columns = ColumnIndex.of(metaData);
+		idColumn = columns.positionOf("idmovie");
+		titleColumn = columns.positionOf("title");
+		releaseDateColumn = columns.positionOf("release_date");
+		durationColumn = columns.positionOf("duration");
+		directorColumn = columns.positionOf("director");
+		summaryColumn = columns.positionOf("summary");
+		genreIdColumn = columns.positionOf("genre_id");
+		genreNameColumn = columns.positionOf("genre_name");
+	}
+
+	@Override
+	public Movie mapRow(ResultSet resultSet) throws SQLException {
+		Genre genre = genreCache.canonical(
+			resultSet.getInt(genreIdColumn),
+			resultSet.getString(genreNameColumn)
+		);
+
+		Date releaseDate = resultSet.getDate(releaseDateColumn);
+		int duration = resultSet.getInt(durationColumn);
+		Integer nullableDuration = resultSet.wasNull() ? null : duration;
+
+		return new Movie(
+			resultSet.getInt(idColumn),
+			resultSet.getString(titleColumn),
+			releaseDate == null ? null : releaseDate.toLocalDate(),
+			genre,
+			nullableDuration,
+			resultSet.getString(directorColumn),
+			resultSet.getString(summaryColumn)
+		);
+	}
+}
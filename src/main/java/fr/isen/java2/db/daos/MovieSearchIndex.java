@@ -0,0 +1,66 @@
+package fr.isen.java2.db.daos;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Query helpers for the SQLite FTS5 full-text index over the title, director
+ * and summary of movies.
+ *
+ * movie_fts is an external-content table: it stores only the index and reads the
+ * text from the movie table. It is created by the schema bootstrap
+ * (V2__movie_search.sql) together with the triggers that keep it in sync on every
+ * insert, update and delete, whichever code writes the table.
+ */
+final class MovieSearchIndex {
+
+	private MovieSearchIndex() {
+		throw new IllegalStateException("This is a static class that should not be instantiated");
+	}
+
+	/**
+	 * Turns free text into an FTS5 query: every word becomes a quoted term, so that
+	 * user input cannot use the FTS5 query syntax, and all terms must match.
+	 *
+	 * @param text   the words to look for
+	 * @param prefix true to match words starting with each term ("inc" finds "Inception")
+	 * @return the MATCH expression, or an empty string if the text has no word
+	 */
+	static String toMatchExpression(String text, boolean prefix) {
+		List<String> terms = new ArrayList<>();
+		StringBuilder term = new StringBuilder();
+		text.codePoints().forEach(codePoint -> {
+			if (Character.isLetterOrDigit(codePoint)) {
+				term.appendCodePoint(codePoint);
+			} else if (term.length() > 0) {
+				terms.add(term.toString());
+				term.setLength(0);
+			}
+		});
+		if (term.length() > 0) {
+			terms.add(term.toString());
+		}
+
+		StringBuilder expression = new StringBuilder();
+		for (String word : terms) {
+			if (expression.length() > 0) {
+				expression.append(' ');
+			}
+			expression.append('"').append(word).append('"');
+			if (prefix) {
+				expression.append('*');
+			}
+		}
+		return expression.toString();
+	}
+
+	/**
+	 * Binds the MATCH expression and the limit of a search query.
+	 */
+	static void bind(PreparedStatement statement, String matchExpression, int limit) throws SQLException {
+		statement.setString(1, matchExpression);
+		statement.setInt(2, limit);
+	}
+}
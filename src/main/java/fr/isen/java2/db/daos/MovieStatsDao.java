@@ -0,0 +1,179 @@
+package fr.isen.java2.db.daos;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DAO for catalog statistics.
+ * 
+ * The aggregations (GROUP BY, COUNT, AVG, MIN/MAX, top-N) run in the database and
+ * only their compact results are read back: no Movie object and no summary text
+ * is loaded, unlike aggregating the result of {@link MovieDao#listMovies()} in Java.
+ */
+public class MovieStatsDao {
+
+	/**
+	 * Movie statistics of one genre. The duration figures are null when the
+	 * genre has no movie with a known duration.
+	 */
+	public record GenreStats(int genreId, String genreName, long movieCount, Double averageDuration,
+			Integer minDuration, Integer maxDuration) {
+	}
+
+	/**
+	 * Number of movies released in one year.
+	 */
+	public record YearCount(int year, long movieCount) {
+	}
+
+	/**
+	 * Id, title and duration of a movie, as returned by the top-N queries.
+	 */
+	public record MovieDuration(int movieId, String title, int duration) {
+	}
+
+	private static final String GENRE_STATS_QUERY =
+		"SELECT genre.idgenre, genre.name, COUNT(movie.idmovie), " +
+		"AVG(movie.duration), MIN(movie.duration), MAX(movie.duration) " +
+		"FROM genre " +
+		"LEFT JOIN movie ON movie.genre_id = genre.idgenre " +
+		"GROUP BY genre.idgenre, genre.name " +
+		"ORDER BY genre.name";
+
+	private static final String RELEASES_PER_YEAR_QUERY =
+		"SELECT CAST(strftime('%Y', release_date) AS INTEGER) AS release_year, COUNT(*) " +
+		"FROM movie " +
+		"WHERE release_date IS NOT NULL " +
+		"GROUP BY release_year " +
+		"HAVING release_year IS NOT NULL " +
+		"ORDER BY release_year";
+
+	private static final String LONGEST_MOVIES_QUERY =
+		"SELECT idmovie, title, duration " +
+		"FROM movie " +
+		"WHERE duration IS NOT NULL " +
+		"ORDER BY duration DESC, idmovie " +
+		"LIMIT ?";
+
+	private static final String LONGEST_MOVIES_BY_GENRE_QUERY =
+		"SELECT movie.idmovie, movie.title, movie.duration " +
+		"FROM movie " +
+		"JOIN genre ON movie.genre_id = genre.idgenre " +
+		"WHERE genre.name = ? AND movie.duration IS NOT NULL " +
+		"ORDER BY movie.duration DESC, movie.idmovie " +
+		"LIMIT ?";
+
+	private static final DaoOperation GET_GENRE_STATS = DaoMetrics.operation("MovieStatsDao.getGenreStats");
+	private static final DaoOperation GET_RELEASES_PER_YEAR = DaoMetrics.operation("MovieStatsDao.getReleasesPerYear");
+	private static final DaoOperation GET_LONGEST_MOVIES = DaoMetrics.operation("MovieStatsDao.getLongestMovies");
+
+	/**
+	 * Counts the movies of every genre, with their average, shortest and longest duration.
+	 * Genres without movies are included with a count of 0.
+	 * 
+	 * @return one row per genre, ordered by genre name
+	 */
+	public List<GenreStats> getGenreStats() {
+		try (OperationTimer timer = GET_GENRE_STATS.start()) {
+			List<GenreStats> stats = query(timer, GENRE_STATS_QUERY, statement -> { },
+				resultSet -> new GenreStats(
+					resultSet.getInt(1),
+					resultSet.getString(2),
+					resultSet.getLong(3),
+					resultSet.getObject(4) == null ? null : resultSet.getDouble(4),
+					resultSet.getObject(5) == null ? null : resultSet.getInt(5),
+					resultSet.getObject(6) == null ? null : resultSet.getInt(6)
+				));
+			timer.succeeded(stats.size());
+			return stats;
+
+		} catch (SQLException e) {
+			throw new RuntimeException("Error while computing genre statistics", e);
+		}
+	}
+
+	/**
+	 * Counts the movies released each year. Movies without a release date are ignored.
+	 * 
+	 * @return one row per year having releases, in chronological order
+	 */
+	public List<YearCount> getReleasesPerYear() {
+		try (OperationTimer timer = GET_RELEASES_PER_YEAR.start()) {
+			List<YearCount> counts = query(timer, RELEASES_PER_YEAR_QUERY, statement -> { },
+					resultSet -> new YearCount(resultSet.getInt(1), resultSet.getLong(2)));
+			timer.succeeded(counts.size());
+			return counts;
+
+		} catch (SQLException e) {
+			throw new RuntimeException("Error while counting releases per year", e);
+		}
+	}
+
+	/**
+	 * Retrieves the longest movies of the catalog.
+	 * 
+	 * @param limit the number of movies to return
+	 * @return at most limit movies, longest first
+	 */
+	public List<MovieDuration> getLongestMovies(int limit) {
+		return getLongestMovies(null, limit);
+	}
+
+	/**
+	 * Retrieves the longest movies, optionally of a single genre.
+	 * 
+	 * @param genreName the genre to filter by, or null for the whole catalog
+	 * @param limit     the number of movies to return
+	 * @return at most limit movies, longest first (ties broken by id)
+	 */
+	public List<MovieDuration> getLongestMovies(String genreName, int limit) {
+		if (limit < 1) {
+			throw new IllegalArgumentException("Limit must be positive: " + limit);
+		}
+		String sqlQuery = genreName == null ? LONGEST_MOVIES_QUERY : LONGEST_MOVIES_BY_GENRE_QUERY;
+
+		try (OperationTimer timer = GET_LONGEST_MOVIES.start()) {
+			List<MovieDuration> movies = query(timer, sqlQuery,
+				statement -> {
+					int parameter = 1;
+					if (genreName != null) {
+						statement.setString(parameter++, genreName);
+					}
+					statement.setInt(parameter, limit);
+				},
+				resultSet -> new MovieDuration(resultSet.getInt(1), resultSet.getString(2), resultSet.getInt(3)));
+			timer.succeeded(movies.size());
+			return movies;
+
+		} catch (SQLException e) {
+			throw new RuntimeException("Error while fetching the longest movies", e);
+		}
+	}
+
+	/**
+	 * Helper method running an aggregation on a read connection, retried if the
+	 * database is busy, and mapping each row of its result.
+	 */
+	private static <T> List<T> query(OperationTimer timer, String sqlQuery,
+			ResultSetStream.ParameterSetter parameters, RowMapper<T> rowMapper) throws SQLException {
+		return Retries.read(() -> {
+			try (Connection connection = timer.connectReader();
+				 PreparedStatement statement = connection.prepareStatement(sqlQuery)) {
+
+				parameters.setParameters(statement);
+
+				List<T> rows = new ArrayList<>();
+				try (ResultSet resultSet = statement.executeQuery()) {
+					while (resultSet.next()) {
+						rows.add(rowMapper.mapRow(resultSet));
+					}
+				}
+				return rows;
+			}
+		});
+	}
+}
@@ -0,0 +1,30 @@
+package fr.isen.java2.db.daos;
+
+import java.time.Duration;
+
+/**
+ * Point-in-time view of the calls to one DAO operation, see {@link DaoMetrics}.
+ *
+ * The percentiles come from a bucketed histogram and are rounded up by at most
+ * 12.5%; the maximum is exact.
+ *
+ * @param operation          name of the operation, e.g. "MovieDao.listMovies"
+ * @param count              number of calls, failed ones included
+ * @param errors             calls that ended with an exception
+ * @param rows               rows read or written by the successful calls
+ * @param p50                median latency
+ * @param p99                99th percentile latency
+ * @param max                longest call
+ * @param totalAcquireTime   cumulated time spent getting a connection from the pool
+ * @param maxAcquireTime     longest single wait for a connection
+ */
+public record OperationStats(String operation, long count, long errors, long rows, Duration p50, Duration p99,
+		Duration max, Duration totalAcquireTime, Duration maxAcquireTime) {
+
+	/**
+	 * @return the mean time a call waited for its connection
+	 */
+	public Duration averageAcquireTime() {
+		return count == 0 ? Duration.ZERO : totalAcquireTime.dividedBy(count);
+	}
+}
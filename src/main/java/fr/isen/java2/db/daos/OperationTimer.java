@@ -0,0 +1,114 @@
+package fr.isen.java2.db.daos;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+/**
+ * Times one call of a {@link DaoOperation}, from its start to its close().
+ *
+ * It is opened first in the try-with-resources block of the DAO method, so it is
+ * closed last, after the connection has been given back to the pool:
+ * <pre>
+ * try (OperationTimer timer = LIST_MOVIES.start();
+ *      Connection connection = timer.connectReader();
+ *      ...) {
+ *     ...
+ *     timer.succeeded(movies.size());
+ *     return movies;
+ * }
+ * </pre>
+ * A call that does not reach succeeded() is counted as an error.
+ * Not thread-safe: a timer belongs to the thread running the call.
+ */
+final class OperationTimer implements AutoCloseable {
+
+	/**
+	 * Timer returned when nothing is recorded; all its methods are no-ops.
+	 */
+	static final OperationTimer DISABLED = new OperationTimer();
+
+	private final DaoOperation operation;
+	private final boolean recorded;
+	private final DaoOperationEvent event;
+	private final long startNanos;
+	private long acquireNanos;
+	private long rows;
+	private boolean succeeded;
+	private boolean closed;
+
+	private OperationTimer() {
+		this.operation = null;
+		this.recorded = false;
+		this.event = null;
+		this.startNanos = 0;
+	}
+
+	OperationTimer(DaoOperation operation, boolean recorded) {
+		this.operation = operation;
+		this.recorded = recorded;
+		this.event = new DaoOperationEvent();
+		this.event.begin();
+		this.startNanos = System.nanoTime();
+	}
+
+	/**
+	 * Borrows a read-only connection, timing how long it took.
+	 *
+	 * @see DataSourceFactory#getReadDataSource()
+	 */
+	Connection connectReader() throws SQLException {
+		return connect(DataSourceFactory.getReadDataSource());
+	}
+
+	/**
+	 * Borrows a connection that can write, timing how long it took.
+	 *
+	 * @see DataSourceFactory#getWriteDataSource()
+	 */
+	Connection connectWriter() throws SQLException {
+		return connect(DataSourceFactory.getWriteDataSource());
+	}
+
+	private Connection connect(DataSource dataSource) throws SQLException {
+		if (operation == null) {
+			return dataSource.getConnection();
+		}
+		long start = System.nanoTime();
+		try {
+			return dataSource.getConnection();
+		} finally {
+			acquireNanos += System.nanoTime() - start;
+		}
+	}
+
+	/**
+	 * Marks the call as successful.
+	 *
+	 * @param rowCount the number of rows read or written
+	 */
+	void succeeded(long rowCount) {
+		this.rows = rowCount;
+		this.succeeded = true;
+	}
+
+	@Override
+	public void close() {
+		if (operation == null || closed) {
+			return;
+		}
+		closed = true;
+		if (recorded) {
+			operation.record(System.nanoTime() - startNanos, acquireNanos, rows, succeeded);
+		}
+		event.end();
+		if (event.shouldCommit()) {
+			event.operation = operation.getName();
+			event.rows = rows;
+			event.acquireTime = acquireNanos;
+			event.succeeded = succeeded;
+			event.commit();
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package fr.isen.java2.db.daos;
+
+import java.time.Duration;
+
+/**
+ * Sizing and housekeeping settings of the {@link ConnectionPool}.
+ *
+ * The defaults can be overridden with system properties, so the pool can be
+ * sized without recompiling (e.g. -Dmovies.pool.maxSize=16).
+ *
+ * @param minSize            number of connections kept open even when idle
+ * @param maxSize            hard upper bound of physical connections
+ * @param acquireTimeout     how long getConnection() waits for a free connection
+ * @param idleTimeout        idle connections above minSize are closed after this delay
+ * @param validationTimeout  timeout given to Connection.isValid() before reuse
+ * @param statementCacheSize prepared statements kept open per connection (0 disables the cache)
+ */
+public record PoolConfig(int minSize, int maxSize, Duration acquireTimeout, Duration idleTimeout,
+		Duration validationTimeout, int statementCacheSize) {
+
+	public static final int DEFAULT_MIN_SIZE = 1;
+	public static final int DEFAULT_MAX_SIZE = 8;
+	public static final long DEFAULT_ACQUIRE_TIMEOUT_MILLIS = 30_000;
+	public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 600_000;
+	public static final long DEFAULT_VALIDATION_TIMEOUT_MILLIS = 2_000;
+	public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+
+	public PoolConfig {
+		if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+			throw new IllegalArgumentException(
+					"Invalid pool size: min=" + minSize + ", max=" + maxSize);
+		}
+		if (acquireTimeout.isNegative() || idleTimeout.isNegative() || validationTimeout.isNegative()) {
+			throw new IllegalArgumentException("Pool timeouts must not be negative");
+		}
+		if (statementCacheSize < 0) {
+			throw new IllegalArgumentException("Invalid statement cache size: " + statementCacheSize);
+		}
+	}
+
+	/**
+	 * @return a copy of this configuration with another pool size
+	 */
+	public PoolConfig withSize(int minSize, int maxSize) {
+		return new PoolConfig(minSize, maxSize, acquireTimeout, idleTimeout, validationTimeout, statementCacheSize);
+	}
+
+	/**
+	 * @return the default configuration, overridden by any movies.pool.* system property
+	 */
+	public static PoolConfig fromSystemProperties() {
+		return new PoolConfig(
+			Integer.getInteger("movies.pool.minSize", DEFAULT_MIN_SIZE),
+			Integer.getInteger("movies.pool.maxSize", DEFAULT_MAX_SIZE),
+			Duration.ofMillis(Long.getLong("movies.pool.acquireTimeoutMillis", DEFAULT_ACQUIRE_TIMEOUT_MILLIS)),
+			Duration.ofMillis(Long.getLong("movies.pool.idleTimeoutMillis", DEFAULT_IDLE_TIMEOUT_MILLIS)),
+			Duration.ofMillis(Long.getLong("movies.pool.validationTimeoutMillis", DEFAULT_VALIDATION_TIMEOUT_MILLIS)),
+			Integer.getInteger("movies.pool.statementCacheSize", DEFAULT_STATEMENT_CACHE_SIZE)
+		);
+	}
+}
@@ -0,0 +1,26 @@
+package fr.isen.java2.db.daos;
+
+import java.time.Duration;
+
+/**
+ * Point-in-time view of a {@link ConnectionPool}, used to size it.
+ *
+ * @param active           connections currently borrowed by callers
+ * @param idle             open connections waiting in the pool
+ * @param waiters          threads blocked in getConnection()
+ * @param acquired         total number of successful acquisitions
+ * @param created          physical connections opened since start
+ * @param timeouts         acquisitions that gave up after acquireTimeout
+ * @param totalAcquireWait cumulated time spent waiting for a connection
+ * @param maxAcquireWait   longest single wait for a connection
+ */
+public record PoolStats(int active, int idle, int waiters, long acquired, long created, long timeouts,
+		Duration totalAcquireWait, Duration maxAcquireWait) {
+
+	/**
+	 * @return the mean time a caller waited for a connection
+	 */
+	public Duration averageAcquireWait() {
+		return acquired == 0 ? Duration.ZERO : totalAcquireWait.dividedBy(acquired);
+	}
+}
@@ -0,0 +1,202 @@
+package fr.isen.java2.db.daos;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Cache of query results by key, bounded by a total weight, with a time to live
+ * and least-recently-used eviction.
+ *
+ * Loading is single-flight: when several threads miss the same key, one of
+ * them runs the query and the others wait for its result. A load is only stored
+ * if no invalidation happened while it ran, so a result read before a write is
+ * never cached after that write.
+ *
+ * @param <K> the query parameters
+ * @param <V> the query result; it is shared by all the callers
+ */
+final class ResultCache<K, V> {
+
+	private record Entry<V>(V value, int weight, long loadedAt) {
+	}
+
+	private final long maxWeight;
+	private final long ttlNanos;
+	private final ToIntFunction<V> weigher;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	// Iterated from the least recently used entry
+	private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<K, CompletableFuture<V>> loading = new HashMap<>();
+	private long weight;
+	// Incremented by every invalidation; a load started before is not stored
+	private long generation;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder loads = new LongAdder();
+	private final LongAdder loadFailures = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder loadNanos = new LongAdder();
+
+	/**
+	 * @param maxWeight the maximum total weight of the cached results
+	 * @param ttl       how long a result is served after it was loaded
+	 * @param weigher   the weight of a result, e.g. its number of rows
+	 */
+	ResultCache(long maxWeight, Duration ttl, ToIntFunction<V> weigher) {
+		if (maxWeight < 1) {
+			throw new IllegalArgumentException("Maximum weight must be positive: " + maxWeight);
+		}
+		if (ttl.isNegative() || ttl.isZero()) {
+			throw new IllegalArgumentException("Time to live must be positive: " + ttl);
+		}
+		this.maxWeight = maxWeight;
+		this.ttlNanos = ttl.toNanos();
+		this.weigher = weigher;
+	}
+
+	/**
+	 * Returns the cached result of a key, or loads it.
+	 *
+	 * @param loader runs the query; its exceptions are thrown to every caller waiting for it
+	 */
+	V get(K key, Function<K, V> loader) {
+		CompletableFuture<V> pending;
+		boolean owner = false;
+		long loadGeneration;
+		lock.lock();
+		try {
+			Entry<V> entry = entries.get(key);
+			if (entry != null) {
+				if (System.nanoTime() - entry.loadedAt() < ttlNanos) {
+					hits.increment();
+					return entry.value();
+				}
+				remove(key);
+			}
+			misses.increment();
+			pending = loading.get(key);
+			if (pending == null) {
+				pending = new CompletableFuture<>();
+				loading.put(key, pending);
+				owner = true;
+			}
+			loadGeneration = generation;
+		} finally {
+			lock.unlock();
+		}
+
+		if (owner) {
+			return load(key, loader, pending, loadGeneration);
+		}
+		try {
+			return pending.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Drops the result of a key. A load of it running concurrently will not be stored.
+	 */
+	void invalidate(K key) {
+		lock.lock();
+		try {
+			generation++;
+			remove(key);
+			loading.remove(key);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Drops all the results.
+	 */
+	void invalidateAll() {
+		lock.lock();
+		try {
+			generation++;
+			entries.clear();
+			weight = 0;
+			loading.clear();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	CacheStats getStats() {
+		return new CacheStats(hits.sum(), misses.sum(), loads.sum(), loadFailures.sum(), evictions.sum(),
+				Duration.ofNanos(loadNanos.sum()));
+	}
+
+	private V load(K key, Function<K, V> loader, CompletableFuture<V> pending, long loadGeneration) {
+		long start = System.nanoTime();
+		V value;
+		try {
+			value = loader.apply(key);
+		} catch (RuntimeException e) {
+			loadFailures.increment();
+			lock.lock();
+			try {
+				loading.remove(key, pending);
+			} finally {
+				lock.unlock();
+			}
+			pending.completeExceptionally(e);
+			throw e;
+		} finally {
+			loads.increment();
+			loadNanos.add(System.nanoTime() - start);
+		}
+
+		lock.lock();
+		try {
+			loading.remove(key, pending);
+			if (generation == loadGeneration) {
+				store(key, new Entry<>(value, Math.max(1, weigher.applyAsInt(value)), System.nanoTime()));
+			}
+		} finally {
+			lock.unlock();
+		}
+		pending.complete(value);
+		return value;
+	}
+
+	private void store(K key, Entry<V> entry) {
+		// A result heavier than the whole cache is not kept
+		if (entry.weight() > maxWeight) {
+			return;
+		}
+		remove(key);
+		entries.put(key, entry);
+		weight += entry.weight();
+		Iterator<Entry<V>> leastRecentlyUsed = entries.values().iterator();
+		while (weight > maxWeight) {
+			Entry<V> evicted = leastRecentlyUsed.next();
+			leastRecentlyUsed.remove();
+			weight -= evicted.weight();
+			evictions.increment();
+		}
+	}
+
+	private void remove(K key) {
+		Entry<V> removed = entries.remove(key);
+		if (removed != null) {
+			weight -= removed.weight();
+		}
+	}
+}
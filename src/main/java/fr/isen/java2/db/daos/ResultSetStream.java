@@ -0,0 +1,132 @@
+package fr.isen.java2.db.daos;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily populated Stream backed by an open database cursor.
+ *
+ * Rows are mapped one at a time as the stream is consumed, so memory use does
+ * not depend on the number of rows. The stream owns the connection, statement
+ * and ResultSet: it must be closed (try-with-resources) to release them.
+ * The operation is timed until the stream is closed, with the number of rows consumed.
+ */
+final class ResultSetStream {
+
+	/**
+	 * Binds the query parameters before execution.
+	 */
+	@FunctionalInterface
+	interface ParameterSetter {
+		void setParameters(PreparedStatement statement) throws SQLException;
+	}
+
+	private ResultSetStream() {
+		throw new IllegalStateException("This is a static class that should not be instantiated");
+	}
+
+	/**
+	 * Executes the query on a connection of the read pool and returns its rows as a Stream.
+	 * If anything fails before the Stream is returned, the connection is released.
+	 *
+	 * @param operation  the operation recorded in the {@link DaoMetrics}
+	 * @param sqlQuery   the SELECT to run
+	 * @param fetchSize  hint for the number of rows fetched per round trip
+	 * @param parameters binds the query parameters
+	 * @param rowMappers binds the row mapper to the columns of the result
+	 */
+	static <T> Stream<T> open(DaoOperation operation, String sqlQuery, int fetchSize, ParameterSetter parameters,
+			RowMapperFactory<T> rowMappers)
+			throws SQLException {
+		if (fetchSize < 1) {
+			throw new IllegalArgumentException("Fetch size must be positive: " + fetchSize);
+		}
+		OperationTimer timer = operation.start();
+		Connection connection = null;
+		PreparedStatement statement = null;
+		ResultSet resultSet = null;
+		try {
+			connection = timer.connectReader();
+			statement = connection.prepareStatement(sqlQuery, ResultSet.TYPE_FORWARD_ONLY,
+					ResultSet.CONCUR_READ_ONLY);
+			statement.setFetchSize(fetchSize);
+			parameters.setParameters(statement);
+			resultSet = statement.executeQuery();
+			resultSet.setFetchSize(fetchSize);
+			RowMapper<T> rowMapper = rowMappers.create(resultSet);
+
+			AutoCloseable resources = closeAll(resultSet, statement, connection);
+			CursorSpliterator<T> cursor = new CursorSpliterator<>(resultSet, rowMapper);
+			return StreamSupport.stream(cursor, false)
+					.onClose(() -> {
+						try (timer) {
+							resources.close();
+							if (!cursor.failed) {
+								timer.succeeded(cursor.rows);
+							}
+						} catch (Exception e) {
+							throw new RuntimeException("Error while closing the database cursor", e);
+						}
+					});
+		} catch (SQLException | RuntimeException e) {
+			try {
+				closeAll(resultSet, statement, connection).close();
+			} catch (Exception suppressed) {
+				e.addSuppressed(suppressed);
+			} finally {
+				timer.close();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Closes the resources in the given order, even if one of them fails.
+	 */
+	private static AutoCloseable closeAll(ResultSet resultSet, PreparedStatement statement, Connection connection) {
+		return () -> {
+			try (connection; statement; resultSet) {
+				// try-with-resources closes them in reverse declaration order
+			}
+		};
+	}
+
+	/**
+	 * Advances the cursor each time the stream asks for an element.
+	 */
+	private static final class CursorSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+		private final ResultSet resultSet;
+		private final RowMapper<T> rowMapper;
+		private long rows;
+		private boolean failed;
+
+		CursorSpliterator(ResultSet resultSet, RowMapper<T> rowMapper) {
+			super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+			this.resultSet = resultSet;
+			this.rowMapper = rowMapper;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			try {
+				if (!resultSet.next()) {
+					return false;
+				}
+				T row = rowMapper.mapRow(resultSet);
+				rows++;
+				action.accept(row);
+				return true;
+			} catch (SQLException e) {
+				failed = true;
+				throw new RuntimeException("Error while reading the database cursor", e);
+			}
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package fr.isen.java2.db.daos;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs DAO operations again when they fail because the database is busy or
+ * locked, following the current {@link RetryPolicy}.
+ *
+ * Reads are always safe to run again. A write is only retried when its failure
+ * left nothing behind: in SQLite a busy statement is not applied at all, so this
+ * holds for single auto-committed statements, and for transactions as long as
+ * they were rolled back (a failed rollback is attached to the error as a suppressed
+ * SQLException, see {@link BatchInsert}, and stops the retries).
+ */
+final class Retries {
+
+	// Primary result codes; extended codes (e.g. SQLITE_BUSY_SNAPSHOT) keep them in the low byte
+	private static final int SQLITE_BUSY = 5;
+	private static final int SQLITE_LOCKED = 6;
+
+	private static volatile RetryPolicy policy = RetryPolicy.fromSystemProperties();
+
+	private static final LongAdder BUSY_ERRORS = new LongAdder();
+	private static final LongAdder RETRIES = new LongAdder();
+	private static final LongAdder EXHAUSTED = new LongAdder();
+	private static final LongAdder LOCK_WAIT_NANOS = new LongAdder();
+
+	/**
+	 * One attempt of an operation.
+	 */
+	@FunctionalInterface
+	interface SqlCall<T> {
+		T call() throws SQLException;
+	}
+
+	private Retries() {
+		throw new IllegalStateException("This is a static class that should not be instantiated");
+	}
+
+	static RetryPolicy getPolicy() {
+		return policy;
+	}
+
+	static void setPolicy(RetryPolicy retryPolicy) {
+		policy = retryPolicy;
+	}
+
+	/**
+	 * Runs a read, retrying it on busy and locked errors.
+	 */
+	static <T> T read(SqlCall<T> call) throws SQLException {
+		return run(call, false);
+	}
+
+	/**
+	 * Runs a write, retrying it on busy and locked errors unless its rollback failed.
+	 */
+	static <T> T write(SqlCall<T> call) throws SQLException {
+		return run(call, true);
+	}
+
+	static ContentionStats getStats() {
+		return new ContentionStats(BUSY_ERRORS.sum(), RETRIES.sum(), EXHAUSTED.sum(),
+				Duration.ofNanos(LOCK_WAIT_NANOS.sum()));
+	}
+
+	static void resetStats() {
+		BUSY_ERRORS.reset();
+		RETRIES.reset();
+		EXHAUSTED.reset();
+		LOCK_WAIT_NANOS.reset();
+	}
+
+	/**
+	 * @return true if the error, or one of its causes, is SQLITE_BUSY or SQLITE_LOCKED
+	 */
+	static boolean isBusy(Throwable error) {
+		for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+			if (cause instanceof SQLException sqlException) {
+				int resultCode = sqlException.getErrorCode() & 0xFF;
+				if (resultCode == SQLITE_BUSY || resultCode == SQLITE_LOCKED) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static <T> T run(SqlCall<T> call, boolean write) throws SQLException {
+		RetryPolicy retryPolicy = policy;
+		long start = System.nanoTime();
+		for (int attempt = 1;; attempt++) {
+			long attemptStart = System.nanoTime();
+			try {
+				return call.call();
+			} catch (SQLException e) {
+				if (!isBusy(e)) {
+					throw e;
+				}
+				long now = System.nanoTime();
+				BUSY_ERRORS.increment();
+				LOCK_WAIT_NANOS.add(now - attemptStart);
+				long backoff = retryPolicy.backoffNanos(attempt);
+				boolean retriable = !(write && rollbackFailed(e))
+						&& attempt < retryPolicy.maxAttempts()
+						&& now + backoff - start <= retryPolicy.maxElapsed().toNanos();
+				if (!retriable) {
+					EXHAUSTED.increment();
+					throw e;
+				}
+				try {
+					TimeUnit.NANOSECONDS.sleep(backoff);
+				} catch (InterruptedException interrupted) {
+					Thread.currentThread().interrupt();
+					throw e;
+				} finally {
+					LOCK_WAIT_NANOS.add(System.nanoTime() - now);
+				}
+				RETRIES.increment();
+			}
+		}
+	}
+
+	/**
+	 * @return true if the error carries a failed rollback (see {@link BatchInsert})
+	 */
+	static boolean rollbackFailed(Exception error) {
+		for (Throwable suppressed : error.getSuppressed()) {
+			if (suppressed instanceof SQLException) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
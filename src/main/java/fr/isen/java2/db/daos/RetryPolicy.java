@@ -0,0 +1,68 @@
+package fr.isen.java2.db.daos;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How the DAOs retry an operation that failed because the database was busy or
+ * locked (SQLITE_BUSY, SQLITE_LOCKED), e.g. while another process holds the write lock.
+ *
+ * Each attempt already waits up to the connection's busy_timeout (see
+ * {@link SqliteSettings}) inside SQLite. When it still fails, the operation is run
+ * again after an exponential backoff with jitter, until maxAttempts or maxElapsed
+ * is reached. The defaults can be overridden with movies.retry.* system properties.
+ *
+ * @param maxAttempts    attempts in total, the first one included (1 disables retries)
+ * @param initialBackoff wait before the second attempt, doubled for each following one
+ * @param maxBackoff     upper bound of a single wait
+ * @param maxElapsed     no new attempt is started past this time after the first one
+ */
+public record RetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff, Duration maxElapsed) {
+
+	public static final int DEFAULT_MAX_ATTEMPTS = 5;
+	public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 10;
+	public static final long DEFAULT_MAX_BACKOFF_MILLIS = 1_000;
+	public static final long DEFAULT_MAX_ELAPSED_MILLIS = 10_000;
+
+	/**
+	 * Policy running every operation once.
+	 */
+	public static final RetryPolicy NO_RETRY = new RetryPolicy(1, Duration.ZERO, Duration.ZERO, Duration.ZERO);
+
+	public RetryPolicy {
+		if (maxAttempts < 1) {
+			throw new IllegalArgumentException("Invalid number of attempts: " + maxAttempts);
+		}
+		if (initialBackoff.isNegative() || maxBackoff.isNegative() || maxElapsed.isNegative()) {
+			throw new IllegalArgumentException("Retry durations must not be negative");
+		}
+	}
+
+	/**
+	 * @return the default policy, overridden by any movies.retry.* system property
+	 */
+	public static RetryPolicy fromSystemProperties() {
+		return new RetryPolicy(
+			Integer.getInteger("movies.retry.maxAttempts", DEFAULT_MAX_ATTEMPTS),
+			Duration.ofMillis(Long.getLong("movies.retry.initialBackoffMillis", DEFAULT_INITIAL_BACKOFF_MILLIS)),
+			Duration.ofMillis(Long.getLong("movies.retry.maxBackoffMillis", DEFAULT_MAX_BACKOFF_MILLIS)),
+			Duration.ofMillis(Long.getLong("movies.retry.maxElapsedMillis", DEFAULT_MAX_ELAPSED_MILLIS))
+		);
+	}
+
+	/**
+	 * Returns the wait before the given retry: the exponential backoff, of which a
+	 * random half is kept, so that writers failing together do not retry together.
+	 *
+	 * @param retry 1 for the wait before the second attempt, 2 before the third...
+	 * @return the wait in nanoseconds
+	 */
+	long backoffNanos(int retry) {
+		long backoff = initialBackoff.toNanos() << Math.min(retry - 1, 30);
+		if (backoff < 0 || backoff > maxBackoff.toNanos()) {
+			backoff = maxBackoff.toNanos();
+		}
+		long half = backoff / 2;
+		return half + (half == 0 ? 0 : ThreadLocalRandom.current().nextLong(half + 1));
+	}
+}
@@ -0,0 +1,19 @@
+package fr.isen.java2.db.daos;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a ResultSet to an object.
+ *
+ * @param <T> the type of object created for each row
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+	/**
+	 * @param resultSet a ResultSet positioned on a row; implementations must not call next()
+	 * @return the object built from the current row
+	 */
+	T mapRow(ResultSet resultSet) throws SQLException;
+}
@@ -0,0 +1,31 @@
+package fr.isen.java2.db.daos;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Creates a {@link RowMapper} bound to the columns of one result.
+ *
+ * Looking a column up by label (getInt("idmovie")) costs a label-to-index search
+ * for every column of every row. A factory resolves the column positions once
+ * from the ResultSetMetaData, and the mapper it returns reads each row by index.
+ *
+ * @param <T> the type of object created for each row
+ */
+@FunctionalInterface
+public interface RowMapperFactory<T> {
+
+	/**
+	 * @param metaData the description of the result the mapper will read
+	 * @return a mapper reading columns by their position in this result
+	 */
+	RowMapper<T> create(ResultSetMetaData metaData) throws SQLException;
+
+	/**
+	 * @return a mapper bound to the columns of this ResultSet
+	 */
+	default RowMapper<T> create(ResultSet resultSet) throws SQLException {
+		return create(resultSet.getMetaData());
+	}
+}
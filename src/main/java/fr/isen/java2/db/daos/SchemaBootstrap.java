@@ -0,0 +1,136 @@
+package fr.isen.java2.db.daos;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.sql.DataSource;
+
+/**
+ * Creates and upgrades the SQLite schema when the application starts.
+ *
+ * The schema is a list of versioned scripts (src/main/resources/sql/sqlite/Vn__*.sql).
+ * The version reached by a database is stored in its PRAGMA user_version, and each
+ * missing script runs in its own transaction together with the version bump, so a
+ * failed script leaves the database at the previous version. The scripts also use
+ * IF NOT EXISTS, so databases created by hand (like the test database) are
+ * upgraded in place.
+ */
+final class SchemaBootstrap {
+
+	/**
+	 * The migration scripts, in order. Script n brings the database to version n.
+	 */
+	static final List<String> MIGRATIONS = List.of(
+		"/sql/sqlite/V1__schema.sql",
+		"/sql/sqlite/V2__movie_search.sql",
+		"/sql/sqlite/V3__movie_query_indexes.sql",
+		"/sql/sqlite/V4__change_log.sql",
+		"/sql/sqlite/V5__release_date_text.sql"
+	);
+
+	private SchemaBootstrap() {
+		throw new IllegalStateException("This is a static class that should not be instantiated");
+	}
+
+	/**
+	 * Runs the scripts the database has not seen yet.
+	 *
+	 * @return the schema version of the database after the migration
+	 */
+	static int migrate(DataSource dataSource) throws SQLException {
+		try (Connection connection = dataSource.getConnection()) {
+			int version = readVersion(connection);
+			for (int next = version + 1; next <= MIGRATIONS.size(); next++) {
+				apply(connection, next, loadStatements(MIGRATIONS.get(next - 1)));
+				version = next;
+			}
+			return version;
+		}
+	}
+
+	private static int readVersion(Connection connection) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement("PRAGMA user_version");
+			 ResultSet resultSet = statement.executeQuery()) {
+			return resultSet.next() ? resultSet.getInt(1) : 0;
+		}
+	}
+
+	private static void apply(Connection connection, int version, List<String> statements) throws SQLException {
+		connection.setAutoCommit(false);
+		try (Statement statement = connection.createStatement()) {
+			for (String sql : statements) {
+				statement.execute(sql);
+			}
+			// PRAGMA cannot take bind parameters; version is an int
+			statement.execute("PRAGMA user_version = " + version);
+			connection.commit();
+		} catch (SQLException e) {
+			connection.rollback();
+			throw new SQLException("Error while migrating the schema to version " + version, e);
+		} finally {
+			connection.setAutoCommit(true);
+		}
+	}
+
+	/**
+	 * Reads a script and splits it into statements.
+	 */
+	static List<String> loadStatements(String resource) {
+		try (InputStream input = SchemaBootstrap.class.getResourceAsStream(resource)) {
+			if (input == null) {
+				throw new IllegalStateException("Schema script not found on the classpath: " + resource);
+			}
+			return splitStatements(new String(input.readAllBytes(), StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			throw new IllegalStateException("Error while reading schema script: " + resource, e);
+		}
+	}
+
+	/**
+	 * Splits a script on the semicolons ending a line, skipping "--" comment lines.
+	 * The semicolons inside a CREATE TRIGGER body do not end the statement: it ends
+	 * with the "END;" line.
+	 */
+	static List<String> splitStatements(String script) {
+		List<String> statements = new ArrayList<>();
+		StringBuilder current = new StringBuilder();
+		boolean inTrigger = false;
+
+		for (String line : script.split("\\R")) {
+			String trimmed = line.trim();
+			if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+				continue;
+			}
+			String upper = trimmed.toUpperCase(Locale.ROOT);
+			if (current.length() == 0 && upper.startsWith("CREATE TRIGGER")) {
+				inTrigger = true;
+			}
+			current.append(line).append('\n');
+
+			boolean endsStatement = inTrigger ? upper.equals("END;") : trimmed.endsWith(";");
+			if (endsStatement) {
+				String statement = current.toString().trim();
+				if (!inTrigger) {
+					// The JDBC statement does not need the final semicolon
+					statement = statement.substring(0, statement.length() - 1);
+				}
+				statements.add(statement);
+				current.setLength(0);
+				inTrigger = false;
+			}
+		}
+		if (current.toString().trim().length() > 0) {
+			statements.add(current.toString().trim());
+		}
+		return statements;
+	}
+}
@@ -0,0 +1,111 @@
+package fr.isen.java2.db.daos;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * SQLite PRAGMA settings applied to every new pooled connection.
+ *
+ * The defaults favour throughput: a write-ahead log lets readers run while a
+ * writer commits, synchronous=NORMAL is durable in WAL mode except across a power
+ * loss, and memory-mapped I/O plus a larger page cache avoid read() calls.
+ * Each value can be overridden with a movies.sqlite.* system property.
+ *
+ * @param journalMode PRAGMA journal_mode (WAL, DELETE, TRUNCATE, PERSIST, MEMORY, OFF)
+ * @param synchronous PRAGMA synchronous (OFF, NORMAL, FULL, EXTRA)
+ * @param mmapSize    PRAGMA mmap_size in bytes (0 disables memory-mapped I/O)
+ * @param cacheSize   PRAGMA cache_size: pages if positive, KiB if negative
+ * @param tempStore   PRAGMA temp_store (DEFAULT, FILE, MEMORY)
+ * @param busyTimeoutMillis PRAGMA busy_timeout: how long a statement waits for a lock
+ *                    held by another connection before failing with SQLITE_BUSY
+ *                    (then retried by the DAOs, see {@link RetryPolicy})
+ */
+public record SqliteSettings(String journalMode, String synchronous, long mmapSize, int cacheSize,
+		String tempStore, long busyTimeoutMillis) {
+
+	public static final String DEFAULT_JOURNAL_MODE = "WAL";
+	public static final String DEFAULT_SYNCHRONOUS = "NORMAL";
+	public static final long DEFAULT_MMAP_SIZE = 256L * 1024 * 1024;
+	public static final int DEFAULT_CACHE_SIZE = -16 * 1024;
+	public static final String DEFAULT_TEMP_STORE = "MEMORY";
+	public static final long DEFAULT_BUSY_TIMEOUT_MILLIS = 1_000;
+
+	private static final Set<String> JOURNAL_MODES = Set.of("WAL", "DELETE", "TRUNCATE", "PERSIST", "MEMORY", "OFF");
+	private static final Set<String> SYNCHRONOUS_MODES = Set.of("OFF", "NORMAL", "FULL", "EXTRA");
+	private static final Set<String> TEMP_STORES = Set.of("DEFAULT", "FILE", "MEMORY");
+
+	public SqliteSettings {
+		// The values end up in PRAGMA statements, which cannot take bind parameters
+		journalMode = checked("journal_mode", journalMode, JOURNAL_MODES);
+		synchronous = checked("synchronous", synchronous, SYNCHRONOUS_MODES);
+		tempStore = checked("temp_store", tempStore, TEMP_STORES);
+		if (mmapSize < 0) {
+			throw new IllegalArgumentException("Invalid mmap_size: " + mmapSize);
+		}
+		if (busyTimeoutMillis < 0 || busyTimeoutMillis > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Invalid busy_timeout: " + busyTimeoutMillis);
+		}
+	}
+
+	/**
+	 * @return the default settings, overridden by any movies.sqlite.* system property
+	 */
+	public static SqliteSettings fromSystemProperties() {
+		return new SqliteSettings(
+			System.getProperty("movies.sqlite.journalMode", DEFAULT_JOURNAL_MODE),
+			System.getProperty("movies.sqlite.synchronous", DEFAULT_SYNCHRONOUS),
+			Long.getLong("movies.sqlite.mmapSize", DEFAULT_MMAP_SIZE),
+			Integer.getInteger("movies.sqlite.cacheSize", DEFAULT_CACHE_SIZE),
+			System.getProperty("movies.sqlite.tempStore", DEFAULT_TEMP_STORE),
+			Long.getLong("movies.sqlite.busyTimeoutMillis", DEFAULT_BUSY_TIMEOUT_MILLIS)
+		);
+	}
+
+	/**
+	 * @return the PRAGMA statements matching these settings
+	 */
+	public List<String> toPragmas() {
+		return List.of(
+			"PRAGMA journal_mode=" + journalMode,
+			"PRAGMA synchronous=" + synchronous,
+			"PRAGMA mmap_size=" + mmapSize,
+			"PRAGMA cache_size=" + cacheSize,
+			"PRAGMA temp_store=" + tempStore,
+			"PRAGMA busy_timeout=" + busyTimeoutMillis
+		);
+	}
+
+	/**
+	 * Applies the settings to a new connection. Used as the pool's connection initializer.
+	 */
+	public void apply(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			for (String pragma : toPragmas()) {
+				statement.execute(pragma);
+			}
+		}
+	}
+
+	/**
+	 * Applies the settings to a new connection, then makes it read-only
+	 * (PRAGMA query_only): any write on it fails. Used by the read pool.
+	 */
+	public void applyReadOnly(Connection connection) throws SQLException {
+		apply(connection);
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("PRAGMA query_only=1");
+		}
+	}
+
+	private static String checked(String pragma, String value, Set<String> allowed) {
+		String normalized = value.toUpperCase(Locale.ROOT);
+		if (!allowed.contains(normalized)) {
+			throw new IllegalArgumentException("Invalid " + pragma + ": " + value + " (allowed: " + allowed + ")");
+		}
+		return normalized;
+	}
+}
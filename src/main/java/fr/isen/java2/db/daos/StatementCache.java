@@ -0,0 +1,208 @@
+package fr.isen.java2.db.daos;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU cache of the prepared statements of one pooled physical connection.
+ *
+ * The DAOs run the same constant SQL strings over and over: with this cache,
+ * each of them is parsed and planned once per connection, then reused.
+ * prepareStatement() returns a proxy whose close() only clears the parameters
+ * and gives the statement back to the cache.
+ *
+ * A connection is only used by one borrower at a time, so no locking is needed.
+ * If the same SQL is prepared again while its cached statement is still open,
+ * an ordinary (uncached) statement is returned.
+ */
+final class StatementCache {
+
+	/**
+	 * Identifies a statement: the SQL text and the options it was prepared with.
+	 */
+	record Key(String sql, int autoGeneratedKeys, int resultSetType, int resultSetConcurrency) {
+	}
+
+	/**
+	 * Pool-wide counters, shared by the caches of all connections.
+	 */
+	static final class Counters {
+		final LongAdder hits = new LongAdder();
+		final LongAdder misses = new LongAdder();
+		final LongAdder evictions = new LongAdder();
+
+		StatementCacheStats snapshot() {
+			return new StatementCacheStats(hits.sum(), misses.sum(), evictions.sum());
+		}
+	}
+
+	private final int capacity;
+	private final Counters counters;
+	private final LinkedHashMap<Key, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+	StatementCache(int capacity, Counters counters) {
+		this.capacity = capacity;
+		this.counters = counters;
+	}
+
+	/**
+	 * Returns the cached statement for this key, preparing it on the physical connection on a miss.
+	 *
+	 * @param physical the connection owning this cache
+	 * @param logical  the pooled connection proxy, returned by getConnection() on the statement
+	 */
+	PreparedStatement prepare(Connection physical, Connection logical, Key key) throws SQLException {
+		CachedStatement cached = statements.get(key);
+		if (cached != null && !cached.inUse) {
+			counters.hits.increment();
+			return cached.lend(logical);
+		}
+		counters.misses.increment();
+		PreparedStatement statement = prepareOnPhysical(physical, key);
+		if (cached != null || capacity == 0) {
+			// Same SQL already open on this connection, or caching disabled
+			return statement;
+		}
+		cached = new CachedStatement(statement);
+		statements.put(key, cached);
+		evictIfFull();
+		return cached.lend(logical);
+	}
+
+	/**
+	 * Called when the connection goes back to the pool: statements the borrower
+	 * forgot to close become available again.
+	 */
+	void releaseAll() {
+		for (CachedStatement cached : statements.values()) {
+			if (cached.inUse) {
+				cached.giveBack();
+			}
+		}
+	}
+
+	/**
+	 * Closes every cached statement, before the physical connection is closed.
+	 */
+	void closeAll() {
+		for (CachedStatement cached : statements.values()) {
+			cached.closeQuietly();
+		}
+		statements.clear();
+	}
+
+	private void evictIfFull() {
+		Iterator<Map.Entry<Key, CachedStatement>> leastRecentlyUsed = statements.entrySet().iterator();
+		while (statements.size() > capacity && leastRecentlyUsed.hasNext()) {
+			CachedStatement eldest = leastRecentlyUsed.next().getValue();
+			if (!eldest.inUse) {
+				leastRecentlyUsed.remove();
+				eldest.closeQuietly();
+				counters.evictions.increment();
+			}
+		}
+	}
+
+	private static PreparedStatement prepareOnPhysical(Connection physical, Key key) throws SQLException {
+		if (key.resultSetType() != 0) {
+			return physical.prepareStatement(key.sql(), key.resultSetType(), key.resultSetConcurrency());
+		}
+		return physical.prepareStatement(key.sql(), key.autoGeneratedKeys());
+	}
+
+	/**
+	 * A physical statement owned by the cache.
+	 */
+	private static final class CachedStatement {
+		private final PreparedStatement physical;
+		private boolean inUse;
+		private LentStatement lentTo;
+
+		CachedStatement(PreparedStatement physical) {
+			this.physical = physical;
+		}
+
+		PreparedStatement lend(Connection logical) {
+			inUse = true;
+			lentTo = new LentStatement(this, logical);
+			return (PreparedStatement) Proxy.newProxyInstance(
+				StatementCache.class.getClassLoader(),
+				new Class<?>[] { PreparedStatement.class },
+				lentTo
+			);
+		}
+
+		void giveBack() {
+			lentTo.closed = true;
+			lentTo = null;
+			inUse = false;
+			try {
+				physical.clearParameters();
+				physical.clearBatch();
+			} catch (SQLException e) {
+				// The statement stays usable: the next borrower sets every parameter anyway
+			}
+		}
+
+		void closeQuietly() {
+			try {
+				physical.close();
+			} catch (SQLException e) {
+				// Nothing more we can do with a statement we are throwing away
+			}
+		}
+	}
+
+	/**
+	 * Proxy handler turning close() into a return to the cache.
+	 */
+	private static final class LentStatement implements InvocationHandler {
+		private final CachedStatement cached;
+		private final Connection logical;
+		private boolean closed;
+
+		LentStatement(CachedStatement cached, Connection logical) {
+			this.cached = cached;
+			this.logical = logical;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "close":
+					if (!closed) {
+						cached.giveBack();
+					}
+					return null;
+				case "isClosed":
+					return closed || cached.physical.isClosed();
+				case "getConnection":
+					return logical;
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "CachedStatement[" + cached.physical + "]";
+				default:
+					if (closed) {
+						throw new SQLException("Statement is closed");
+					}
+					try {
+						return method.invoke(cached.physical, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+			}
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package fr.isen.java2.db.daos;
+
+/**
+ * Counters of the prepared statement caches of a {@link ConnectionPool},
+ * summed over all its connections.
+ *
+ * @param hits      prepareStatement() calls served by an already prepared statement
+ * @param misses    prepareStatement() calls that had to prepare a new statement
+ * @param evictions statements closed to make room for more recently used ones
+ */
+public record StatementCacheStats(long hits, long misses, long evictions) {
+
+	/**
+	 * @return the share of prepareStatement() calls served from the cache, between 0 and 1
+	 */
+	public double hitRatio() {
+		long requests = hits + misses;
+		return requests == 0 ? 0 : (double) hits / requests;
+	}
+}
@@ -0,0 +1,118 @@
+package fr.isen.java2.db.entities;
+
+import java.time.LocalDate;
+
+/**
+ * Immutable, memory-lean representation of a movie without its summary, for
+ * catalogs kept in memory.
+ *
+ * Unlike {@link Movie}, the id, duration and release date are primitive ints
+ * (the date as a number of days since 1970-01-01) instead of an Integer, an
+ * Integer and a LocalDate per movie, and the genre is expected to be the shared
+ * canonical instance. Loaded by MovieDao, the director names can also be
+ * deduplicated, so movies of the same director share one String.
+ */
+public final class CompactMovie {
+
+	/**
+	 * Value of {@link #getReleaseEpochDay()} when the release date is unknown.
+	 */
+	public static final int NO_RELEASE_DATE = Integer.MIN_VALUE;
+
+	/**
+	 * Value of {@link #getDuration()} when the duration is unknown.
+	 */
+	public static final int NO_DURATION = -1;
+
+	private final int id;
+	private final int releaseEpochDay;
+	private final int duration;
+	private final String title;
+	private final Genre genre;
+	private final String director;
+
+	/**
+	 * @param releaseEpochDay the release date as an epoch day, or {@link #NO_RELEASE_DATE}
+	 * @param duration        the duration in minutes, or {@link #NO_DURATION}
+	 */
+	public CompactMovie(int id, String title, int releaseEpochDay, Genre genre, int duration, String director) {
+		this.id = id;
+		this.title = title;
+		this.releaseEpochDay = releaseEpochDay;
+		this.genre = genre;
+		this.duration = duration;
+		this.director = director;
+	}
+
+	/**
+	 * @return the compact form of a movie that has an id; its summary is dropped
+	 */
+	public static CompactMovie of(Movie movie) {
+		return new CompactMovie(
+				movie.getId(),
+				movie.getTitle(),
+				movie.getReleaseDate() == null ? NO_RELEASE_DATE : (int) movie.getReleaseDate().toEpochDay(),
+				movie.getGenre(),
+				movie.getDuration() == null ? NO_DURATION : movie.getDuration(),
+				movie.getDirector());
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	/**
+	 * @return the release date as an epoch day, or {@link #NO_RELEASE_DATE}
+	 */
+	public int getReleaseEpochDay() {
+		return releaseEpochDay;
+	}
+
+	public boolean hasReleaseDate() {
+		return releaseEpochDay != NO_RELEASE_DATE;
+	}
+
+	/**
+	 * @return a new LocalDate for the release date, or null if it is unknown
+	 */
+	public LocalDate getReleaseDate() {
+		return hasReleaseDate() ? LocalDate.ofEpochDay(releaseEpochDay) : null;
+	}
+
+	public Genre getGenre() {
+		return genre;
+	}
+
+	/**
+	 * @return the duration in minutes, or {@link #NO_DURATION}
+	 */
+	public int getDuration() {
+		return duration;
+	}
+
+	public boolean hasDuration() {
+		return duration != NO_DURATION;
+	}
+
+	public String getDirector() {
+		return director;
+	}
+
+	/**
+	 * @return a Movie with the fields of this one and the given summary
+	 */
+	public Movie toMovie(String summary) {
+		return new Movie(id, title, getReleaseDate(), genre, hasDuration() ? duration : null, director, summary);
+	}
+
+	@Override
+	public String toString() {
+		return "CompactMovie[id=" + id + ", title=" + title + ", releaseDate=" + getReleaseDate()
+				+ ", genre=" + (genre == null ? null : genre.getName()) + ", duration=" + duration
+				+ ", director=" + director + "]";
+	}
+}
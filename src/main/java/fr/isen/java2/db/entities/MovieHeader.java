@@ -0,0 +1,58 @@
+package fr.isen.java2.db.entities;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only projection of a movie without its summary, for lists that do not
+ * display it. The summary can be loaded on demand from its id.
+ */
+public class MovieHeader {
+
+	private final Integer id;
+	private final String title;
+	private final LocalDate releaseDate;
+	private final Genre genre;
+	private final Integer duration;
+	private final String director;
+
+	public MovieHeader(Integer id, String title, LocalDate releaseDate, Genre genre, Integer duration,
+			String director) {
+		this.id = id;
+		this.title = title;
+		this.releaseDate = releaseDate;
+		this.genre = genre;
+		this.duration = duration;
+		this.director = director;
+	}
+
+	public Integer getId() {
+		return id;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public LocalDate getReleaseDate() {
+		return releaseDate;
+	}
+
+	public Genre getGenre() {
+		return genre;
+	}
+
+	public Integer getDuration() {
+		return duration;
+	}
+
+	public String getDirector() {
+		return director;
+	}
+
+	/**
+	 * @return a Movie with the fields of this header and the given summary
+	 */
+	public Movie withSummary(String summary) {
+		return new Movie(id, title, releaseDate, genre, duration, director, summary);
+	}
+}
@@ -0,0 +1,80 @@
+package fr.isen.java2.db.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Unsynchronized buffered writer of bytes to a channel. The buffer is allocated
+ * once and reused; values larger than it are written straight to the channel.
+ */
+final class ByteOutput {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final WritableByteChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+	private final byte[] digits = new byte[11];
+
+	ByteOutput(WritableByteChannel channel) {
+		this.channel = channel;
+	}
+
+	void write(int b) throws IOException {
+		if (!buffer.hasRemaining()) {
+			flush();
+		}
+		buffer.put((byte) b);
+	}
+
+	void write(byte[] bytes) throws IOException {
+		write(bytes, 0, bytes.length);
+	}
+
+	void write(byte[] bytes, int offset, int length) throws IOException {
+		if (length > buffer.remaining()) {
+			flush();
+			if (length > buffer.capacity()) {
+				drain(ByteBuffer.wrap(bytes, offset, length));
+				return;
+			}
+		}
+		buffer.put(bytes, offset, length);
+	}
+
+	/**
+	 * Writes the decimal digits of a number, without going through a String.
+	 */
+	void writeInt(int value) throws IOException {
+		if (value == Integer.MIN_VALUE) {
+			write(Integer.toString(value).getBytes(StandardCharsets.US_ASCII));
+			return;
+		}
+		if (value < 0) {
+			write('-');
+			value = -value;
+		}
+		int start = digits.length;
+		do {
+			digits[--start] = (byte) ('0' + value % 10);
+			value /= 10;
+		} while (value != 0);
+		write(digits, start, digits.length - start);
+	}
+
+	/**
+	 * Writes the buffered bytes to the channel.
+	 */
+	void flush() throws IOException {
+		buffer.flip();
+		drain(buffer);
+		buffer.clear();
+	}
+
+	private void drain(ByteBuffer bytes) throws IOException {
+		while (bytes.hasRemaining()) {
+			channel.write(bytes);
+		}
+	}
+}
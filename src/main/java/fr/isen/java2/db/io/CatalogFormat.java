@@ -0,0 +1,60 @@
+package fr.isen.java2.db.io;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * File formats of catalog dumps, shared by {@link MovieImporter} and the exporter.
+ *
+ * Both formats hold one movie per record with the fields of {@link #COLUMNS}:
+ * CSV files start with a header row naming them (in any order), NDJSON files
+ * hold one flat JSON object per line. Missing release dates, durations and
+ * summaries are empty CSV fields or JSON nulls. Files may be gzip-compressed.
+ */
+public enum CatalogFormat {
+
+	/** Comma-separated values (RFC 4180), with a header row. */
+	CSV,
+	/** Newline-delimited JSON: one object per line. */
+	NDJSON;
+
+	/**
+	 * The fields of a movie record, by position in the arrays read and written.
+	 */
+	public static final List<String> COLUMNS =
+			List.of("id", "title", "release_date", "genre", "duration", "director", "summary");
+
+	static final int ID = 0;
+	static final int TITLE = 1;
+	static final int RELEASE_DATE = 2;
+	static final int GENRE = 3;
+	static final int DURATION = 4;
+	static final int DIRECTOR = 5;
+	static final int SUMMARY = 6;
+
+	/**
+	 * Guesses the format from a file name: .csv, or .ndjson/.jsonl, optionally followed by .gz.
+	 *
+	 * @throws IllegalArgumentException if the extension is not recognized
+	 */
+	public static CatalogFormat fromFileName(String fileName) {
+		String name = fileName.toLowerCase(Locale.ROOT);
+		if (isGzip(name)) {
+			name = name.substring(0, name.length() - ".gz".length());
+		}
+		if (name.endsWith(".csv")) {
+			return CSV;
+		}
+		if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+			return NDJSON;
+		}
+		throw new IllegalArgumentException("Unknown catalog format: " + fileName);
+	}
+
+	/**
+	 * @return true if the file name ends with .gz
+	 */
+	public static boolean isGzip(String fileName) {
+		return fileName.toLowerCase(Locale.ROOT).endsWith(".gz");
+	}
+}
@@ -0,0 +1,140 @@
+package fr.isen.java2.db.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming RFC 4180 CSV reader: fields may be quoted, with "" for a quote and
+ * line breaks inside quotes. The first row is the header naming the columns.
+ *
+ * Characters are read through an unsynchronized buffer, and the field and record
+ * buffers are reused, so only the field Strings are allocated per record.
+ */
+final class CsvRecordReader implements RecordReader {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final Reader reader;
+	private final char[] buffer = new char[BUFFER_SIZE];
+	private int position;
+	private int limit;
+
+	private final List<String> fields = new ArrayList<>();
+	private final StringBuilder field = new StringBuilder();
+	private final String[] record = new String[CatalogFormat.COLUMNS.size()];
+	private int[] columnOfField;
+	private long line = 1;
+	private long recordLine;
+
+	CsvRecordReader(Reader reader) {
+		this.reader = reader;
+	}
+
+	@Override
+	public String[] next() throws IOException {
+		if (columnOfField == null) {
+			readHeader();
+		}
+		do {
+			recordLine = line;
+			if (!readFields()) {
+				return null;
+			}
+		} while (fields.size() == 1 && fields.get(0).isEmpty());
+
+		Arrays.fill(record, null);
+		for (int i = 0; i < fields.size() && i < columnOfField.length; i++) {
+			int column = columnOfField[i];
+			if (column >= 0) {
+				String value = fields.get(i);
+				record[column] = value.isEmpty() ? null : value;
+			}
+		}
+		return record;
+	}
+
+	@Override
+	public long lineNumber() {
+		return recordLine;
+	}
+
+	private void readHeader() throws IOException {
+		recordLine = line;
+		if (!readFields()) {
+			throw new IllegalArgumentException("Empty CSV file: the header row is missing");
+		}
+		columnOfField = new int[fields.size()];
+		for (int i = 0; i < fields.size(); i++) {
+			// Unknown columns are ignored
+			columnOfField[i] = CatalogFormat.COLUMNS.indexOf(fields.get(i).strip());
+		}
+	}
+
+	/**
+	 * Reads the fields of the next row into fields.
+	 *
+	 * @return false at the end of the input
+	 */
+	private boolean readFields() throws IOException {
+		fields.clear();
+		field.setLength(0);
+		int c = read();
+		if (c == -1) {
+			return false;
+		}
+		boolean quoted = false;
+		while (true) {
+			if (quoted) {
+				if (c == -1) {
+					throw new IllegalArgumentException("Line " + recordLine + ": unterminated quoted field");
+				}
+				if (c == '"') {
+					c = read();
+					if (c == '"') {
+						field.append('"');
+						c = read();
+					} else {
+						quoted = false;
+					}
+					continue;
+				}
+				if (c == '\n') {
+					line++;
+				}
+				field.append((char) c);
+				c = read();
+			} else if (c == '"' && field.length() == 0) {
+				quoted = true;
+				c = read();
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+				c = read();
+			} else if (c == '\n' || c == -1) {
+				fields.add(field.toString());
+				line++;
+				return true;
+			} else {
+				if (c != '\r') {
+					field.append((char) c);
+				}
+				c = read();
+			}
+		}
+	}
+
+	private int read() throws IOException {
+		if (position == limit) {
+			limit = reader.read(buffer, 0, buffer.length);
+			position = 0;
+			if (limit <= 0) {
+				limit = 0;
+				return -1;
+			}
+		}
+		return buffer[position++];
+	}
+}
@@ -0,0 +1,82 @@
+package fr.isen.java2.db.io;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+
+import fr.isen.java2.db.daos.MovieRow;
+
+/**
+ * Writes RFC 4180 CSV with a header row. Fields holding a comma, a quote or a
+ * line break are quoted; NULL values are empty fields. Quotes, commas and line
+ * breaks are ASCII, so the UTF-8 bytes are scanned and copied without decoding.
+ */
+final class CsvRecordWriter implements RecordWriter {
+
+	private static final byte[] HEADER =
+			(String.join(",", CatalogFormat.COLUMNS) + "\n").getBytes(StandardCharsets.US_ASCII);
+
+	private final ByteOutput output;
+
+	CsvRecordWriter(ByteOutput output) {
+		this.output = output;
+	}
+
+	@Override
+	public void begin() throws IOException {
+		output.write(HEADER);
+	}
+
+	@Override
+	public void write(MovieRow row) throws SQLException, IOException {
+		output.writeInt(row.id());
+		output.write(',');
+		writeField(row.title());
+		output.write(',');
+		byte[] releaseDate = row.releaseDate();
+		if (releaseDate != null) {
+			output.write(releaseDate);
+		}
+		output.write(',');
+		writeField(row.genreName());
+		output.write(',');
+		if (row.hasDuration()) {
+			output.writeInt(row.duration());
+		}
+		output.write(',');
+		writeField(row.director());
+		output.write(',');
+		writeField(row.summary());
+		output.write('\n');
+	}
+
+	private void writeField(byte[] value) throws IOException {
+		if (value == null) {
+			return;
+		}
+		if (!needsQuotes(value)) {
+			output.write(value);
+			return;
+		}
+		output.write('"');
+		int start = 0;
+		for (int i = 0; i < value.length; i++) {
+			if (value[i] == '"') {
+				// Copy up to and including the quote, which is then written a second time
+				output.write(value, start, i + 1 - start);
+				start = i;
+			}
+		}
+		output.write(value, start, value.length - start);
+		output.write('"');
+	}
+
+	private static boolean needsQuotes(byte[] value) {
+		for (byte b : value) {
+			if (b == ',' || b == '"' || b == '\n' || b == '\r') {
+				return true;
+			}
+		}
+		return false;
+	}
+}
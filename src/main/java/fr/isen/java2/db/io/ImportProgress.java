@@ -0,0 +1,23 @@
+package fr.isen.java2.db.io;
+
+import java.time.Duration;
+
+/**
+ * Progress of a {@link MovieImporter} run, reported after each committed batch
+ * and returned at the end.
+ *
+ * @param rows          the number of movies imported so far
+ * @param bytesRead     the number of bytes read from the input so far (compressed bytes for gzip files)
+ * @param genresCreated the number of genres missing from the database and added
+ * @param elapsed       the time since the import started
+ */
+public record ImportProgress(long rows, long bytesRead, int genresCreated, Duration elapsed) {
+
+	/**
+	 * @return the average throughput since the import started
+	 */
+	public double rowsPerSecond() {
+		long nanos = elapsed.toNanos();
+		return nanos == 0 ? 0 : rows * 1e9 / nanos;
+	}
+}
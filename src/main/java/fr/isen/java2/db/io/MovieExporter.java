@@ -0,0 +1,122 @@
+package fr.isen.java2.db.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+import fr.isen.java2.db.daos.MovieDao;
+
+/**
+ * Streaming export of the whole catalog to CSV or NDJSON (see {@link CatalogFormat}),
+ * optionally gzipped, in the format read back by {@link MovieImporter}.
+ *
+ * The rows of the movie JOIN genre query go straight from the cursor to the
+ * output (see {@link MovieDao#forEachMovieRow(fr.isen.java2.db.daos.MovieRowHandler)}):
+ * no Movie or String is built, their UTF-8 bytes are escaped into one reused
+ * buffer. Memory use does not depend on the size of the catalog.
+ * <pre>
+ * long rows = new MovieExporter().exportFile(Path.of("movies.ndjson.gz"));
+ * </pre>
+ */
+public class MovieExporter {
+
+	private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+	private final MovieDao movieDao;
+
+	public MovieExporter() {
+		this(new MovieDao());
+	}
+
+	public MovieExporter(MovieDao movieDao) {
+		this.movieDao = movieDao;
+	}
+
+	/**
+	 * Exports to a file whose format is given by its extension (see {@link CatalogFormat#fromFileName(String)}),
+	 * replacing it if it exists.
+	 *
+	 * @return the number of exported movies
+	 */
+	public long exportFile(Path file) throws IOException {
+		String fileName = file.getFileName().toString();
+		CatalogFormat format = CatalogFormat.fromFileName(fileName);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			return exportTo(channel, format, CatalogFormat.isGzip(fileName));
+		}
+	}
+
+	/**
+	 * Exports to a stream, which is flushed but not closed.
+	 *
+	 * @param gzip true to compress the output
+	 * @return the number of exported movies
+	 */
+	public long exportTo(OutputStream output, CatalogFormat format, boolean gzip) throws IOException {
+		long rows = exportTo(Channels.newChannel(output), format, gzip);
+		output.flush();
+		return rows;
+	}
+
+	/**
+	 * Exports to a channel, which is not closed.
+	 *
+	 * @param gzip true to compress the output
+	 * @return the number of exported movies
+	 */
+	public long exportTo(WritableByteChannel channel, CatalogFormat format, boolean gzip) throws IOException {
+		UnclosedChannel target = new UnclosedChannel(channel);
+		// Closing the output writes the gzip trailer and ends the Deflater of the gzip
+		// stream, even if the export fails; it then closes target, which leaves the
+		// caller's channel open
+		try (WritableByteChannel compressed = gzip
+					? Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(target), GZIP_BUFFER_SIZE))
+					: target) {
+			ByteOutput output = new ByteOutput(compressed);
+			RecordWriter writer = format == CatalogFormat.CSV ? new CsvRecordWriter(output) : new NdjsonRecordWriter(output);
+
+			writer.begin();
+			long rows = movieDao.forEachMovieRow(writer::write);
+			output.flush();
+			return rows;
+		}
+	}
+
+	/**
+	 * Writes to the caller's channel, which it does not close.
+	 */
+	private static final class UnclosedChannel implements WritableByteChannel {
+		private final WritableByteChannel channel;
+		private boolean closed;
+
+		UnclosedChannel(WritableByteChannel channel) {
+			this.channel = channel;
+		}
+
+		@Override
+		public int write(ByteBuffer buffer) throws IOException {
+			if (closed) {
+				throw new ClosedChannelException();
+			}
+			return channel.write(buffer);
+		}
+
+		@Override
+		public boolean isOpen() {
+			return !closed && channel.isOpen();
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+}
@@ -0,0 +1,301 @@
+package fr.isen.java2.db.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import fr.isen.java2.db.daos.GenreDao;
+import fr.isen.java2.db.daos.MovieDao;
+import fr.isen.java2.db.entities.Genre;
+import fr.isen.java2.db.entities.Movie;
+
+/**
+ * Streaming bulk import of movies from CSV or NDJSON files (see {@link CatalogFormat}).
+ *
+ * The input is read through a file channel and a fixed-size buffer, decoded and
+ * parsed record by record: only the current batch of movies is held in memory,
+ * so files larger than the heap can be imported. Each batch is inserted in one
+ * transaction with {@link MovieDao#addMovies(java.util.Collection, int)}; its
+ * genres are resolved by name first, and the ones missing from the database are
+ * created with {@link GenreDao#addGenres(java.util.Collection)}.
+ *
+ * The id field of the records is ignored: movies get new ids. If a record is
+ * malformed, the import stops with an IllegalArgumentException giving its line,
+ * and the batches already committed are kept.
+ * <pre>
+ * ImportProgress result = new MovieImporter().importFile(Path.of("movies.csv.gz"),
+ *     progress -&gt; log.info(progress.rows() + " movies, " + progress.rowsPerSecond() + " rows/s"));
+ * </pre>
+ */
+public class MovieImporter {
+
+	/**
+	 * Default number of movies per transaction.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+
+	private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+	private final MovieDao movieDao;
+	private final GenreDao genreDao;
+	private final int batchSize;
+
+	public MovieImporter() {
+		this(new MovieDao(), new GenreDao(), DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * @param batchSize the number of movies inserted per transaction
+	 */
+	public MovieImporter(MovieDao movieDao, GenreDao genreDao, int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+		}
+		this.movieDao = movieDao;
+		this.genreDao = genreDao;
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Imports a file whose format is given by its extension, without progress reports.
+	 *
+	 * @return the final counters of the import
+	 * @see #importFile(Path, Consumer)
+	 */
+	public ImportProgress importFile(Path file) throws IOException {
+		return importFile(file, progress -> {
+		});
+	}
+
+	/**
+	 * Imports a file whose format is given by its extension (see {@link CatalogFormat#fromFileName(String)}).
+	 *
+	 * @param listener called after each committed batch
+	 * @return the final counters of the import
+	 */
+	public ImportProgress importFile(Path file, Consumer<? super ImportProgress> listener) throws IOException {
+		String fileName = file.getFileName().toString();
+		return importFile(file, CatalogFormat.fromFileName(fileName), CatalogFormat.isGzip(fileName), listener);
+	}
+
+	/**
+	 * Imports a file.
+	 *
+	 * @param gzip     true if the file is gzip-compressed
+	 * @param listener called after each committed batch
+	 * @return the final counters of the import
+	 */
+	public ImportProgress importFile(Path file, CatalogFormat format, boolean gzip,
+			Consumer<? super ImportProgress> listener) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return importFrom(channel, format, gzip, listener);
+		}
+	}
+
+	/**
+	 * Imports the records read from a channel, up to its end. The channel is not closed.
+	 *
+	 * @param gzip     true if the content is gzip-compressed
+	 * @param listener called after each committed batch
+	 * @return the final counters of the import
+	 */
+	public ImportProgress importFrom(ReadableByteChannel channel, CatalogFormat format, boolean gzip,
+			Consumer<? super ImportProgress> listener) throws IOException {
+		long start = System.nanoTime();
+		CountingChannel counting = new CountingChannel(channel);
+		// Closing the reader ends the Inflater of the gzip stream right away; it then
+		// closes counting, which leaves the caller's channel open
+		try (ReadableByteChannel input = gzip
+					? Channels.newChannel(new GZIPInputStream(Channels.newInputStream(counting), READ_BUFFER_SIZE))
+					: counting;
+			 Reader reader = Channels.newReader(input, StandardCharsets.UTF_8.newDecoder()
+					.onMalformedInput(CodingErrorAction.REPORT)
+					.onUnmappableCharacter(CodingErrorAction.REPORT), READ_BUFFER_SIZE)) {
+
+			RecordReader records = format == CatalogFormat.CSV ? new CsvRecordReader(reader) : new NdjsonRecordReader(reader);
+			Run run = new Run(start, counting, listener);
+			String[] record;
+			while ((record = records.next()) != null) {
+				run.add(record, records.lineNumber());
+			}
+			run.flush();
+			return run.progress();
+		}
+	}
+
+	/**
+	 * State of one import: the pending batch and the counters.
+	 */
+	private final class Run {
+		private final long start;
+		private final CountingChannel input;
+		private final Consumer<? super ImportProgress> listener;
+		private final List<PendingMovie> batch = new ArrayList<>(batchSize);
+		// Genres met so far, by name: a catalog has few of them, so they are all kept
+		private final Map<String, Genre> genres = new HashMap<>();
+		private long rows;
+		private int genresCreated;
+
+		Run(long start, CountingChannel input, Consumer<? super ImportProgress> listener) {
+			this.start = start;
+			this.input = input;
+			this.listener = listener;
+		}
+
+		void add(String[] record, long line) {
+			batch.add(PendingMovie.of(record, line));
+			if (batch.size() == batchSize) {
+				flush();
+			}
+		}
+
+		void flush() {
+			if (batch.isEmpty()) {
+				return;
+			}
+			resolveGenres();
+			List<Movie> movies = new ArrayList<>(batch.size());
+			for (PendingMovie pending : batch) {
+				movies.add(pending.toMovie(genres.get(pending.genre())));
+			}
+			movieDao.addMovies(movies, batchSize);
+			rows += movies.size();
+			batch.clear();
+			listener.accept(progress());
+		}
+
+		private void resolveGenres() {
+			Set<String> missing = new LinkedHashSet<>();
+			for (PendingMovie pending : batch) {
+				String name = pending.genre();
+				if (!genres.containsKey(name) && !missing.contains(name)) {
+					Optional<Genre> genre = genreDao.getGenre(name);
+					if (genre.isPresent()) {
+						genres.put(name, genre.get());
+					} else {
+						missing.add(name);
+					}
+				}
+			}
+			for (Genre genre : genreDao.addGenres(missing)) {
+				genres.put(genre.getName(), genre);
+			}
+			genresCreated += missing.size();
+		}
+
+		ImportProgress progress() {
+			return new ImportProgress(rows, input.bytesRead, genresCreated,
+					Duration.ofNanos(System.nanoTime() - start));
+		}
+	}
+
+	/**
+	 * A parsed record waiting for the id of its genre.
+	 */
+	private record PendingMovie(String title, LocalDate releaseDate, String genre, Integer duration,
+			String director, String summary) {
+
+		static PendingMovie of(String[] record, long line) {
+			return new PendingMovie(
+					required(record, CatalogFormat.TITLE, line),
+					parseDate(record[CatalogFormat.RELEASE_DATE], line),
+					required(record, CatalogFormat.GENRE, line),
+					parseDuration(record[CatalogFormat.DURATION], line),
+					required(record, CatalogFormat.DIRECTOR, line),
+					record[CatalogFormat.SUMMARY]);
+		}
+
+		Movie toMovie(Genre resolved) {
+			return new Movie(title, releaseDate, resolved, duration, director, summary);
+		}
+
+		private static String required(String[] record, int column, long line) {
+			String value = record[column];
+			if (value == null || value.isBlank()) {
+				throw new IllegalArgumentException("Line " + line + ": missing " + CatalogFormat.COLUMNS.get(column));
+			}
+			return value;
+		}
+
+		/**
+		 * Parses a yyyy-MM-dd day, possibly followed by a time as stored by the database.
+		 */
+		private static LocalDate parseDate(String value, long line) {
+			if (value == null) {
+				return null;
+			}
+			try {
+				return LocalDate.parse(value.length() > 10 ? value.substring(0, 10) : value);
+			} catch (DateTimeParseException e) {
+				throw new IllegalArgumentException("Line " + line + ": invalid release_date " + value, e);
+			}
+		}
+
+		private static Integer parseDuration(String value, long line) {
+			if (value == null) {
+				return null;
+			}
+			try {
+				return Integer.valueOf(value.strip());
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Line " + line + ": invalid duration " + value, e);
+			}
+		}
+	}
+
+	/**
+	 * Counts the bytes read from the underlying channel, for progress reports.
+	 * Closing it does not close the underlying channel, which belongs to the caller.
+	 */
+	private static final class CountingChannel implements ReadableByteChannel {
+		private final ReadableByteChannel channel;
+		private long bytesRead;
+		private boolean closed;
+
+		CountingChannel(ReadableByteChannel channel) {
+			this.channel = channel;
+		}
+
+		@Override
+		public int read(ByteBuffer buffer) throws IOException {
+			if (closed) {
+				throw new ClosedChannelException();
+			}
+			int read = channel.read(buffer);
+			if (read > 0) {
+				bytesRead += read;
+			}
+			return read;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return !closed && channel.isOpen();
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+}
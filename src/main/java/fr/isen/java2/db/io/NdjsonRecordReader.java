@@ -0,0 +1,162 @@
+package fr.isen.java2.db.io;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Streaming NDJSON reader: one flat JSON object per line, whose members are
+ * strings, numbers, booleans or null. Unknown members are ignored.
+ *
+ * Only one line is held in memory at a time.
+ */
+final class NdjsonRecordReader implements RecordReader {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final BufferedReader reader;
+	private final String[] record = new String[CatalogFormat.COLUMNS.size()];
+	private final StringBuilder value = new StringBuilder();
+	private long line;
+	private String text;
+	private int position;
+
+	NdjsonRecordReader(Reader reader) {
+		this.reader = new BufferedReader(reader, BUFFER_SIZE);
+	}
+
+	@Override
+	public String[] next() throws IOException {
+		do {
+			text = reader.readLine();
+			line++;
+			if (text == null) {
+				return null;
+			}
+		} while (text.isBlank());
+
+		Arrays.fill(record, null);
+		position = 0;
+		expect('{');
+		if (peek() == '}') {
+			position++;
+		} else {
+			do {
+				String name = readString();
+				expect(':');
+				int column = CatalogFormat.COLUMNS.indexOf(name);
+				String member = readValue();
+				if (column >= 0) {
+					record[column] = member;
+				}
+			} while (nextMember());
+		}
+		if (peek() != -1) {
+			throw malformed("unexpected content after the object");
+		}
+		return record;
+	}
+
+	@Override
+	public long lineNumber() {
+		return line;
+	}
+
+	private boolean nextMember() {
+		int c = peek();
+		position++;
+		if (c == ',') {
+			return true;
+		}
+		if (c == '}') {
+			return false;
+		}
+		throw malformed("expected ',' or '}'");
+	}
+
+	/**
+	 * @return the value as text (null for JSON null)
+	 */
+	private String readValue() {
+		int c = peek();
+		if (c == '"') {
+			return readString();
+		}
+		if (c == '{' || c == '[') {
+			throw malformed("nested objects and arrays are not supported");
+		}
+		int start = position;
+		while (position < text.length() && ",} \t".indexOf(text.charAt(position)) < 0) {
+			position++;
+		}
+		String literal = text.substring(start, position);
+		if (literal.isEmpty()) {
+			throw malformed("missing value");
+		}
+		return literal.equals("null") ? null : literal;
+	}
+
+	private String readString() {
+		expect('"');
+		value.setLength(0);
+		while (true) {
+			if (position >= text.length()) {
+				throw malformed("unterminated string");
+			}
+			char c = text.charAt(position++);
+			if (c == '"') {
+				return value.toString();
+			}
+			if (c != '\\') {
+				value.append(c);
+				continue;
+			}
+			if (position >= text.length()) {
+				throw malformed("unterminated string");
+			}
+			char escaped = text.charAt(position++);
+			switch (escaped) {
+				case '"', '\\', '/' -> value.append(escaped);
+				case 'b' -> value.append('\b');
+				case 'f' -> value.append('\f');
+				case 'n' -> value.append('\n');
+				case 'r' -> value.append('\r');
+				case 't' -> value.append('\t');
+				case 'u' -> {
+					if (position + 4 > text.length()) {
+						throw malformed("truncated unicode escape");
+					}
+					try {
+						value.append((char) Integer.parseInt(text, position, position + 4, 16));
+					} catch (NumberFormatException e) {
+						throw malformed("invalid unicode escape");
+					}
+					position += 4;
+				}
+				default -> throw malformed("invalid escape \\" + escaped);
+			}
+		}
+	}
+
+	private void expect(char expected) {
+		if (peek() != expected) {
+			throw malformed("expected '" + expected + "'");
+		}
+		position++;
+	}
+
+	/**
+	 * @return the next character that is not a blank, without consuming it, or -1 at the end of the line
+	 */
+	private int peek() {
+		while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+			position++;
+		}
+		return position < text.length() ? text.charAt(position) : -1;
+	}
+
+	private IllegalArgumentException malformed(String reason) {
+		return new IllegalArgumentException("Line " + line + ": malformed JSON, " + reason + " at column " + (position + 1));
+	}
+}
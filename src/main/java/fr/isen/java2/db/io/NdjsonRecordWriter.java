@@ -0,0 +1,104 @@
+package fr.isen.java2.db.io;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+
+import fr.isen.java2.db.daos.MovieRow;
+
+/**
+ * Writes one JSON object per line. Strings are escaped byte by byte: the
+ * characters to escape are all ASCII, and the other UTF-8 bytes are copied as is.
+ */
+final class NdjsonRecordWriter implements RecordWriter {
+
+	private static final byte[][] KEYS = new byte[CatalogFormat.COLUMNS.size()][];
+	private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+	static {
+		for (int column = 0; column < KEYS.length; column++) {
+			String prefix = column == 0 ? "{\"" : ",\"";
+			KEYS[column] = (prefix + CatalogFormat.COLUMNS.get(column) + "\":").getBytes(StandardCharsets.US_ASCII);
+		}
+	}
+
+	private final ByteOutput output;
+
+	NdjsonRecordWriter(ByteOutput output) {
+		this.output = output;
+	}
+
+	@Override
+	public void begin() {
+		// no header
+	}
+
+	@Override
+	public void write(MovieRow row) throws SQLException, IOException {
+		output.write(KEYS[CatalogFormat.ID]);
+		output.writeInt(row.id());
+		output.write(KEYS[CatalogFormat.TITLE]);
+		writeString(row.title());
+		output.write(KEYS[CatalogFormat.RELEASE_DATE]);
+		byte[] releaseDate = row.releaseDate();
+		if (releaseDate == null) {
+			output.write(NULL);
+		} else {
+			output.write('"');
+			output.write(releaseDate);
+			output.write('"');
+		}
+		output.write(KEYS[CatalogFormat.GENRE]);
+		writeString(row.genreName());
+		output.write(KEYS[CatalogFormat.DURATION]);
+		if (row.hasDuration()) {
+			output.writeInt(row.duration());
+		} else {
+			output.write(NULL);
+		}
+		output.write(KEYS[CatalogFormat.DIRECTOR]);
+		writeString(row.director());
+		output.write(KEYS[CatalogFormat.SUMMARY]);
+		writeString(row.summary());
+		output.write('}');
+		output.write('\n');
+	}
+
+	private void writeString(byte[] value) throws IOException {
+		if (value == null) {
+			output.write(NULL);
+			return;
+		}
+		output.write('"');
+		int start = 0;
+		for (int i = 0; i < value.length; i++) {
+			byte b = value[i];
+			// UTF-8 continuation and lead bytes are negative: only ASCII is escaped
+			if (b >= 0 && (b < 0x20 || b == '"' || b == '\\')) {
+				output.write(value, start, i - start);
+				writeEscape(b);
+				start = i + 1;
+			}
+		}
+		output.write(value, start, value.length - start);
+		output.write('"');
+	}
+
+	private void writeEscape(byte b) throws IOException {
+		output.write('\\');
+		switch (b) {
+			case '"', '\\' -> output.write(b);
+			case '\n' -> output.write('n');
+			case '\r' -> output.write('r');
+			case '\t' -> output.write('t');
+			default -> {
+				output.write('u');
+				output.write('0');
+				output.write('0');
+				output.write(HEX[b >> 4]);
+				output.write(HEX[b & 0xF]);
+			}
+		}
+	}
+}
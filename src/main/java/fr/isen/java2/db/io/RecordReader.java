@@ -0,0 +1,23 @@
+package fr.isen.java2.db.io;
+
+import java.io.IOException;
+
+/**
+ * Reads movie records one at a time from a catalog dump.
+ */
+interface RecordReader {
+
+	/**
+	 * Reads the next record. The returned array is reused by the next call.
+	 *
+	 * @return the fields of the record, indexed like {@link CatalogFormat#COLUMNS}
+	 *         (null for the missing ones), or null at the end of the input
+	 * @throws IllegalArgumentException if the record is malformed
+	 */
+	String[] next() throws IOException;
+
+	/**
+	 * @return the line where the last record read starts, for error messages
+	 */
+	long lineNumber();
+}
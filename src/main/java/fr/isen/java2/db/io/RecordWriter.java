@@ -0,0 +1,19 @@
+package fr.isen.java2.db.io;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+import fr.isen.java2.db.daos.MovieRow;
+
+/**
+ * Writes movie rows to a catalog dump, encoding their bytes as they come from the cursor.
+ */
+interface RecordWriter {
+
+	/**
+	 * Writes what precedes the first record, if anything.
+	 */
+	void begin() throws IOException;
+
+	void write(MovieRow row) throws SQLException, IOException;
+}
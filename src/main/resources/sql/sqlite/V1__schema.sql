@@ -0,0 +1,27 @@
+-- SQLite version of database-creation.sql, with the indexes used by the DAOs
+
+CREATE TABLE IF NOT EXISTS genre (
+  idgenre INTEGER NOT NULL PRIMARY KEY AUTOINCREMENT,
+  name VARCHAR(50) NOT NULL);
+
+CREATE TABLE IF NOT EXISTS movie (
+  idmovie INTEGER NOT NULL PRIMARY KEY AUTOINCREMENT,
+  title VARCHAR(100) NOT NULL,
+  release_date DATETIME NULL,
+  genre_id INT NOT NULL,
+  duration INT NULL,
+  director VARCHAR(100) NOT NULL,
+  summary MEDIUMTEXT NULL,
+  CONSTRAINT genre_fk FOREIGN KEY (genre_id) REFERENCES genre (idgenre));
+
+-- getGenre and every "WHERE genre.name = ?" query
+CREATE INDEX IF NOT EXISTS genre_name_idx ON genre (name);
+
+-- movie JOIN genre filtered by genre (the index also holds idmovie, the rowid)
+CREATE INDEX IF NOT EXISTS genre_fk_idx ON movie (genre_id);
+
+-- release date ranges and ordering
+CREATE INDEX IF NOT EXISTS movie_release_date_idx ON movie (release_date);
+
+-- keyset pagination by release day (MovieDao.pageMovies)
+CREATE INDEX IF NOT EXISTS movie_release_day_idx ON movie (date(release_date), idmovie);
@@ -0,0 +1,26 @@
+-- FTS5 full-text index of MovieDao.searchMovies.
+-- External content: the text stays in movie, the triggers keep the index in sync.
+
+CREATE VIRTUAL TABLE IF NOT EXISTS movie_fts USING fts5(
+  title, director, summary,
+  content='movie', content_rowid='idmovie', tokenize='unicode61');
+
+CREATE TRIGGER IF NOT EXISTS movie_fts_after_insert AFTER INSERT ON movie BEGIN
+  INSERT INTO movie_fts(rowid, title, director, summary)
+  VALUES (new.idmovie, new.title, new.director, new.summary);
+END;
+
+CREATE TRIGGER IF NOT EXISTS movie_fts_after_delete AFTER DELETE ON movie BEGIN
+  INSERT INTO movie_fts(movie_fts, rowid, title, director, summary)
+  VALUES ('delete', old.idmovie, old.title, old.director, old.summary);
+END;
+
+CREATE TRIGGER IF NOT EXISTS movie_fts_after_update AFTER UPDATE ON movie BEGIN
+  INSERT INTO movie_fts(movie_fts, rowid, title, director, summary)
+  VALUES ('delete', old.idmovie, old.title, old.director, old.summary);
+  INSERT INTO movie_fts(rowid, title, director, summary)
+  VALUES (new.idmovie, new.title, new.director, new.summary);
+END;
+
+-- Index the movies that were already in the table
+INSERT INTO movie_fts(movie_fts) VALUES ('rebuild');
@@ -0,0 +1,8 @@
+-- Indexes of the criteria of MovieDao.findMovies (MovieQuery).
+-- Release dates already use movie_release_date_idx and genres genre_name_idx.
+
+-- durationBetween(min, max) and ordering by duration
+CREATE INDEX IF NOT EXISTS movie_duration_idx ON movie (duration);
+
+-- director(name)
+CREATE INDEX IF NOT EXISTS movie_director_idx ON movie (director);
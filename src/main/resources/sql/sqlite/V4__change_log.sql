@@ -0,0 +1,57 @@
+-- Modification sequence of MovieDao.pollChanges.
+-- One row per movie or genre: its latest change. Each insert, update or delete
+-- moves the row to a new seq (AUTOINCREMENT never reuses a value), so the table
+-- grows with the catalog and not with the number of writes.
+
+CREATE TABLE IF NOT EXISTS change_log (
+  seq INTEGER NOT NULL PRIMARY KEY AUTOINCREMENT,
+  entity TEXT NOT NULL,
+  entity_id INTEGER NOT NULL,
+  CONSTRAINT change_log_entity_uk UNIQUE (entity, entity_id));
+
+-- DELETE then INSERT rather than INSERT OR REPLACE: a conflict clause of the
+-- statement firing a trigger overrides the ones used in the trigger.
+
+CREATE TRIGGER IF NOT EXISTS genre_change_after_insert AFTER INSERT ON genre BEGIN
+  DELETE FROM change_log WHERE entity = 'genre' AND entity_id = new.idgenre;
+  INSERT INTO change_log(entity, entity_id) VALUES ('genre', new.idgenre);
+END;
+
+CREATE TRIGGER IF NOT EXISTS genre_change_after_update AFTER UPDATE ON genre BEGIN
+  DELETE FROM change_log WHERE entity = 'genre' AND entity_id IN (old.idgenre, new.idgenre);
+  INSERT INTO change_log(entity, entity_id) SELECT 'genre', old.idgenre WHERE old.idgenre <> new.idgenre;
+  INSERT INTO change_log(entity, entity_id) VALUES ('genre', new.idgenre);
+END;
+
+CREATE TRIGGER IF NOT EXISTS genre_change_after_delete AFTER DELETE ON genre BEGIN
+  DELETE FROM change_log WHERE entity = 'genre' AND entity_id = old.idgenre;
+  INSERT INTO change_log(entity, entity_id) VALUES ('genre', old.idgenre);
+END;
+
+CREATE TRIGGER IF NOT EXISTS movie_change_after_insert AFTER INSERT ON movie BEGIN
+  DELETE FROM change_log WHERE entity = 'movie' AND entity_id = new.idmovie;
+  INSERT INTO change_log(entity, entity_id) VALUES ('movie', new.idmovie);
+END;
+
+CREATE TRIGGER IF NOT EXISTS movie_change_after_update AFTER UPDATE ON movie BEGIN
+  DELETE FROM change_log WHERE entity = 'movie' AND entity_id IN (old.idmovie, new.idmovie);
+  INSERT INTO change_log(entity, entity_id) SELECT 'movie', old.idmovie WHERE old.idmovie <> new.idmovie;
+  INSERT INTO change_log(entity, entity_id) VALUES ('movie', new.idmovie);
+END;
+
+CREATE TRIGGER IF NOT EXISTS movie_change_after_delete AFTER DELETE ON movie BEGIN
+  DELETE FROM change_log WHERE entity = 'movie' AND entity_id = old.idmovie;
+  INSERT INTO change_log(entity, entity_id) VALUES ('movie', old.idmovie);
+END;
+
+-- Log the rows that were already in the tables, genres first, so that polling
+-- from 0 returns the whole catalog
+INSERT INTO change_log(entity, entity_id)
+  SELECT 'genre', idgenre FROM genre
+  WHERE idgenre NOT IN (SELECT entity_id FROM change_log WHERE entity = 'genre')
+  ORDER BY idgenre;
+
+INSERT INTO change_log(entity, entity_id)
+  SELECT 'movie', idmovie FROM movie
+  WHERE idmovie NOT IN (SELECT entity_id FROM change_log WHERE entity = 'movie')
+  ORDER BY idmovie;
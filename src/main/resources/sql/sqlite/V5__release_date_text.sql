@@ -0,0 +1,7 @@
+-- Release dates written before date_class=TEXT are epoch milliseconds: rewrite them
+-- as 'yyyy-MM-dd HH:mm:ss.SSS' texts, so that date(release_date) and the text
+-- comparisons of the DAOs (paging, ranges, sorting) see every row.
+
+UPDATE movie
+  SET release_date = strftime('%Y-%m-%d %H:%M:%f', release_date / 1000.0, 'unixepoch')
+  WHERE typeof(release_date) = 'integer';
@@ -0,0 +1,154 @@
+package fr.isen.java2.db.daos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import fr.isen.java2.db.entities.Genre;
+import fr.isen.java2.db.entities.Movie;
+
+/**
+ * Test cases for AsyncCatalogDao.
+ */
+public class AsyncCatalogDaoTestCase {
+
+	private final AsyncCatalogDao asyncDao = new AsyncCatalogDao();
+
+	@BeforeEach
+	public void initDb() throws Exception {
+		try (Connection connection = DataSourceFactory.getDataSource().getConnection();
+			 Statement stmt = connection.createStatement()) {
+			stmt.executeUpdate("DELETE FROM movie");
+			stmt.executeUpdate("DELETE FROM genre");
+			stmt.executeUpdate("INSERT INTO genre(idgenre,name) VALUES (1,'Drama')");
+			stmt.executeUpdate("INSERT INTO genre(idgenre,name) VALUES (2,'Comedy')");
+			stmt.executeUpdate("INSERT INTO movie(idmovie,title, release_date, genre_id, duration, director, summary) "
+					+ "VALUES (1, 'Title 1', '2015-11-26 12:00:00.000', 1, 120, 'director 1', 'summary of the first movie')");
+			stmt.executeUpdate("INSERT INTO movie(idmovie,title, release_date, genre_id, duration, director, summary) "
+					+ "VALUES (2, 'My Title 2', '2015-11-14 12:00:00.000', 2, 114, 'director 2', 'summary of the second movie')");
+		}
+		GenreCache.getInstance().invalidateAll();
+	}
+
+	@AfterEach
+	public void closeDao() {
+		asyncDao.close();
+	}
+
+	@Test
+	public void shouldComposeLookupsInParallel() {
+		// WHEN - three lookups started without waiting for each other
+		CompletableFuture<List<Movie>> dramas = asyncDao.listMoviesByGenre("Drama");
+		CompletableFuture<List<Movie>> comedies = asyncDao.listMoviesByGenre("Comedy");
+		CompletableFuture<List<Movie>> unknown = asyncDao.listMoviesByGenre("Western");
+
+		List<List<Movie>> results = AsyncCatalogDao.all(List.of(dramas, comedies, unknown)).join();
+
+		// THEN - results come back in the order of the lookups
+		assertThat(results.get(0)).extracting("title").containsExactly("Title 1");
+		assertThat(results.get(1)).extracting("title").containsExactly("My Title 2");
+		assertThat(results.get(2)).isEmpty();
+	}
+
+	@Test
+	public void shouldCombineDifferentOperations() {
+		// WHEN
+		CompletableFuture<Optional<Genre>> genre = asyncDao.getGenre("Comedy");
+		CompletableFuture<List<Movie>> movies = asyncDao.listMovies();
+
+		// THEN
+		String summary = genre.thenCombine(movies, (comedy, all) -> comedy.get().getName() + ":" + all.size()).join();
+		assertThat(summary).isEqualTo("Comedy:2");
+	}
+
+	@Test
+	public void shouldFailCombinedFutureWhenOneLookupFails() {
+		// GIVEN - a page limit of 0 is rejected
+		CompletableFuture<MoviePage> invalid = asyncDao.pageMovies(MoviePage.Order.ID, null, null, 0);
+		CompletableFuture<List<Genre>> genres = asyncDao.listGenres();
+
+		// WHEN / THEN
+		assertThatThrownBy(() -> AsyncCatalogDao.all(List.of(invalid, genres)).join())
+			.isInstanceOf(CompletionException.class)
+			.hasCauseInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void shouldInterruptOperationOnTimeout() throws Exception {
+		// GIVEN - every read connection is busy, so the operation waits for one
+		int maxSize = PoolConfig.fromSystemProperties().maxSize();
+		Connection[] busy = new Connection[maxSize];
+		try {
+			for (int i = 0; i < maxSize; i++) {
+				busy[i] = DataSourceFactory.getReadDataSource().getConnection();
+			}
+			CountDownLatch waiting = new CountDownLatch(1);
+			CompletableFuture<List<Movie>> movies = asyncDao.listMovies();
+			movies.whenComplete((result, error) -> waiting.countDown());
+
+			// WHEN
+			movies.orTimeout(100, TimeUnit.MILLISECONDS);
+
+			// THEN - the future expires and the waiting thread gives up its place
+			assertThat(waiting.await(5, TimeUnit.SECONDS)).isTrue();
+			assertThat(movies).isCompletedExceptionally();
+			Thread.sleep(100);
+			assertThat(DataSourceFactory.getReadPoolStats().waiters()).isZero();
+		} finally {
+			for (Connection connection : busy) {
+				if (connection != null) {
+					connection.close();
+				}
+			}
+		}
+	}
+
+	@Test
+	public void shouldBoundConcurrentOperations() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		MovieDao blockingDao = new MovieDao() {
+			@Override
+			public List<Movie> listMovies() {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				running.decrementAndGet();
+				return List.of();
+			}
+		};
+
+		try (AsyncCatalogDao boundedDao = new AsyncCatalogDao(blockingDao, new GenreDao(), 2)) {
+			// WHEN - 10 operations are started at once
+			List<CompletableFuture<List<Movie>>> futures = new ArrayList<>();
+			for (int i = 0; i < 10; i++) {
+				futures.add(boundedDao.listMovies());
+			}
+			Thread.sleep(100);
+
+			// THEN - only 2 of them run, the others wait for a permit
+			assertThat(running.get()).isEqualTo(2);
+			release.countDown();
+			assertThat(AsyncCatalogDao.all(futures).join()).hasSize(10);
+			assertThat(maxRunning.get()).isEqualTo(2);
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package fr.isen.java2.db.daos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import fr.isen.java2.db.entities.CompactMovie;
+import fr.isen.java2.db.entities.Genre;
+import fr.isen.java2.db.entities.Movie;
+
+/**
+ * Test cases for CatalogSnapshot and InMemoryCatalog: every query must return
+ * what the equivalent SQL returns.
+ */
+public class CatalogSnapshotTestCase {
+
+	private final MovieDao movieDao = new MovieDao();
+	private final GenreDao genreDao = new GenreDao();
+	private final MovieStatsDao movieStatsDao = new MovieStatsDao();
+
+	@BeforeEach
+	public void initDb() throws Exception {
+		try (Connection connection = DataSourceFactory.getDataSource().getConnection();
+			 Statement stmt = connection.createStatement()) {
+			stmt.executeUpdate("DELETE FROM movie");
+			stmt.executeUpdate("DELETE FROM genre");
+			stmt.executeUpdate("INSERT INTO genre(idgenre,name) VALUES (1,'Drama')");
+			stmt.executeUpdate("INSERT INTO genre(idgenre,name) VALUES (2,'Comedy')");
+			stmt.executeUpdate("INSERT INTO genre(idgenre,name) VALUES (3,'Thriller')");
+			// A genre without movies
+			stmt.executeUpdate("INSERT INTO genre(idgenre,name) VALUES (4,'Western')");
+		}
+		GenreCache.getInstance().invalidateAll();
+
+		Random random = new Random(7);
+		List<Genre> genres = genreDao.listGenres();
+		List<Movie> movies = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			movies.add(new Movie("Movie " + random.nextInt(500),
+					random.nextInt(10) == 0 ? null : LocalDate.ofEpochDay(random.nextInt(20_000)),
+					genres.get(random.nextInt(3)),
+					random.nextInt(10) == 0 ? null : 80 + random.nextInt(60),
+					"Director " + random.nextInt(50), null));
+		}
+		movieDao.addMovies(movies);
+	}
+
+	@Test
+	public void shouldComputeTheSameStatsAsSql() {
+		CatalogSnapshot snapshot = new InMemoryCatalog(movieDao, genreDao).snapshot();
+
+		assertThat(snapshot.size()).isEqualTo(2000);
+		assertThat(snapshot.getGenreStats()).usingRecursiveFieldByFieldElementComparator()
+				.containsExactlyElementsOf(movieStatsDao.getGenreStats());
+		assertThat(snapshot.getReleasesPerYear()).isEqualTo(movieStatsDao.getReleasesPerYear());
+		assertThat(snapshot.getLongestMovies(25)).isEqualTo(movieStatsDao.getLongestMovies(25));
+		assertThat(snapshot.getLongestMovies("Comedy", 3000)).isEqualTo(movieStatsDao.getLongestMovies("Comedy", 3000));
+		assertThat(snapshot.getLongestMovies("Unknown", 10)).isEmpty();
+	}
+
+	@Test
+	public void shouldFindTheSameMoviesAsSql() {
+		CatalogSnapshot snapshot = CatalogSnapshot.load(movieDao, genreDao);
+		List<MovieQuery> queries = List.of(
+				MovieQuery.builder().build(),
+				MovieQuery.builder().releasedBetween(LocalDate.of(1990, 1, 1), null).sort(MovieQuery.Sort.TITLE).build(),
+				MovieQuery.builder().releasedBetween(null, LocalDate.of(1980, 6, 30))
+						.sort(MovieQuery.Sort.RELEASE_DATE_DESC).limit(40).build(),
+				MovieQuery.builder().durationBetween(null, 100).genres("Drama", "Thriller")
+						.sort(MovieQuery.Sort.DURATION).build(),
+				MovieQuery.builder().durationBetween(120, null).sort(MovieQuery.Sort.DURATION_DESC).limit(7).build(),
+				MovieQuery.builder().director("Director 3").sort(MovieQuery.Sort.RELEASE_DATE).build(),
+				MovieQuery.builder().director("Nobody").build(),
+				MovieQuery.builder().genres("Western").build());
+
+		for (MovieQuery query : queries) {
+			List<Integer> expected = movieDao.findMovies(query).stream().map(Movie::getId).toList();
+			assertThat(snapshot.findMovies(query)).as(query.toString())
+					.extracting(CompactMovie::getId).containsExactlyElementsOf(expected);
+			if (query.limit() == null) {
+				assertThat(snapshot.countMovies(query)).isEqualTo(expected.size());
+			}
+		}
+	}
+
+	@Test
+	public void shouldSwapSnapshotsOnRefresh() {
+		InMemoryCatalog catalog = new InMemoryCatalog(movieDao, genreDao);
+		CatalogSnapshot before = catalog.snapshot();
+		genreDao.addGenre("Horror");
+		movieDao.addMovie(new Movie("New", LocalDate.of(2020, 1, 1), genreDao.getGenre("Horror").get(), 300,
+				"Director", null));
+
+		CatalogSnapshot after = catalog.refresh();
+
+		assertThat(before.size()).isEqualTo(2000);
+		assertThat(after.size()).isEqualTo(2001);
+		assertThat(catalog.snapshot()).isSameAs(after);
+		assertThat(after.getLongestMovies("Horror", 1)).extracting(MovieStatsDao.MovieDuration::title)
+				.containsExactly("New");
+	}
+}
@@ -0,0 +1,175 @@
+package fr.isen.java2.db.daos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test cases for ConnectionPool.
+ * Each test uses its own pool over a temporary SQLite file.
+ */
+public class ConnectionPoolTestCase {
+
+	@TempDir
+	Path tempDir;
+
+	private ConnectionPool pool;
+
+	@BeforeEach
+	public void createPool() {
+		pool = new ConnectionPool("jdbc:sqlite:" + tempDir.resolve("pool.db"),
+				new PoolConfig(1, 2, Duration.ofMillis(200), Duration.ofMillis(200), Duration.ofSeconds(1), 2));
+	}
+
+	@AfterEach
+	public void closePool() {
+		pool.close();
+	}
+
+	@Test
+	public void shouldReusePhysicalConnection() throws Exception {
+		// WHEN - borrow and give back the same connection twice
+		try (Connection connection = pool.getConnection()) {
+			assertThat(connection.isValid(1)).isTrue();
+		}
+		try (Connection connection = pool.getConnection()) {
+			assertThat(connection.isClosed()).isFalse();
+		}
+
+		// THEN - only the eagerly opened connection was ever created
+		PoolStats stats = pool.getStats();
+		assertThat(stats.created()).isEqualTo(1);
+		assertThat(stats.acquired()).isEqualTo(2);
+		assertThat(stats.active()).isZero();
+		assertThat(stats.idle()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldTimeOutWhenExhausted() throws Exception {
+		try (Connection first = pool.getConnection();
+			 Connection second = pool.getConnection()) {
+
+			assertThat(first).isNotSameAs(second);
+			assertThat(pool.getStats().active()).isEqualTo(2);
+
+			// WHEN / THEN - a third borrower waits acquireTimeout then fails
+			assertThatThrownBy(pool::getConnection).isInstanceOf(SQLTimeoutException.class);
+			assertThat(pool.getStats().timeouts()).isEqualTo(1);
+		}
+		assertThat(pool.getStats().idle()).isEqualTo(2);
+	}
+
+	@Test
+	public void shouldRollBackPendingTransactionOnRelease() throws Exception {
+		try (Connection connection = pool.getConnection()) {
+			connection.createStatement().executeUpdate("CREATE TABLE t (id INTEGER)");
+			connection.setAutoCommit(false);
+			connection.createStatement().executeUpdate("INSERT INTO t VALUES (1)");
+			// closed without commit
+		}
+		try (Connection connection = pool.getConnection()) {
+			assertThat(connection.getAutoCommit()).isTrue();
+			ResultSet resultSet = connection.createStatement().executeQuery("SELECT COUNT(*) FROM t");
+			resultSet.next();
+			assertThat(resultSet.getInt(1)).isZero();
+		}
+	}
+
+	@Test
+	public void shouldRejectUseAfterClose() throws Exception {
+		Connection connection = pool.getConnection();
+		connection.close();
+
+		assertThat(connection.isClosed()).isTrue();
+		assertThatThrownBy(connection::createStatement).isInstanceOf(SQLException.class);
+		// closing twice does not give the connection back twice
+		connection.close();
+		assertThat(pool.getStats().idle()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldEvictIdleConnectionsAboveMinSize() throws Exception {
+		try (Connection first = pool.getConnection();
+			 Connection second = pool.getConnection()) {
+			assertThat(first).isNotSameAs(second);
+			assertThat(pool.getStats().created()).isEqualTo(2);
+		}
+		assertThat(pool.getStats().idle()).isEqualTo(2);
+
+		// WHEN - wait for the idle timeout and a housekeeping run
+		Thread.sleep(600);
+
+		// THEN - the pool shrank back to minSize
+		assertThat(pool.getStats().idle()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldReusePreparedStatements() throws Exception {
+		try (Connection connection = pool.getConnection()) {
+			connection.createStatement().executeUpdate("CREATE TABLE t (id INTEGER)");
+		}
+
+		// WHEN - the same SQL is prepared on every borrow
+		for (int i = 0; i < 3; i++) {
+			try (Connection connection = pool.getConnection();
+				 PreparedStatement statement = connection.prepareStatement("INSERT INTO t VALUES (?)")) {
+				statement.setInt(1, i);
+				statement.executeUpdate();
+				assertThat(statement.getConnection()).isSameAs(connection);
+			}
+		}
+
+		// THEN - prepared once, then served from the cache
+		StatementCacheStats stats = pool.getStatementCacheStats();
+		assertThat(stats.misses()).isEqualTo(1);
+		assertThat(stats.hits()).isEqualTo(2);
+	}
+
+	@Test
+	public void shouldEvictLeastRecentlyUsedStatement() throws Exception {
+		try (Connection connection = pool.getConnection()) {
+			// WHEN - three distinct statements with a capacity of two
+			for (String sql : new String[] { "SELECT 1", "SELECT 2", "SELECT 1", "SELECT 3", "SELECT 1" }) {
+				try (PreparedStatement statement = connection.prepareStatement(sql);
+					 ResultSet resultSet = statement.executeQuery()) {
+					assertThat(resultSet.next()).isTrue();
+				}
+			}
+
+			// THEN - "SELECT 2" was the least recently used one when "SELECT 3" came in
+			StatementCacheStats stats = pool.getStatementCacheStats();
+			assertThat(stats.evictions()).isEqualTo(1);
+			assertThat(stats.hits()).isEqualTo(2);
+		}
+	}
+
+	@Test
+	public void shouldNotShareStatementOpenTwice() throws Exception {
+		try (Connection connection = pool.getConnection();
+			 PreparedStatement first = connection.prepareStatement("SELECT ?");
+			 PreparedStatement second = connection.prepareStatement("SELECT ?")) {
+
+			// THEN - the second one is an independent statement
+			first.setInt(1, 1);
+			second.setInt(1, 2);
+			try (ResultSet firstResult = first.executeQuery(); ResultSet secondResult = second.executeQuery()) {
+				firstResult.next();
+				secondResult.next();
+				assertThat(firstResult.getInt(1)).isEqualTo(1);
+				assertThat(secondResult.getInt(1)).isEqualTo(2);
+			}
+		}
+	}
+}
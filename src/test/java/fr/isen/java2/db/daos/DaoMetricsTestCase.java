@@ -0,0 +1,158 @@
+package fr.isen.java2.db.daos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import fr.isen.java2.db.entities.Movie;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Test cases for DaoMetrics and the instrumentation of the DAOs.
+ */
+public class DaoMetricsTestCase {
+
+	@TempDir
+	Path tempDir;
+
+	private final MovieDao movieDao = new MovieDao();
+	private final GenreDao genreDao = new GenreDao();
+
+	@BeforeEach
+	public void initDb() throws Exception {
+		try (Connection connection = DataSourceFactory.getDataSource().getConnection();
+			 Statement stmt = connection.createStatement()) {
+			stmt.executeUpdate("DELETE FROM movie");
+			stmt.executeUpdate("DELETE FROM genre");
+			stmt.executeUpdate("INSERT INTO genre(idgenre,name) VALUES (1,'Drama')");
+			stmt.executeUpdate("INSERT INTO movie(idmovie,title, release_date, genre_id, duration, director, summary) "
+					+ "VALUES (1, 'Title 1', '2015-11-26 12:00:00.000', 1, 120, 'director 1', 'summary 1')");
+			stmt.executeUpdate("INSERT INTO movie(idmovie,title, release_date, genre_id, duration, director, summary) "
+					+ "VALUES (2, 'Title 2', '2015-11-14 12:00:00.000', 1, 114, 'director 2', 'summary 2')");
+		}
+		GenreCache.getInstance().invalidateAll();
+		DaoMetrics.reset();
+		DaoMetrics.setEnabled(true);
+	}
+
+	@AfterEach
+	public void disableMetrics() {
+		DaoMetrics.setEnabled(false);
+		DaoMetrics.reset();
+	}
+
+	@Test
+	public void shouldRecordCallsAndRows() {
+		// WHEN
+		movieDao.listMovies();
+		movieDao.listMovies();
+		genreDao.getGenre("Drama");
+
+		// THEN
+		Map<String, OperationStats> snapshot = DaoMetrics.snapshot();
+		assertThat(snapshot).containsOnlyKeys("MovieDao.listMovies", "GenreDao.getGenre");
+		OperationStats stats = snapshot.get("MovieDao.listMovies");
+		assertThat(stats.count()).isEqualTo(2);
+		assertThat(stats.errors()).isZero();
+		assertThat(stats.rows()).isEqualTo(4);
+		assertThat(stats.p50()).isPositive();
+		assertThat(stats.p99()).isLessThanOrEqualTo(stats.max());
+		assertThat(stats.totalAcquireTime()).isPositive();
+		assertThat(stats.totalAcquireTime()).isLessThan(stats.max().multipliedBy(2));
+	}
+
+	@Test
+	public void shouldCountErrors() {
+		// a movie without genre cannot be bound
+		Movie movie = new Movie(null, "No genre", LocalDate.of(2020, 1, 1), null, 90, "director", "summary");
+
+		assertThatThrownBy(() -> movieDao.addMovie(movie)).isInstanceOf(RuntimeException.class);
+
+		OperationStats stats = DaoMetrics.snapshot().get("MovieDao.addMovie");
+		assertThat(stats.count()).isEqualTo(1);
+		assertThat(stats.errors()).isEqualTo(1);
+		assertThat(stats.rows()).isZero();
+	}
+
+	@Test
+	public void shouldTimeStreamsUntilClosed() {
+		try (Stream<Movie> movies = movieDao.streamMovies()) {
+			assertThat(movies.limit(1).count()).isEqualTo(1);
+			assertThat(DaoMetrics.snapshot()).doesNotContainKey("MovieDao.streamMovies");
+		}
+
+		OperationStats stats = DaoMetrics.snapshot().get("MovieDao.streamMovies");
+		assertThat(stats.count()).isEqualTo(1);
+		assertThat(stats.rows()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldNotRecordWhenDisabled() {
+		DaoMetrics.setEnabled(false);
+
+		movieDao.listMovies();
+
+		assertThat(DaoMetrics.snapshot()).isEmpty();
+	}
+
+	@Test
+	public void shouldReset() {
+		movieDao.listMovies();
+		assertThat(DaoMetrics.snapshot()).isNotEmpty();
+
+		DaoMetrics.reset();
+
+		assertThat(DaoMetrics.snapshot()).isEmpty();
+	}
+
+	@Test
+	public void shouldEmitFlightRecorderEvents() throws Exception {
+		DaoMetrics.setEnabled(false);
+		Path file = tempDir.resolve("dao.jfr");
+
+		try (Recording recording = new Recording()) {
+			recording.enable(DaoOperationEvent.NAME);
+			recording.start();
+			movieDao.listMoviesByGenre("Drama");
+			recording.stop();
+			recording.dump(file);
+		}
+
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+		assertThat(events).hasSize(1);
+		RecordedEvent event = events.get(0);
+		assertThat(event.getString("operation")).isEqualTo("MovieDao.listMoviesByGenre");
+		assertThat(event.getLong("rows")).isEqualTo(2);
+		assertThat(event.getBoolean("succeeded")).isTrue();
+		// metrics are disabled: only the event was produced
+		assertThat(DaoMetrics.snapshot()).isEmpty();
+	}
+
+	@Test
+	public void shouldComputePercentilesWithinBucketPrecision() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long value = 1; value <= 1000; value++) {
+			histogram.record(value * 1000);
+		}
+
+		assertThat(histogram.count()).isEqualTo(1000);
+		assertThat(histogram.max()).isEqualTo(1_000_000);
+		assertThat(histogram.percentile(0.5)).isBetween(500_000L, 562_500L);
+		assertThat(histogram.percentile(0.99)).isBetween(990_000L, 1_000_000L);
+		assertThat(histogram.percentile(1)).isEqualTo(1_000_000);
+	}
+}
@@ -0,0 +1,65 @@
+package fr.isen.java2.db.daos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases for the read/write split of DataSourceFactory.
+ */
+public class DataSourceFactoryTestCase {
+
+	private final MovieDao movieDao = new MovieDao();
+
+	@BeforeEach
+	public void initDb() throws Exception {
+		try (Connection connection = DataSourceFactory.getWriteDataSource().getConnection();
+			 Statement stmt = connection.createStatement()) {
+			stmt.executeUpdate("DELETE FROM movie");
+			stmt.executeUpdate("DELETE FROM genre");
+			stmt.executeUpdate("INSERT INTO genre(idgenre,name) VALUES (1,'Drama')");
+			stmt.executeUpdate("INSERT INTO movie(idmovie,title, release_date, genre_id, duration, director, summary) "
+					+ "VALUES (1, 'Title 1', '2015-11-26 12:00:00.000', 1, 120, 'director 1', 'summary 1')");
+		}
+		GenreCache.getInstance().invalidateAll();
+	}
+
+	@Test
+	public void shouldRejectWritesOnReadConnections() throws Exception {
+		try (Connection connection = DataSourceFactory.getReadDataSource().getConnection();
+			 Statement statement = connection.createStatement()) {
+			assertThatThrownBy(() -> statement.executeUpdate("DELETE FROM movie"))
+					.isInstanceOf(SQLException.class);
+		}
+		assertThat(movieDao.listMovies()).hasSize(1);
+	}
+
+	@Test
+	public void shouldReadWhileAWriteTransactionIsOpen() throws Exception {
+		try (Connection writer = DataSourceFactory.getWriteDataSource().getConnection();
+			 Statement statement = writer.createStatement()) {
+			writer.setAutoCommit(false);
+			statement.executeUpdate("INSERT INTO movie(idmovie,title, release_date, genre_id, duration, director, summary) "
+					+ "VALUES (2, 'Title 2', '2015-11-14 12:00:00.000', 1, 114, 'director 2', 'summary 2')");
+
+			// WHEN - the writer holds the write lock, readers still get the last committed data
+			assertThat(movieDao.listMovies()).hasSize(1);
+
+			writer.commit();
+		}
+		assertThat(movieDao.listMovies()).hasSize(2);
+	}
+
+	@Test
+	public void shouldUseASingleWriterConnection() {
+		assertThat(DataSourceFactory.getWriteDataSource()).isSameAs(DataSourceFactory.getDataSource());
+		assertThat(DataSourceFactory.getReadDataSource()).isNotSameAs(DataSourceFactory.getWriteDataSource());
+		assertThat(((ConnectionPool) DataSourceFactory.getWriteDataSource()).getConfig().maxSize()).isEqualTo(1);
+	}
+}
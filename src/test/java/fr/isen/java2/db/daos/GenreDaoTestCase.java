@@ -1,6 +1,7 @@
 package fr.isen.java2.db.daos;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.Assertions.tuple;
 
 import java.sql.Connection;
@@ -36,6 +37,8 @@ public class GenreDaoTestCase {
 			stmt.executeUpdate("INSERT INTO genre(idgenre,name) VALUES (2,'Comedy')");
 			stmt.executeUpdate("INSERT INTO genre(idgenre,name) VALUES (3,'Thriller')");
 		}
+		// The table was rewritten behind the DAO's back
+		GenreCache.getInstance().invalidateAll();
 		// Connection and Statement automatically closed here!
 	}
 
@@ -92,4 +95,52 @@ public class GenreDaoTestCase {
 		}
 		// Resources automatically closed here, even if assertions fail!
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void shouldAddGenres() {
+		// WHEN
+		List<Genre> genres = genreDao.addGenres(List.of("Western", "Horror"));
+		
+		// THEN - ids are generated in input order
+		assertThat(genres).extracting("id", "name").containsExactly(tuple(4, "Western"), tuple(5, "Horror"));
+		assertThat(genreDao.listGenres()).hasSize(5);
+		assertThat(genreDao.getGenre("Horror")).map(Genre::getId).contains(5);
+	}
+
+	@Test
+	public void shouldGetGenreById() {
+		// WHEN
+		Optional<Genre> genreOptional = genreDao.getGenreById(3);
+		
+		// THEN
+		assertThat(genreOptional).map(Genre::getName).contains("Thriller");
+		assertThat(genreDao.getGenreById(42)).isEmpty();
+	}
+	
+	@Test
+	public void shouldNotLetCallersModifyCachedGenres() {
+		// GIVEN
+		Genre first = genreDao.getGenre("Drama").get();
+		
+		// WHEN - a caller tries to modify the genre it was given
+		assertThatThrownBy(() -> first.setName("Comedy")).isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> first.setId(2)).isInstanceOf(UnsupportedOperationException.class);
+		
+		// THEN - the next lookups still see the genre of the database
+		assertThat(genreDao.getGenre("Drama")).map(Genre::getId).contains(1);
+		assertThat(genreDao.getGenreById(1)).map(Genre::getName).contains("Drama");
+		assertThat(genreDao.getGenre("Comedy")).map(Genre::getId).contains(2);
+	}
+	
+	@Test
+	public void shouldInvalidateCacheOnAddGenre() {
+		// GIVEN - a miss is not cached
+		assertThat(genreDao.getGenre("Western")).isEmpty();
+		
+		// WHEN
+		genreDao.addGenre("Western");
+		
+		// THEN
+		assertThat(genreDao.getGenre("Western")).isPresent();
+	}
+}
@@ -0,0 +1,182 @@
+package fr.isen.java2.db.daos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import fr.isen.java2.db.entities.Genre;
+import fr.isen.java2.db.entities.Movie;
+
+/**
+ * Test cases for GroupCommitWriter.
+ */
+public class GroupCommitWriterTestCase {
+
+	private final Genre drama = new Genre(1, "Drama");
+
+	@BeforeEach
+	public void initDb() throws Exception {
+		try (Connection connection = DataSourceFactory.getDataSource().getConnection();
+			 Statement stmt = connection.createStatement()) {
+			stmt.executeUpdate("DELETE FROM movie");
+			stmt.executeUpdate("DELETE FROM genre");
+			stmt.executeUpdate("INSERT INTO genre(idgenre,name) VALUES (1,'Drama')");
+		}
+		GenreCache.getInstance().invalidateAll();
+	}
+
+	@Test
+	public void shouldGroupConcurrentInserts() throws Exception {
+		List<Future<Movie>> added = new ArrayList<>();
+
+		// WHEN - 8 threads insert 50 movies each
+		try (GroupCommitWriter writer = new GroupCommitWriter(64, Duration.ofMillis(5));
+			 ExecutorService threads = Executors.newFixedThreadPool(8)) {
+			for (int i = 0; i < 400; i++) {
+				Movie movie = newMovie("Movie " + i);
+				added.add(threads.submit(() -> writer.addMovie(movie).join()));
+			}
+			for (Future<Movie> future : added) {
+				future.get();
+			}
+
+			// THEN - fewer commits than inserts
+			GroupCommitStats stats = writer.getStats();
+			assertThat(stats.writes()).isEqualTo(400);
+			assertThat(stats.commits()).isLessThan(400);
+			assertThat(stats.fallbacks()).isZero();
+		}
+
+		List<Integer> ids = new ArrayList<>();
+		for (Future<Movie> future : added) {
+			ids.add(future.get().getId());
+		}
+		assertThat(ids).doesNotHaveDuplicates().doesNotContainNull();
+		assertThat(countMovies()).isEqualTo(400);
+	}
+
+	@Test
+	public void shouldOnlyFailTheFaultyInsertOfAGroup() throws Exception {
+		try (GroupCommitWriter writer = new GroupCommitWriter(10, Duration.ofMillis(200))) {
+			// WHEN - a movie without title is grouped with two valid inserts
+			CompletableFuture<Movie> first = writer.addMovie(newMovie("First"));
+			CompletableFuture<Movie> faulty = writer.addMovie(newMovie(null));
+			CompletableFuture<Genre> genre = writer.addGenre("Comedy");
+
+			// THEN
+			assertThat(first.join().getId()).isNotNull();
+			assertThatThrownBy(faulty::join).isInstanceOf(CompletionException.class)
+					.hasRootCauseInstanceOf(SQLException.class);
+			assertThat(genre.join().getName()).isEqualTo("Comedy");
+			assertThat(writer.getStats().fallbacks()).isEqualTo(1);
+		}
+		assertThat(countMovies()).isEqualTo(1);
+		assertThat(new GenreDao().getGenre("Comedy")).isPresent();
+	}
+
+	@Test
+	public void shouldCommitQueuedInsertsOnClose() throws Exception {
+		GroupCommitWriter writer = new GroupCommitWriter(10, Duration.ofSeconds(10));
+		CompletableFuture<Movie> added = writer.addMovie(newMovie("Queued"));
+
+		writer.close();
+
+		assertThat(added).isCompleted();
+		assertThat(added.join().getId()).isNotNull();
+		assertThatThrownBy(() -> writer.addMovie(newMovie("Late")).join())
+				.hasCauseInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	public void shouldFailTheWholeGroupWhenItsRollbackFails() throws Exception {
+		// GIVEN - connections whose rollback fails, leaving the transaction open
+		GroupCommitWriter.ConnectionSource failingRollbacks = timer -> {
+			Connection connection = timer.connectWriter();
+			return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+					(proxy, method, args) -> {
+						if (method.getName().equals("rollback")) {
+							throw new SQLException("cannot rollback");
+						}
+						try {
+							return method.invoke(connection, args);
+						} catch (InvocationTargetException e) {
+							throw e.getCause();
+						}
+					});
+		};
+
+		try (GroupCommitWriter writer = new GroupCommitWriter(10, Duration.ofMillis(200), failingRollbacks)) {
+			// WHEN - a movie without title is grouped with a valid insert
+			CompletableFuture<Movie> valid = writer.addMovie(newMovie("Valid"));
+			CompletableFuture<Movie> faulty = writer.addMovie(newMovie(null));
+
+			// THEN - both fail, and the valid one is not inserted again row by row
+			assertThatThrownBy(valid::join).isInstanceOf(CompletionException.class);
+			assertThatThrownBy(faulty::join).isInstanceOf(CompletionException.class);
+			assertThat(writer.getStats().fallbacks()).isZero();
+		}
+		assertThat(countMovies()).isZero();
+
+		// the connection holding the open transaction was discarded
+		new MovieDao().addMovie(newMovie("After"));
+		assertThat(countMovies()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldCompleteFuturesOnceTheConnectionIsReleased() throws Exception {
+		// GIVEN - a listener that writes, which needs the single writer connection
+		CatalogChangeListener writingListener = new CatalogChangeListener() {
+			@Override
+			public void moviesAdded(Collection<Genre> genres) {
+				new GenreDao().addGenre("Added by a listener");
+			}
+		};
+		CatalogChanges.addListener(writingListener);
+
+		try (GroupCommitWriter writer = new GroupCommitWriter()) {
+			// WHEN
+			CompletableFuture<Movie> added = writer.addMovie(newMovie("Movie"));
+
+			// THEN - the listener and the continuation get a connection
+			Movie movie = added.get(5, TimeUnit.SECONDS);
+			assertThat(movie.getId()).isNotNull();
+			assertThat(added.thenApply(ignored -> DataSourceFactory.getPoolStats().active()).join()).isZero();
+		} finally {
+			CatalogChanges.removeListener(writingListener);
+		}
+		assertThat(new GenreDao().getGenre("Added by a listener")).isPresent();
+	}
+
+	private Movie newMovie(String title) {
+		return new Movie(title, LocalDate.of(2020, 1, 1), drama, 100, "director", "summary");
+	}
+
+	private int countMovies() throws Exception {
+		try (Connection connection = DataSourceFactory.getDataSource().getConnection();
+			 Statement statement = connection.createStatement();
+			 ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM movie")) {
+			resultSet.next();
+			return resultSet.getInt(1);
+		}
+	}
+}
@@ -1,19 +1,28 @@
 package fr.isen.java2.db.daos;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.Assertions.tuple;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.Statement;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import fr.isen.java2.db.entities.CompactMovie;
 import fr.isen.java2.db.entities.Genre;
 import fr.isen.java2.db.entities.Movie;
+import fr.isen.java2.db.entities.MovieHeader;
 
 /**
  * Test cases for MovieDao class.
@@ -49,6 +58,8 @@ public class MovieDaoTestCase {
 			stmt.executeUpdate("INSERT INTO movie(idmovie,title, release_date, genre_id, duration, director, summary) "
 					+ "VALUES (3, 'Third title', '2015-12-12 12:00:00.000', 2, 176, 'director 3', 'summary of the third movie')");
 		}
+		// The genre table was rewritten behind the DAO's back
+		GenreCache.getInstance().invalidateAll();
 		// Connection and Statement automatically closed here!
 	}
 	
@@ -123,6 +134,19 @@ public class MovieDaoTestCase {
 		assertThat(unknownMovies).isEmpty();
 	}
 	
+	/**
+	 * Test that movies of the same genre share one canonical Genre instance.
+	 */
+	@Test
+	public void shouldShareGenreInstances() {
+		// WHEN
+		List<Movie> comedyMovies = movieDao.listMoviesByGenre("Comedy");
+		
+		// THEN
+		assertThat(comedyMovies.get(0).getGenre()).isSameAs(comedyMovies.get(1).getGenre());
+		assertThat(comedyMovies.get(0).getGenre()).isSameAs(new GenreDao().getGenre("Comedy").get());
+	}
+	
 	/**
 	 * Test that addMovie() correctly inserts a new movie and returns it with generated id.
 	 */
@@ -179,4 +203,544 @@ public class MovieDaoTestCase {
 		assertThat(allMovies).hasSize(4); // 3 initial + 1 new
 		assertThat(allMovies).anyMatch(m -> m.getTitle().equals("Inception"));
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Test that addMovies() inserts all movies and returns their ids in input order.
+	 */
+	@Test
+	public void shouldAddMovies() {
+		// GIVEN - more movies than the batch size, to span several batches
+		Genre comedyGenre = new Genre(2, "Comedy");
+		List<Movie> newMovies = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			newMovies.add(new Movie("Bulk " + i, LocalDate.of(2021, 1, i + 1), comedyGenre, 90 + i,
+					"director " + i, "summary " + i));
+		}
+
+		// WHEN
+		List<Movie> addedMovies = movieDao.addMovies(newMovies, 2);
+
+		// THEN - ids are generated and follow the input order
+		assertThat(addedMovies).extracting("title").containsExactly("Bulk 0", "Bulk 1", "Bulk 2", "Bulk 3", "Bulk 4");
+		assertThat(addedMovies).extracting("id").containsExactly(4, 5, 6, 7, 8);
+
+		// Verify the ids match the rows actually stored
+		List<Movie> comedyMovies = movieDao.listMoviesByGenre("Comedy");
+		assertThat(comedyMovies).hasSize(7);
+		assertThat(comedyMovies).extracting("id", "title").contains(tuple(4, "Bulk 0"), tuple(8, "Bulk 4"));
+	}
+
+	/**
+	 * Test that addMovies() inserts nothing when one of the movies is invalid.
+	 */
+	@Test
+	public void shouldRollBackAddMoviesOnFailure() {
+		// GIVEN - the second movie has no director, which is NOT NULL
+		Genre dramaGenre = new Genre(1, "Drama");
+		List<Movie> newMovies = List.of(
+			new Movie("Valid", LocalDate.of(2021, 1, 1), dramaGenre, 100, "someone", "summary"),
+			new Movie("Invalid", LocalDate.of(2021, 1, 2), dramaGenre, 100, null, "summary")
+		);
+
+		// WHEN / THEN
+		assertThatThrownBy(() -> movieDao.addMovies(newMovies)).isInstanceOf(RuntimeException.class);
+		assertThat(movieDao.listMovies()).hasSize(3);
+	}
+
+	/**
+	 * Test that streamMovies() returns the same movies as listMovies() and releases its connection.
+	 */
+	@Test
+	public void shouldStreamMovies() {
+		int activeBefore = DataSourceFactory.getReadPoolStats().active();
+
+		// WHEN
+		try (Stream<Movie> movies = movieDao.streamMovies(1)) {
+			// THEN - the stream holds a connection while open
+			assertThat(DataSourceFactory.getReadPoolStats().active()).isEqualTo(activeBefore + 1);
+			assertThat(movies.map(Movie::getTitle)).containsOnly("Title 1", "My Title 2", "Third title");
+		}
+
+		// THEN - closing the stream gives the connection back
+		assertThat(DataSourceFactory.getReadPoolStats().active()).isEqualTo(activeBefore);
+	}
+
+	/**
+	 * Test that streamMoviesByGenre() filters by genre name.
+	 */
+	@Test
+	public void shouldStreamMoviesByGenre() {
+		try (Stream<Movie> movies = movieDao.streamMoviesByGenre("Comedy")) {
+			assertThat(movies).extracting("id", "genre.name")
+				.containsOnly(tuple(2, "Comedy"), tuple(3, "Comedy"));
+		}
+		try (Stream<Movie> movies = movieDao.streamMoviesByGenre("Western")) {
+			assertThat(movies).isEmpty();
+		}
+	}
+
+	/**
+	 * Test that pageMovies() walks through all movies by id with a cursor.
+	 */
+	@Test
+	public void shouldPageMoviesById() {
+		// WHEN - first page
+		MoviePage firstPage = movieDao.pageMovies(null, 2);
+
+		// THEN
+		assertThat(firstPage.movies()).extracting("id").containsExactly(1, 2);
+		assertThat(firstPage.hasNext()).isTrue();
+
+		// WHEN - next page
+		MoviePage secondPage = movieDao.pageMovies(firstPage.nextCursor(), 2);
+
+		// THEN - last page has no cursor
+		assertThat(secondPage.movies()).extracting("id").containsExactly(3);
+		assertThat(secondPage.hasNext()).isFalse();
+	}
+
+	/**
+	 * Test that pageMovies() orders by release date and filters by genre.
+	 */
+	@Test
+	public void shouldPageMoviesByReleaseDate() {
+		// GIVEN - a movie added through the DAO, released between the existing ones
+		movieDao.addMovie(new Movie("Added", LocalDate.of(2015, 11, 20), new Genre(2, "Comedy"), 100,
+				"director 4", "summary"));
+
+		// WHEN
+		MoviePage firstPage = movieDao.pageMovies(MoviePage.Order.RELEASE_DATE, null, null, 2);
+		MoviePage secondPage = movieDao.pageMovies(MoviePage.Order.RELEASE_DATE, null, firstPage.nextCursor(), 2);
+
+		// THEN - 14/11, 20/11 then 26/11, 12/12
+		assertThat(firstPage.movies()).extracting("title").containsExactly("My Title 2", "Added");
+		assertThat(secondPage.movies()).extracting("title").containsExactly("Title 1", "Third title");
+		assertThat(secondPage.hasNext()).isFalse();
+
+		// WHEN - filtered by genre
+		MoviePage comedyPage = movieDao.pageMovies(MoviePage.Order.RELEASE_DATE, "Comedy",
+				new MoviePage.Cursor(LocalDate.of(2015, 11, 14), 2), 10);
+
+		// THEN
+		assertThat(comedyPage.movies()).extracting("title").containsExactly("Added", "Third title");
+	}
+
+	/**
+	 * Test that searchMovies() finds words in title, director and summary.
+	 */
+	@Test
+	public void shouldSearchMovies() {
+		// WHEN / THEN - a word of a summary
+		assertThat(movieDao.searchMovies("second", 10)).extracting("id").containsExactly(2);
+		
+		// WHEN / THEN - all words must match, case and punctuation are ignored
+		assertThat(movieDao.searchMovies("THIRD, movie!", 10)).extracting("id").containsExactly(3);
+		assertThat(movieDao.searchMovies("third first", 10)).isEmpty();
+		
+		// WHEN / THEN - prefix queries
+		assertThat(movieDao.searchMovies("dir", 10)).isEmpty();
+		assertThat(movieDao.searchMovies("dir", true, 10)).hasSize(3);
+		assertThat(movieDao.searchMovies("dir", true, 2)).hasSize(2);
+		
+		// WHEN / THEN - no word at all
+		assertThat(movieDao.searchMovies(" \"* ", 10)).isEmpty();
+	}
+	
+	/**
+	 * Test that the search index follows inserts and ranks title matches first.
+	 */
+	@Test
+	public void shouldSearchAddedMoviesByRelevance() {
+		// GIVEN - "summary" is in the title of this one, and in the summary of the others
+		movieDao.addMovie(new Movie("Summary", LocalDate.of(2020, 1, 1), new Genre(1, "Drama"), 100,
+				"someone", "nothing to see"));
+		
+		// WHEN
+		List<Movie> movies = movieDao.searchMovies("summary", 10);
+		
+		// THEN
+		assertThat(movies).hasSize(4);
+		assertThat(movies.get(0).getTitle()).isEqualTo("Summary");
+	}
+	
+	/**
+	 * Test that findMovies() combines the typed criteria and sort order.
+	 */
+	@Test
+	public void shouldFindMoviesByCriteria() {
+		// WHEN - release date range, both days included
+		MovieQuery november = MovieQuery.builder()
+			.releasedBetween(LocalDate.of(2015, 11, 14), LocalDate.of(2015, 11, 26))
+			.sort(MovieQuery.Sort.RELEASE_DATE)
+			.build();
+		
+		// THEN
+		assertThat(movieDao.findMovies(november)).extracting("id").containsExactly(2, 1);
+		
+		// WHEN / THEN - duration range, genres and descending order
+		assertThat(movieDao.findMovies(MovieQuery.builder()
+			.durationBetween(110, null)
+			.genres("Comedy", "Western")
+			.sort(MovieQuery.Sort.DURATION_DESC)
+			.build())).extracting("id").containsExactly(3, 2);
+		
+		// WHEN / THEN - director and limit
+		assertThat(movieDao.findMovies(MovieQuery.builder().director("director 1").build()))
+			.extracting("title").containsExactly("Title 1");
+		assertThat(movieDao.findMovies(MovieQuery.builder().sort(MovieQuery.Sort.TITLE).limit(2).build()))
+			.extracting("title").containsExactly("My Title 2", "Third title");
+		
+		// WHEN / THEN - no criteria
+		assertThat(movieDao.findMovies(MovieQuery.builder().build())).hasSize(3);
+		assertThatThrownBy(() -> MovieQuery.builder().durationBetween(120, 90))
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+	
+	/**
+	 * Test that a release date stored as epoch millis, once migrated, is paged and filtered like the others.
+	 */
+	@Test
+	public void shouldPageAndFilterReleaseDatesStoredAsMillis() throws Exception {
+		// GIVEN - movie 4 written before date_class=TEXT, then the V5 migration
+		try (Connection connection = DataSourceFactory.getDataSource().getConnection();
+			 Statement stmt = connection.createStatement()) {
+			stmt.executeUpdate("INSERT INTO movie(idmovie,title, release_date, genre_id, duration, director, summary) "
+					+ "VALUES (4, 'Inception', 1589493600000, 1, 148, 'director 4', 'summary')");
+			for (String sql : SchemaBootstrap.loadStatements("/sql/sqlite/V5__release_date_text.sql")) {
+				stmt.executeUpdate(sql);
+			}
+		}
+
+		// WHEN - one movie per page
+		List<Movie> paged = new ArrayList<>();
+		MoviePage page = null;
+		do {
+			page = movieDao.pageMovies(MoviePage.Order.RELEASE_DATE, null, page == null ? null : page.nextCursor(), 1);
+			paged.addAll(page.movies());
+		} while (page.hasNext());
+
+		// THEN
+		assertThat(paged).extracting("id").containsExactly(2, 1, 3, 4);
+		assertThat(paged.get(3).getReleaseDate()).isEqualTo(LocalDate.of(2020, 5, 14));
+		assertThat(movieDao.findMovies(MovieQuery.builder()
+			.releasedBetween(LocalDate.of(2020, 1, 1), LocalDate.of(2020, 12, 31)).build()))
+			.extracting("id").containsExactly(4);
+	}
+
+	/**
+	 * Test that findMovies() filters on the day SQLite reads from the release date,
+	 * like it sorts, and not on the stored value.
+	 */
+	@Test
+	public void shouldFilterReleaseDatesByDay() throws Exception {
+		// GIVEN - 26/11/2015 at noon stored as a Julian day number, and an unmigrated epoch millis
+		try (Connection connection = DataSourceFactory.getDataSource().getConnection();
+			 Statement stmt = connection.createStatement()) {
+			stmt.executeUpdate("INSERT INTO movie(idmovie,title, release_date, genre_id, duration, director, summary) "
+					+ "VALUES (4, 'Title 4', 2457353.0, 1, 95, 'director 4', 'summary')");
+			stmt.executeUpdate("INSERT INTO movie(idmovie,title, release_date, genre_id, duration, director, summary) "
+					+ "VALUES (5, 'Inception', 1589493600000, 1, 148, 'director 5', 'summary')");
+		}
+
+		// WHEN / THEN
+		assertThat(movieDao.findMovies(MovieQuery.builder()
+			.releasedBetween(LocalDate.of(2015, 11, 26), LocalDate.of(2015, 11, 26))
+			.sort(MovieQuery.Sort.RELEASE_DATE).build()))
+			.extracting("id").containsExactly(1, 4);
+		assertThat(movieDao.findMovies(MovieQuery.builder().releasedBetween(null, LocalDate.of(2015, 11, 14)).build()))
+			.extracting("id").containsExactly(2);
+	}
+
+	/**
+	 * Test that paging by release date one movie at a time returns every movie,
+	 * including those whose release date SQLite cannot read as a day.
+	 */
+	@Test
+	public void shouldPageEveryMovieByReleaseDate() throws Exception {
+		// GIVEN - a movie without release date and one still stored as epoch millis
+		try (Connection connection = DataSourceFactory.getDataSource().getConnection();
+			 Statement stmt = connection.createStatement()) {
+			stmt.executeUpdate("INSERT INTO movie(idmovie,title, release_date, genre_id, duration, director, summary) "
+					+ "VALUES (4, 'Title 4', NULL, 1, 95, 'director 4', 'summary')");
+			stmt.executeUpdate("INSERT INTO movie(idmovie,title, release_date, genre_id, duration, director, summary) "
+					+ "VALUES (5, 'Inception', 1589493600000, 1, 148, 'director 5', 'summary')");
+		}
+
+		for (MoviePage.Order order : MoviePage.Order.values()) {
+			// WHEN - one movie per page
+			List<Movie> paged = new ArrayList<>();
+			MoviePage page = null;
+			do {
+				page = movieDao.pageMovies(order, null, page == null ? null : page.nextCursor(), 1);
+				paged.addAll(page.movies());
+			} while (page.hasNext());
+
+			// THEN - each movie once, the days date() cannot read first
+			assertThat(paged).extracting("id")
+				.containsExactlyInAnyOrderElementsOf(movieDao.listMovies().stream().map(Movie::getId).toList())
+				.doesNotHaveDuplicates();
+			if (order == MoviePage.Order.RELEASE_DATE) {
+				assertThat(paged).extracting("id").containsExactly(4, 5, 2, 1, 3);
+			}
+		}
+	}
+
+	/**
+	 * Test that findMovies() orders movies released on the same day like pageMovies() does.
+	 */
+	@Test
+	public void shouldSortMoviesReleasedOnTheSameDayById() throws Exception {
+		// GIVEN - movie 4 is released earlier in the day than movie 1
+		try (Connection connection = DataSourceFactory.getDataSource().getConnection();
+			 Statement stmt = connection.createStatement()) {
+			stmt.executeUpdate("INSERT INTO movie(idmovie,title, release_date, genre_id, duration, director, summary) "
+					+ "VALUES (4, 'Title 4', '2015-11-26 08:00:00.000', 1, 95, 'director 4', 'summary')");
+		}
+
+		// WHEN
+		List<Movie> ascending = movieDao.findMovies(MovieQuery.builder().sort(MovieQuery.Sort.RELEASE_DATE).build());
+		List<Movie> descending = movieDao.findMovies(
+				MovieQuery.builder().sort(MovieQuery.Sort.RELEASE_DATE_DESC).build());
+		List<Movie> paged = new ArrayList<>();
+		MoviePage page = movieDao.pageMovies(MoviePage.Order.RELEASE_DATE, null, null, 2);
+		paged.addAll(page.movies());
+		paged.addAll(movieDao.pageMovies(MoviePage.Order.RELEASE_DATE, null, page.nextCursor(), 2).movies());
+
+		// THEN - the same day is ordered by id, whatever the time of day
+		assertThat(ascending).extracting("id").containsExactly(2, 1, 4, 3);
+		assertThat(paged).extracting("id").containsExactly(2, 1, 4, 3);
+		assertThat(descending).extracting("id").containsExactly(3, 4, 1, 2);
+		assertThat(queryPlan(MovieQuery.builder().sort(MovieQuery.Sort.RELEASE_DATE).build()))
+			.contains("movie_release_day_idx");
+	}
+
+	/**
+	 * Test that queries setting the same criteria share their SQL, and that it uses the indexes.
+	 */
+	@Test
+	public void shouldCompileCriteriaToIndexedStatement() throws Exception {
+		MovieQuery first = MovieQuery.builder().durationBetween(90, 100).genres("Drama", "Comedy", "Western").build();
+		MovieQuery second = MovieQuery.builder().durationBetween(60, 200).genres("A", "B", "C", "D").build();
+		
+		// THEN - 3 and 4 genres use the same 4 slots
+		assertThat(first.shape()).isEqualTo(second.shape());
+		assertThat(first.shape().genreSlots()).isEqualTo(4);
+		
+		// THEN - the duration, director and release date filters are index lookups
+		assertThat(queryPlan(MovieQuery.builder().durationBetween(90, 100).build()))
+			.contains("movie_duration_idx");
+		assertThat(queryPlan(MovieQuery.builder().director("director 1").build()))
+			.contains("movie_director_idx");
+		assertThat(queryPlan(MovieQuery.builder().releasedBetween(LocalDate.of(2015, 1, 1), LocalDate.of(2015, 12, 31)).build()))
+			.contains("movie_release_day_idx");
+	}
+	
+	private String queryPlan(MovieQuery query) throws Exception {
+		String sqlQuery = query.shape().toSql("SELECT movie.idmovie FROM movie JOIN genre ON movie.genre_id = genre.idgenre");
+		try (Connection connection = DataSourceFactory.getReadDataSource().getConnection();
+			 PreparedStatement statement = connection.prepareStatement("EXPLAIN QUERY PLAN " + sqlQuery)) {
+			query.bind(statement);
+			StringBuilder plan = new StringBuilder();
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+					plan.append(resultSet.getString("detail")).append('\n');
+				}
+			}
+			return plan.toString();
+		}
+	}
+
+	@Test
+	public void shouldListMovieHeadersWithoutSummary() {
+		// WHEN
+		List<MovieHeader> headers = movieDao.listMovieHeadersByGenre("Comedy");
+
+		// THEN
+		assertThat(headers).extracting("id", "title", "duration", "director", "genre.name")
+			.containsOnly(
+				tuple(2, "My Title 2", 114, "director 2", "Comedy"),
+				tuple(3, "Third title", 176, "director 3", "Comedy")
+			);
+		assertThat(movieDao.listMovieHeaders()).hasSize(3);
+		assertThat(headers.get(0).withSummary("summary").getSummary()).isEqualTo("summary");
+	}
+
+	@Test
+	public void shouldGetMovieById() {
+		// WHEN
+		Optional<Movie> movie = movieDao.getMovie(2);
+
+		// THEN
+		assertThat(movie).isPresent();
+		assertThat(movie.get()).extracting("id", "title", "duration", "genre.name")
+			.containsExactly(2, "My Title 2", 114, "Comedy");
+		assertThat(movieDao.getMovie(42)).isEmpty();
+	}
+
+	@Test
+	public void shouldGetMoviesInRequestedOrderAndReportMissingIds() {
+		// GIVEN - 1000 ids, more than one chunk, in no particular order
+		List<Integer> ids = new ArrayList<>(List.of(3, 42, 1, 3));
+		for (int id = 1000; id > 4; id--) {
+			ids.add(id);
+		}
+
+		// WHEN
+		MovieLookup lookup = movieDao.getMovies(ids);
+
+		// THEN
+		assertThat(lookup.movies()).extracting("id").containsExactly(3, 1);
+		assertThat(lookup.movies().get(0).getGenre().getName()).isEqualTo("Comedy");
+		assertThat(lookup.missingIds()).hasSize(996).startsWith(42, 1000, 999).endsWith(5);
+		assertThat(lookup.isComplete()).isFalse();
+		assertThat(movieDao.getMovies(List.of(2, 1)).isComplete()).isTrue();
+		assertThat(movieDao.getMovies(List.of()).movies()).isEmpty();
+		assertThatThrownBy(() -> movieDao.getMovies(Arrays.asList(2, null, 1)))
+			.isInstanceOf(NullPointerException.class);
+	}
+
+	@Test
+	public void shouldLoadSummariesOnDemand() throws Exception {
+		// GIVEN - a movie without summary
+		try (Connection connection = DataSourceFactory.getDataSource().getConnection();
+			 Statement stmt = connection.createStatement()) {
+			stmt.executeUpdate("UPDATE movie SET summary = NULL WHERE idmovie = 3");
+		}
+
+		// WHEN
+		Map<Integer, String> summaries = movieDao.getSummaries(List.of(2, 42, 3, 1, 2));
+
+		// THEN - in the order of the ids, without the unknown one
+		assertThat(summaries.keySet()).containsExactly(2, 3, 1);
+		assertThat(summaries).containsEntry(1, "summary of the first movie").containsEntry(3, null);
+		assertThat(movieDao.getSummary(2)).contains("summary of the second movie");
+		assertThat(movieDao.getSummary(3)).isEmpty();
+		assertThat(movieDao.getSummary(42)).isEmpty();
+		assertThat(movieDao.getSummaries(List.of())).isEmpty();
+		assertThatThrownBy(() -> movieDao.getSummaries(Arrays.asList(1, null)))
+			.isInstanceOf(NullPointerException.class);
+	}
+
+	@Test
+	public void shouldChunkIdListsIntoPowerOfTwoStatements() {
+		List<Integer> ids = new ArrayList<>();
+		for (int id = 1; id <= 1000; id++) {
+			ids.add(id);
+		}
+
+		List<List<Integer>> chunks = InListQuery.chunks(ids);
+
+		assertThat(chunks).extracting(List::size).containsExactly(512, 488);
+		assertThat(InListQuery.slotsFor(488)).isEqualTo(512);
+		assertThat(InListQuery.slotsFor(5)).isEqualTo(8);
+		assertThat(InListQuery.slotsFor(1)).isEqualTo(1);
+		assertThat(new InListQuery("SELECT x WHERE id IN (", ")").sql(List.of(7, 8, 9)))
+			.isEqualTo("SELECT x WHERE id IN (?, ?, ?, ?)");
+	}
+
+	@Test
+	public void shouldListCompactMoviesWithSharedDirectors() throws Exception {
+		// GIVEN - two movies of the same director, one without release date nor duration
+		try (Connection connection = DataSourceFactory.getDataSource().getConnection();
+			 Statement stmt = connection.createStatement()) {
+			stmt.executeUpdate("UPDATE movie SET director = 'director 2' WHERE idmovie = 3");
+			stmt.executeUpdate("UPDATE movie SET release_date = NULL, duration = NULL WHERE idmovie = 1");
+		}
+
+		// WHEN
+		List<CompactMovie> movies = movieDao.listCompactMovies(true);
+
+		// THEN
+		assertThat(movies).extracting(CompactMovie::getId, CompactMovie::getTitle, CompactMovie::getReleaseDate,
+				CompactMovie::getDuration)
+			.containsExactly(
+				tuple(1, "Title 1", null, CompactMovie.NO_DURATION),
+				tuple(2, "My Title 2", LocalDate.of(2015, 11, 14), 114),
+				tuple(3, "Third title", LocalDate.of(2015, 12, 12), 176)
+			);
+		assertThat(movies.get(1).getDirector()).isSameAs(movies.get(2).getDirector());
+		assertThat(movies.get(1).getGenre()).isSameAs(movies.get(2).getGenre());
+		assertThat(movies.get(0).hasReleaseDate()).isFalse();
+		assertThat(movies.get(1).toMovie("summary")).extracting("id", "duration", "summary")
+			.containsExactly(2, 114, "summary");
+		try (Stream<CompactMovie> stream = movieDao.streamCompactMovies(false)) {
+			assertThat(stream.map(CompactMovie::getReleaseEpochDay))
+				.containsExactly(CompactMovie.NO_RELEASE_DATE, (int) LocalDate.of(2015, 11, 14).toEpochDay(),
+					(int) LocalDate.of(2015, 12, 12).toEpochDay());
+		}
+	}
+
+	@Test
+	public void shouldPollWholeCatalogFromStart() {
+		List<Genre> genres = new ArrayList<>();
+		List<Movie> movies = new ArrayList<>();
+
+		// WHEN - a new consumer polls in batches of 2
+		long watermark = ChangeBatch.FROM_START;
+		ChangeBatch batch;
+		do {
+			batch = movieDao.pollChanges(watermark, 2);
+			assertThat(batch.watermark()).isGreaterThan(watermark);
+			genres.addAll(batch.genres());
+			movies.addAll(batch.movies());
+			watermark = batch.watermark();
+		} while (batch.hasMore());
+
+		// THEN - genres were inserted before their movies
+		assertThat(genres).extracting("name").containsExactly("Drama", "Comedy");
+		assertThat(movies).extracting("id", "title", "genre.name")
+			.containsExactly(
+				tuple(1, "Title 1", "Drama"),
+				tuple(2, "My Title 2", "Comedy"),
+				tuple(3, "Third title", "Comedy")
+			);
+		assertThat(movieDao.pollChanges(watermark, 2).isEmpty()).isTrue();
+	}
+
+	@Test
+	public void shouldPollOnlyTheChangesAfterTheWatermark() throws Exception {
+		// GIVEN - a consumer that has caught up
+		long watermark = ChangeBatch.FROM_START;
+		ChangeBatch batch;
+		do {
+			batch = movieDao.pollChanges(watermark, 100);
+			watermark = batch.watermark();
+		} while (batch.hasMore());
+
+		// WHEN - 3 inserts, an update, a delete and a new genre
+		Genre drama = new Genre(1, "Drama");
+		movieDao.addMovies(List.of(
+			new Movie("New 1", LocalDate.of(2020, 1, 1), drama, 90, "director", null),
+			new Movie("New 2", LocalDate.of(2020, 1, 2), drama, 91, "director", null),
+			new Movie("New 3", LocalDate.of(2020, 1, 3), drama, 92, "director", null)));
+		try (Connection connection = DataSourceFactory.getDataSource().getConnection();
+			 Statement stmt = connection.createStatement()) {
+			stmt.executeUpdate("UPDATE movie SET title = 'New 1 (director''s cut)' WHERE title = 'New 1'");
+			stmt.executeUpdate("UPDATE movie SET duration = 121 WHERE idmovie = 1");
+			stmt.executeUpdate("DELETE FROM movie WHERE idmovie = 2");
+		}
+		new GenreDao().addGenre("Horror");
+
+		// THEN - each changed row once, in its current state
+		ChangeBatch first = movieDao.pollChanges(watermark, 4);
+		assertThat(first.hasMore()).isTrue();
+		assertThat(first.movies()).extracting("title", "duration")
+			.containsExactly(
+				tuple("New 2", 91),
+				tuple("New 3", 92),
+				tuple("New 1 (director's cut)", 90),
+				tuple("Title 1", 121)
+			);
+		assertThat(first.genres()).isEmpty();
+
+		ChangeBatch second = movieDao.pollChanges(first.watermark(), 4);
+		assertThat(second.hasMore()).isFalse();
+		assertThat(second.movies()).isEmpty();
+		assertThat(second.deletedMovieIds()).containsExactly(2);
+		assertThat(second.genres()).extracting("name").containsExactly("Horror");
+
+		ChangeBatch caughtUp = movieDao.pollChanges(second.watermark(), 4);
+		assertThat(caughtUp.isEmpty()).isTrue();
+		assertThat(caughtUp.watermark()).isEqualTo(second.watermark());
+	}
+}
@@ -0,0 +1,73 @@
+package fr.isen.java2.db.daos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import fr.isen.java2.db.daos.MovieStatsDao.GenreStats;
+import fr.isen.java2.db.daos.MovieStatsDao.MovieDuration;
+import fr.isen.java2.db.daos.MovieStatsDao.YearCount;
+
+/**
+ * Test cases for MovieStatsDao.
+ */
+public class MovieStatsDaoTestCase {
+
+	private final MovieStatsDao movieStatsDao = new MovieStatsDao();
+
+	@BeforeEach
+	public void initDb() throws Exception {
+		try (Connection connection = DataSourceFactory.getDataSource().getConnection();
+			 Statement stmt = connection.createStatement()) {
+			stmt.executeUpdate("DELETE FROM movie");
+			stmt.executeUpdate("DELETE FROM genre");
+			stmt.executeUpdate("INSERT INTO genre(idgenre,name) VALUES (1,'Drama')");
+			stmt.executeUpdate("INSERT INTO genre(idgenre,name) VALUES (2,'Comedy')");
+			stmt.executeUpdate("INSERT INTO genre(idgenre,name) VALUES (3,'Western')");
+			stmt.executeUpdate("INSERT INTO movie(idmovie,title, release_date, genre_id, duration, director, summary) "
+					+ "VALUES (1, 'Title 1', '2015-11-26 12:00:00.000', 1, 120, 'director 1', 'summary of the first movie')");
+			stmt.executeUpdate("INSERT INTO movie(idmovie,title, release_date, genre_id, duration, director, summary) "
+					+ "VALUES (2, 'My Title 2', '2015-11-14 12:00:00.000', 2, 114, 'director 2', 'summary of the second movie')");
+			stmt.executeUpdate("INSERT INTO movie(idmovie,title, release_date, genre_id, duration, director, summary) "
+					+ "VALUES (3, 'Third title', '2016-12-12 12:00:00.000', 2, 176, 'director 3', 'summary of the third movie')");
+		}
+		GenreCache.getInstance().invalidateAll();
+	}
+
+	@Test
+	public void shouldComputeGenreStats() {
+		// WHEN
+		List<GenreStats> stats = movieStatsDao.getGenreStats();
+
+		// THEN - ordered by name, empty genres included
+		assertThat(stats).containsExactly(
+			new GenreStats(2, "Comedy", 2, 145.0, 114, 176),
+			new GenreStats(1, "Drama", 1, 120.0, 120, 120),
+			new GenreStats(3, "Western", 0, null, null, null)
+		);
+	}
+
+	@Test
+	public void shouldCountReleasesPerYear() {
+		assertThat(movieStatsDao.getReleasesPerYear()).containsExactly(
+			new YearCount(2015, 2),
+			new YearCount(2016, 1)
+		);
+	}
+
+	@Test
+	public void shouldListLongestMovies() {
+		assertThat(movieStatsDao.getLongestMovies(2)).containsExactly(
+			new MovieDuration(3, "Third title", 176),
+			new MovieDuration(1, "Title 1", 120)
+		);
+		assertThat(movieStatsDao.getLongestMovies("Comedy", 5)).extracting(MovieDuration::movieId)
+			.containsExactly(3, 2);
+		assertThat(movieStatsDao.getLongestMovies("Western", 5)).isEmpty();
+	}
+}
@@ -0,0 +1,163 @@
+package fr.isen.java2.db.daos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import fr.isen.java2.db.entities.Genre;
+import fr.isen.java2.db.entities.Movie;
+
+/**
+ * Test cases for ResultCache and the caching DAOs.
+ */
+public class ResultCacheTestCase {
+
+	@BeforeEach
+	public void initDb() throws Exception {
+		try (Connection connection = DataSourceFactory.getDataSource().getConnection();
+			 Statement stmt = connection.createStatement()) {
+			stmt.executeUpdate("DELETE FROM movie");
+			stmt.executeUpdate("DELETE FROM genre");
+			stmt.executeUpdate("INSERT INTO genre(idgenre,name) VALUES (1,'Drama')");
+			stmt.executeUpdate("INSERT INTO genre(idgenre,name) VALUES (2,'Comedy')");
+			stmt.executeUpdate("INSERT INTO movie(idmovie,title, release_date, genre_id, duration, director, summary) "
+					+ "VALUES (1, 'Title 1', '2015-11-26 12:00:00.000', 1, 120, 'director 1', 'summary 1')");
+		}
+		GenreCache.getInstance().invalidateAll();
+	}
+
+	@Test
+	public void shouldInvalidateOnlyTheGenreOfAddedMovies() {
+		try (CachingMovieDao movieDao = new CachingMovieDao()) {
+			// GIVEN - both genres cached
+			assertThat(movieDao.listMoviesByGenre("Drama")).hasSize(1);
+			assertThat(movieDao.listMoviesByGenre("Comedy")).isEmpty();
+
+			// WHEN - a comedy is added, with a genre known by id only
+			new MovieDao().addMovie(new Movie("New", LocalDate.of(2020, 1, 1), new Genre(2, null), 90, "director", null));
+
+			// THEN
+			assertThat(movieDao.listMoviesByGenre("Drama")).hasSize(1);
+			assertThat(movieDao.listMoviesByGenre("Comedy")).extracting(Movie::getTitle).containsExactly("New");
+			CacheStats stats = movieDao.getCacheStats();
+			assertThat(stats.loads()).isEqualTo(3);
+			assertThat(stats.hits()).isEqualTo(1);
+			assertThat(stats.hitRatio()).isEqualTo(0.25);
+			assertThat(stats.averageLoadTime()).isPositive();
+			assertThatThrownBy(() -> movieDao.listMoviesByGenre("Drama").clear())
+					.isInstanceOf(UnsupportedOperationException.class);
+		}
+	}
+
+	@Test
+	public void shouldInvalidateTheStoredNameOfTheGenre() {
+		try (CachingMovieDao movieDao = new CachingMovieDao()) {
+			// GIVEN
+			assertThat(movieDao.listMoviesByGenre("Comedy")).isEmpty();
+
+			// WHEN - a comedy is added, with an id and a name that does not match the stored one
+			new MovieDao().addMovie(new Movie("New", LocalDate.of(2020, 1, 1), new Genre(2, "comedy"), 90, "director", null));
+
+			// THEN
+			assertThat(movieDao.listMoviesByGenre("Comedy")).extracting(Movie::getTitle).containsExactly("New");
+		}
+	}
+
+	@Test
+	public void shouldInvalidateGenresWhenOneIsAdded() {
+		try (CachingGenreDao genreDao = new CachingGenreDao()) {
+			assertThat(genreDao.listGenres()).hasSize(2);
+			assertThat(genreDao.listGenres()).hasSize(2);
+
+			genreDao.addGenres(List.of("Western"));
+
+			assertThat(genreDao.listGenres()).extracting(Genre::getName).contains("Western");
+			assertThat(genreDao.getCacheStats().hits()).isEqualTo(1);
+		}
+	}
+
+	@Test
+	public void shouldEvictLeastRecentlyUsedAndExpiredResults() throws Exception {
+		ResultCache<String, List<Integer>> cache = new ResultCache<>(5, Duration.ofMillis(200), List::size);
+		cache.get("a", key -> List.of(1, 2));
+		cache.get("b", key -> List.of(1, 2));
+		cache.get("a", key -> List.of());
+
+		// "b" is the least recently used
+		cache.get("c", key -> List.of(1, 2));
+
+		assertThat(cache.get("a", key -> List.of())).hasSize(2);
+		assertThat(cache.get("b", key -> List.of())).isEmpty();
+		assertThat(cache.getStats().evictions()).isEqualTo(1);
+
+		TimeUnit.MILLISECONDS.sleep(250);
+		assertThat(cache.get("a", key -> List.of())).isEmpty();
+	}
+
+	@Test
+	public void shouldLoadOnceForConcurrentMisses() throws Exception {
+		ResultCache<String, String> cache = new ResultCache<>(10, Duration.ofMinutes(1), value -> 1);
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		List<Future<String>> results = new ArrayList<>();
+
+		try (ExecutorService threads = Executors.newFixedThreadPool(4)) {
+			results.add(threads.submit(() -> cache.get("key", key -> {
+				loads.incrementAndGet();
+				loading.countDown();
+				await(release);
+				return "value";
+			})));
+			loading.await();
+			for (int i = 0; i < 3; i++) {
+				results.add(threads.submit(() -> cache.get("key", key -> "other " + loads.incrementAndGet())));
+			}
+			// Let the other threads reach the pending load
+			TimeUnit.MILLISECONDS.sleep(100);
+			release.countDown();
+
+			for (Future<String> result : results) {
+				assertThat(result.get()).isEqualTo("value");
+			}
+		}
+		assertThat(loads).hasValue(1);
+		assertThat(cache.getStats().misses()).isEqualTo(4);
+	}
+
+	@Test
+	public void shouldNotStoreALoadInvalidatedWhileRunning() {
+		ResultCache<String, String> cache = new ResultCache<>(10, Duration.ofMinutes(1), value -> 1);
+
+		String stale = cache.get("key", key -> {
+			cache.invalidate("key");
+			return "stale";
+		});
+
+		assertThat(stale).isEqualTo("stale");
+		assertThat(cache.get("key", key -> "fresh")).isEqualTo("fresh");
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
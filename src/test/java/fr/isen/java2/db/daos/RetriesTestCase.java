@@ -0,0 +1,162 @@
+package fr.isen.java2.db.daos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases for the retries of operations failing on a busy or locked database.
+ * The write lock is held by a connection outside the pools, as another process would.
+ */
+public class RetriesTestCase {
+
+	private final GenreDao genreDao = new GenreDao();
+
+	private RetryPolicy defaultPolicy;
+
+	@BeforeEach
+	public void initDb() throws Exception {
+		try (Connection connection = DataSourceFactory.getDataSource().getConnection();
+			 Statement stmt = connection.createStatement()) {
+			stmt.executeUpdate("DELETE FROM movie");
+			stmt.executeUpdate("DELETE FROM genre");
+		}
+		GenreCache.getInstance().invalidateAll();
+		defaultPolicy = DataSourceFactory.getRetryPolicy();
+		DaoMetrics.reset();
+	}
+
+	@AfterEach
+	public void restorePolicy() {
+		DataSourceFactory.setRetryPolicy(defaultPolicy);
+	}
+
+	@Test
+	public void shouldRetryWriteUntilLockIsReleased() throws Exception {
+		// GIVEN - another connection holds the write lock for longer than busy_timeout
+		try (Connection other = openOtherConnection()) {
+			other.createStatement().executeUpdate("INSERT INTO genre(name) VALUES ('Lock holder')");
+			Thread release = Thread.ofVirtual().start(() -> rollbackAfter(other, 1_300));
+
+			// WHEN
+			genreDao.addGenre("Western");
+			release.join();
+		}
+
+		// THEN - inserted once, after at least one busy attempt
+		assertThat(countGenres("Western")).isEqualTo(1);
+		ContentionStats stats = DaoMetrics.getContentionStats();
+		assertThat(stats.busyErrors()).isPositive();
+		assertThat(stats.retries()).isEqualTo(stats.busyErrors());
+		assertThat(stats.exhausted()).isZero();
+		assertThat(stats.lockWaitTime()).isGreaterThan(Duration.ofMillis(500));
+	}
+
+	@Test
+	public void shouldGiveUpAfterMaxAttempts() throws Exception {
+		DataSourceFactory.setRetryPolicy(new RetryPolicy(2, Duration.ofMillis(1), Duration.ofMillis(1),
+				Duration.ofSeconds(10)));
+
+		try (Connection other = openOtherConnection()) {
+			other.createStatement().executeUpdate("INSERT INTO genre(name) VALUES ('Lock holder')");
+			try {
+				assertThatThrownBy(() -> genreDao.addGenre("Western")).isInstanceOf(RuntimeException.class)
+						.hasCauseInstanceOf(SQLException.class);
+			} finally {
+				other.rollback();
+			}
+		}
+
+		ContentionStats stats = DaoMetrics.getContentionStats();
+		assertThat(stats.busyErrors()).isEqualTo(2);
+		assertThat(stats.retries()).isEqualTo(1);
+		assertThat(stats.exhausted()).isEqualTo(1);
+		assertThat(countGenres("Western")).isZero();
+	}
+
+	@Test
+	public void shouldNotRetryWriteWhoseRollbackFailed() {
+		AtomicInteger attempts = new AtomicInteger();
+
+		assertThatThrownBy(() -> Retries.write(() -> {
+			attempts.incrementAndGet();
+			SQLException busy = new SQLException("database is locked", null, 5);
+			busy.addSuppressed(new SQLException("cannot rollback"));
+			throw busy;
+		})).isInstanceOf(SQLException.class);
+
+		assertThat(attempts).hasValue(1);
+	}
+
+	@Test
+	public void shouldRetryReadsAndIgnoreOtherErrors() throws Exception {
+		DataSourceFactory.setRetryPolicy(new RetryPolicy(3, Duration.ZERO, Duration.ZERO, Duration.ofSeconds(1)));
+		AtomicInteger attempts = new AtomicInteger();
+
+		// SQLITE_BUSY_SNAPSHOT (517) is an extended code of SQLITE_BUSY
+		String result = Retries.read(() -> {
+			if (attempts.incrementAndGet() < 3) {
+				throw new SQLException("busy", null, 517);
+			}
+			return "read";
+		});
+		assertThat(result).isEqualTo("read");
+		assertThat(attempts).hasValue(3);
+
+		// a constraint violation (SQLITE_CONSTRAINT = 19) is not retried
+		attempts.set(0);
+		assertThatThrownBy(() -> Retries.read(() -> {
+			attempts.incrementAndGet();
+			throw new SQLException("constraint failed", null, 19);
+		})).isInstanceOf(SQLException.class);
+		assertThat(attempts).hasValue(1);
+	}
+
+	@Test
+	public void shouldBoundBackoffWithJitter() {
+		RetryPolicy policy = new RetryPolicy(10, Duration.ofMillis(10), Duration.ofSeconds(1), Duration.ofSeconds(30));
+
+		assertThat(policy.backoffNanos(1)).isBetween(5_000_000L, 10_000_000L);
+		assertThat(policy.backoffNanos(3)).isBetween(20_000_000L, 40_000_000L);
+		assertThat(policy.backoffNanos(40)).isBetween(500_000_000L, 1_000_000_000L);
+	}
+
+	private Connection openOtherConnection() throws SQLException {
+		String url;
+		try (Connection connection = DataSourceFactory.getReadDataSource().getConnection()) {
+			url = connection.getMetaData().getURL();
+		}
+		Connection other = DriverManager.getConnection(url);
+		other.setAutoCommit(false);
+		return other;
+	}
+
+	private static void rollbackAfter(Connection connection, long millis) {
+		try {
+			Thread.sleep(millis);
+			connection.rollback();
+		} catch (InterruptedException | SQLException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private int countGenres(String name) throws SQLException {
+		try (Connection connection = DataSourceFactory.getReadDataSource().getConnection();
+			 Statement statement = connection.createStatement();
+			 ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM genre WHERE name = '" + name + "'")) {
+			resultSet.next();
+			return resultSet.getInt(1);
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package fr.isen.java2.db.daos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test cases for SchemaBootstrap and SqliteSettings, on a temporary database.
+ */
+public class SchemaBootstrapTestCase {
+
+	@TempDir
+	Path tempDir;
+
+	private ConnectionPool pool;
+
+	@BeforeEach
+	public void createPool() {
+		pool = new ConnectionPool("jdbc:sqlite:" + tempDir.resolve("schema.db"),
+				new PoolConfig(0, 2, Duration.ofSeconds(1), Duration.ZERO, Duration.ofSeconds(1), 8),
+				SqliteSettings.fromSystemProperties()::apply);
+	}
+
+	@AfterEach
+	public void closePool() {
+		pool.close();
+	}
+
+	@Test
+	public void shouldCreateSchemaOnEmptyDatabase() throws Exception {
+		// WHEN
+		int version = SchemaBootstrap.migrate(pool);
+
+		// THEN - tables, indexes and search index exist
+		assertThat(version).isEqualTo(SchemaBootstrap.MIGRATIONS.size());
+		assertThat(schemaObjects()).contains(
+			"genre", "movie", "genre_name_idx", "genre_fk_idx", "movie_release_date_idx",
+			"movie_release_day_idx", "movie_fts", "movie_fts_after_insert", "movie_duration_idx", "movie_director_idx",
+			"change_log", "movie_change_after_insert", "genre_change_after_insert");
+	}
+
+	@Test
+	public void shouldBeIdempotent() throws Exception {
+		SchemaBootstrap.migrate(pool);
+		List<String> objects = schemaObjects();
+
+		// WHEN - run again, e.g. at the next start
+		int version = SchemaBootstrap.migrate(pool);
+
+		// THEN
+		assertThat(version).isEqualTo(SchemaBootstrap.MIGRATIONS.size());
+		assertThat(schemaObjects()).isEqualTo(objects);
+	}
+
+	@Test
+	public void shouldUpgradeExistingTablesAndIndexTheirRows() throws Exception {
+		// GIVEN - a database created by hand, like the test database
+		try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+			statement.executeUpdate("CREATE TABLE genre (idgenre INTEGER NOT NULL PRIMARY KEY AUTOINCREMENT, "
+					+ "name VARCHAR(50) NOT NULL)");
+			statement.executeUpdate("CREATE TABLE movie (idmovie INTEGER NOT NULL PRIMARY KEY AUTOINCREMENT, "
+					+ "title VARCHAR(100) NOT NULL, release_date DATETIME NULL, genre_id INT NOT NULL, "
+					+ "duration INT NULL, director VARCHAR(100) NOT NULL, summary MEDIUMTEXT NULL)");
+			// stored as epoch millis, as before date_class=TEXT
+			statement.executeUpdate("INSERT INTO movie(title, release_date, genre_id, director, summary) "
+					+ "VALUES ('Existing', 1589493600000, 1, 'someone', 'already there')");
+		}
+
+		// WHEN
+		SchemaBootstrap.migrate(pool);
+
+		// THEN - the existing row is searchable, in the change feed and its date is a text
+		try (Connection connection = pool.getConnection();
+			 Statement statement = connection.createStatement()) {
+			try (ResultSet resultSet = statement.executeQuery("SELECT rowid FROM movie_fts WHERE movie_fts MATCH 'already'")) {
+				assertThat(resultSet.next()).isTrue();
+				assertThat(resultSet.getInt(1)).isEqualTo(1);
+			}
+			try (ResultSet resultSet = statement.executeQuery("SELECT release_date, date(release_date) FROM movie")) {
+				assertThat(resultSet.next()).isTrue();
+				assertThat(resultSet.getString(1)).isEqualTo("2020-05-14 22:00:00.000");
+				assertThat(resultSet.getString(2)).isEqualTo("2020-05-14");
+			}
+			try (ResultSet resultSet = statement.executeQuery("SELECT entity, entity_id FROM change_log")) {
+				assertThat(resultSet.next()).isTrue();
+				assertThat(resultSet.getString(1)).isEqualTo("movie");
+				assertThat(resultSet.getInt(2)).isEqualTo(1);
+			}
+		}
+	}
+
+	@Test
+	public void shouldApplyPragmasToNewConnections() throws Exception {
+		try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+			assertThat(pragma(statement, "journal_mode")).isEqualTo("wal");
+			assertThat(pragma(statement, "synchronous")).isEqualTo("1");
+			assertThat(pragma(statement, "temp_store")).isEqualTo("2");
+		}
+	}
+
+	@Test
+	public void shouldRejectInvalidPragmaValues() {
+		assertThatThrownBy(() -> new SqliteSettings("WAL; DROP TABLE movie", "NORMAL", 0, 0, "MEMORY", 0))
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void shouldSplitScriptsWithTriggers() {
+		List<String> statements = SchemaBootstrap.splitStatements(
+			"-- comment\n"
+			+ "CREATE TABLE t (id INTEGER);\n"
+			+ "CREATE TRIGGER tr AFTER INSERT ON t BEGIN\n"
+			+ "  INSERT INTO u VALUES (new.id);\n"
+			+ "  INSERT INTO v VALUES (new.id);\n"
+			+ "END;\n"
+			+ "\n"
+			+ "INSERT INTO t VALUES (1);\n");
+
+		assertThat(statements).hasSize(3);
+		assertThat(statements.get(0)).isEqualTo("CREATE TABLE t (id INTEGER)");
+		assertThat(statements.get(1)).startsWith("CREATE TRIGGER").endsWith("END;").contains("INSERT INTO v");
+		assertThat(statements.get(2)).isEqualTo("INSERT INTO t VALUES (1)");
+	}
+
+	private List<String> schemaObjects() throws Exception {
+		List<String> names = new ArrayList<>();
+		try (Connection connection = pool.getConnection();
+			 Statement statement = connection.createStatement();
+			 ResultSet resultSet = statement.executeQuery("SELECT name FROM sqlite_master ORDER BY name")) {
+			while (resultSet.next()) {
+				names.add(resultSet.getString(1));
+			}
+		}
+		return names;
+	}
+
+	private static String pragma(Statement statement, String name) throws Exception {
+		try (ResultSet resultSet = statement.executeQuery("PRAGMA " + name)) {
+			resultSet.next();
+			return resultSet.getString(1);
+		}
+	}
+}
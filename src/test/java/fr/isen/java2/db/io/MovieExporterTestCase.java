@@ -0,0 +1,143 @@
+package fr.isen.java2.db.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import fr.isen.java2.db.daos.DataSourceFactory;
+import fr.isen.java2.db.daos.MovieDao;
+import fr.isen.java2.db.entities.Movie;
+
+/**
+ * Test cases for MovieExporter.
+ */
+public class MovieExporterTestCase {
+
+	@TempDir
+	Path tempDir;
+
+	private final MovieDao movieDao = new MovieDao();
+
+	@BeforeEach
+	public void initDb() throws Exception {
+		try (Connection connection = DataSourceFactory.getDataSource().getConnection();
+			 Statement stmt = connection.createStatement()) {
+			stmt.executeUpdate("DELETE FROM movie");
+			stmt.executeUpdate("DELETE FROM genre");
+			stmt.executeUpdate("INSERT INTO genre(idgenre,name) VALUES (1,'Drama')");
+			stmt.executeUpdate("INSERT INTO genre(idgenre,name) VALUES (2,'Comédie')");
+			stmt.executeUpdate("INSERT INTO movie(idmovie,title, release_date, genre_id, duration, director, summary) "
+					+ "VALUES (1, 'Title, \"one\"', '2015-11-26 12:00:00.000', 1, 120, 'director 1', 'line 1\nline 2\\')");
+			stmt.executeUpdate("INSERT INTO movie(idmovie,title, release_date, genre_id, duration, director, summary) "
+					+ "VALUES (2, 'Été', NULL, 2, NULL, 'director 2', NULL)");
+		}
+	}
+
+	@Test
+	public void shouldExportCsv() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		long rows = new MovieExporter().exportTo(output, CatalogFormat.CSV, false);
+
+		assertThat(rows).isEqualTo(2);
+		assertThat(output.toString(StandardCharsets.UTF_8)).isEqualTo("""
+				id,title,release_date,genre,duration,director,summary
+				1,"Title, ""one\"\"",2015-11-26,Drama,120,director 1,"line 1
+				line 2\\"
+				2,Été,,Comédie,,director 2,
+				""");
+	}
+
+	@Test
+	public void shouldExportNdjson() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		new MovieExporter().exportTo(output, CatalogFormat.NDJSON, false);
+
+		assertThat(output.toString(StandardCharsets.UTF_8).lines()).containsExactly(
+				"{\"id\":1,\"title\":\"Title, \\\"one\\\"\",\"release_date\":\"2015-11-26\",\"genre\":\"Drama\","
+						+ "\"duration\":120,\"director\":\"director 1\",\"summary\":\"line 1\\nline 2\\\\\"}",
+				"{\"id\":2,\"title\":\"Été\",\"release_date\":null,\"genre\":\"Comédie\",\"duration\":null,"
+						+ "\"director\":\"director 2\",\"summary\":null}");
+	}
+
+	@Test
+	public void shouldReimportGzippedExport() throws Exception {
+		// GIVEN
+		List<Movie> exported = movieDao.listMovies();
+		Path file = tempDir.resolve("movies.csv.gz");
+
+		// WHEN - exported, deleted, then imported again
+		assertThat(new MovieExporter().exportFile(file)).isEqualTo(2);
+		try (Connection connection = DataSourceFactory.getDataSource().getConnection();
+			 Statement stmt = connection.createStatement()) {
+			stmt.executeUpdate("DELETE FROM movie");
+		}
+		new MovieImporter().importFile(file);
+
+		// THEN - the same movies, with new ids
+		assertThat(movieDao.listMovies())
+				.usingRecursiveFieldByFieldElementComparatorIgnoringFields("id")
+				.containsExactlyElementsOf(exported);
+	}
+
+	@Test
+	public void shouldLeaveTheCallersChannelOpen() throws Exception {
+		// GIVEN - a gzip file written through a channel owned by the caller
+		Path file = tempDir.resolve("movies.csv.gz");
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+			// WHEN
+			long rows = new MovieExporter().exportTo(channel, CatalogFormat.CSV, true);
+
+			// THEN - the channel can still be written, after a complete gzip stream
+			assertThat(rows).isEqualTo(2);
+			assertThat(channel.isOpen()).isTrue();
+			assertThat(channel.position()).isEqualTo(Files.size(file));
+		}
+		try (InputStream input = new GZIPInputStream(Files.newInputStream(file))) {
+			assertThat(new String(input.readAllBytes(), StandardCharsets.UTF_8).lines()).hasSize(4);
+		}
+	}
+
+	@Test
+	public void shouldReimportReleaseDatesStoredAsMillis() throws Exception {
+		// GIVEN - a release date written as epoch millis, before date_class=TEXT
+		try (Connection connection = DataSourceFactory.getDataSource().getConnection();
+			 Statement stmt = connection.createStatement()) {
+			stmt.executeUpdate("INSERT INTO movie(idmovie,title, release_date, genre_id, duration, director, summary) "
+					+ "VALUES (3, 'Inception', 1589493600000, 1, 148, 'director 3', 'summary')");
+		}
+		Path file = tempDir.resolve("movies.ndjson");
+
+		// WHEN - exported, deleted, then imported again
+		new MovieExporter().exportFile(file);
+		try (Connection connection = DataSourceFactory.getDataSource().getConnection();
+			 Statement stmt = connection.createStatement()) {
+			stmt.executeUpdate("DELETE FROM movie");
+		}
+		new MovieImporter().importFile(file);
+
+		// THEN - the day of 2020-05-14T22:00:00Z
+		assertThat(movieDao.listMovies()).extracting("title", "releaseDate").containsExactlyInAnyOrder(
+				tuple("Title, \"one\"", LocalDate.of(2015, 11, 26)),
+				tuple("Été", null),
+				tuple("Inception", LocalDate.of(2020, 5, 14)));
+	}
+}
@@ -0,0 +1,153 @@
+package fr.isen.java2.db.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import fr.isen.java2.db.daos.DataSourceFactory;
+import fr.isen.java2.db.daos.GenreDao;
+import fr.isen.java2.db.daos.MovieDao;
+import fr.isen.java2.db.entities.Movie;
+
+/**
+ * Test cases for MovieImporter.
+ */
+public class MovieImporterTestCase {
+
+	@TempDir
+	Path tempDir;
+
+	private final MovieDao movieDao = new MovieDao();
+	private final GenreDao genreDao = new GenreDao();
+
+	@BeforeEach
+	public void initDb() throws Exception {
+		try (Connection connection = DataSourceFactory.getDataSource().getConnection();
+			 Statement stmt = connection.createStatement()) {
+			stmt.executeUpdate("DELETE FROM movie");
+			stmt.executeUpdate("DELETE FROM genre");
+			stmt.executeUpdate("INSERT INTO genre(idgenre,name) VALUES (1,'Drama')");
+		}
+		genreDao.listGenres();
+	}
+
+	@Test
+	public void shouldImportCsvAndCreateMissingGenres() throws Exception {
+		// GIVEN - columns in another order, quoted fields and an unknown column
+		Path file = write("movies.csv", """
+				director,title,genre,release_date,duration,summary,rating
+				Director 1,"Title, with comma",Drama,2015-11-26,120,"He said ""hello""
+				on two lines",5
+				Director 2,Title 2,Comedy,,,,3\r
+				Director 3,Title 3,Comedy,2001-02-03 12:00:00.000,95,Summary 3,4
+				""");
+
+		// WHEN
+		ImportProgress result = new MovieImporter().importFile(file);
+
+		// THEN
+		assertThat(result.rows()).isEqualTo(3);
+		assertThat(result.genresCreated()).isEqualTo(1);
+		assertThat(result.bytesRead()).isEqualTo(Files.size(file));
+		assertThat(movieDao.listMovies())
+				.extracting(Movie::getTitle, Movie::getReleaseDate, movie -> movie.getGenre().getName(),
+						Movie::getDuration, Movie::getDirector, Movie::getSummary)
+				.containsExactly(
+						tuple("Title, with comma", LocalDate.of(2015, 11, 26), "Drama", 120, "Director 1",
+								"He said \"hello\"\non two lines"),
+						tuple("Title 2", null, "Comedy", null, "Director 2", null),
+						tuple("Title 3", LocalDate.of(2001, 2, 3), "Comedy", 95, "Director 3", "Summary 3"));
+		assertThat(genreDao.getGenre("Comedy")).isPresent();
+	}
+
+	@Test
+	public void shouldImportGzippedNdjsonInBatches() throws Exception {
+		// GIVEN
+		StringBuilder lines = new StringBuilder();
+		for (int i = 1; i <= 5; i++) {
+			lines.append("{\"id\": 42, \"title\": \"Caf\\u00e9 ").append(i)
+					.append("\", \"genre\": \"Thriller\", \"duration\": ").append(90 + i)
+					.append(", \"release_date\": null, \"director\": \"D\\\"irector\", \"summary\": \"a\\tb\"}\n");
+		}
+		Path file = tempDir.resolve("movies.ndjson.gz");
+		try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(file))) {
+			output.write(lines.toString().getBytes(StandardCharsets.UTF_8));
+		}
+		List<ImportProgress> reports = new ArrayList<>();
+
+		// WHEN
+		ImportProgress result = new MovieImporter(movieDao, genreDao, 2).importFile(file, reports::add);
+
+		// THEN - one report per committed batch of 2
+		assertThat(reports).extracting(ImportProgress::rows).containsExactly(2L, 4L, 5L);
+		assertThat(result.rows()).isEqualTo(5);
+		assertThat(result.genresCreated()).isEqualTo(1);
+		assertThat(result.rowsPerSecond()).isPositive();
+		List<Movie> movies = movieDao.listMoviesByGenre("Thriller");
+		assertThat(movies).extracting(Movie::getTitle).containsExactly("Café 1", "Café 2", "Café 3", "Café 4", "Café 5");
+		assertThat(movies.get(0).getId()).isNotEqualTo(42);
+		assertThat(movies.get(0).getDirector()).isEqualTo("D\"irector");
+		assertThat(movies.get(0).getSummary()).isEqualTo("a\tb");
+		assertThat(movies.get(0).getReleaseDate()).isNull();
+	}
+
+	@Test
+	public void shouldLeaveTheCallersChannelOpen() throws Exception {
+		// GIVEN - a gzip file read through a channel owned by the caller
+		Path file = tempDir.resolve("movies.csv.gz");
+		try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(file))) {
+			output.write("title,genre,director\nTitle 1,Drama,Director 1\n".getBytes(StandardCharsets.UTF_8));
+		}
+
+		try (FileChannel channel = FileChannel.open(file)) {
+			// WHEN
+			ImportProgress result = new MovieImporter().importFrom(channel, CatalogFormat.CSV, true, progress -> {
+			});
+
+			// THEN
+			assertThat(result.rows()).isEqualTo(1);
+			assertThat(channel.isOpen()).isTrue();
+			assertThat(channel.position()).isEqualTo(Files.size(file));
+		}
+	}
+
+	@Test
+	public void shouldReportTheLineOfAMalformedRecord() throws Exception {
+		Path csv = write("movies.csv", """
+				title,genre,director
+				Title 1,Drama,Director 1
+				Title 2,,Director 2
+				""");
+		Path ndjson = write("movies.ndjson", """
+				{"title": "Title 1", "genre": "Drama", "director": "Director 1"}
+				{"title": "Title 2", "genre": ["Drama"], "director": "Director 2"}
+				""");
+
+		assertThatThrownBy(() -> new MovieImporter().importFile(csv))
+				.isInstanceOf(IllegalArgumentException.class).hasMessage("Line 3: missing genre");
+		assertThatThrownBy(() -> new MovieImporter().importFile(ndjson))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("Line 2: malformed JSON");
+		assertThatThrownBy(() -> CatalogFormat.fromFileName("movies.xml"))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private Path write(String fileName, String content) throws Exception {
+		return Files.writeString(tempDir.resolve(fileName), content);
+	}
+}